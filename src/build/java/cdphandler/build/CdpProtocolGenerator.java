@@ -0,0 +1,448 @@
+package cdphandler.build;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the typed command records in {@code cdphandler.protocol} from the
+ * DevTools protocol schema ({@code browser_protocol.json}, {@code js_protocol.json}).
+ * Runs in the {@code generate-sources} phase; see {@code src/main/protocol/README.md}.
+ * <p>
+ * Each domain becomes one final class holding a record per object type, a record per
+ * command implementing {@code cdphandler.CdpCommand} and, for commands that return
+ * something, a {@code <Command>Result} record. Enums and string aliases map to
+ * {@code String}, untyped objects and {@code any} to {@code JsonNode}.
+ * <p>
+ * Usage: {@code CdpProtocolGenerator <outputDir> <schema.json>...}
+ */
+public final class CdpProtocolGenerator {
+    private static final String PACKAGE = "cdphandler.protocol";
+    private static final String HELPER = "ProtocolJson";
+    private static final Set<String> RESERVED = Set.of(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+            "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+            "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp",
+            "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void",
+            "volatile", "while", "true", "false", "null", "record", "var", "yield",
+            // members of the generated records and java.lang.Object
+            "method", "writeParams", "parseResult", "write", "from", "equals", "hashCode", "toString",
+            "getClass", "notify", "notifyAll", "wait");
+
+    private final Map<String, JsonNode> types = new HashMap<>();
+    private final Map<String, String> domainSources = new HashMap<>();
+    private final List<JsonNode> domains = new ArrayList<>();
+
+    private CdpProtocolGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: CdpProtocolGenerator <outputDir> <schema.json>...");
+        }
+        CdpProtocolGenerator generator = new CdpProtocolGenerator();
+        ObjectMapper mapper = new ObjectMapper();
+        for (int i = 1; i < args.length; i++) {
+            Path schema = Path.of(args[i]);
+            generator.load(mapper.readTree(schema.toFile()), schema.getFileName().toString());
+        }
+        int written = generator.writeAll(Path.of(args[0]).resolve(PACKAGE.replace('.', '/')));
+        System.out.println("CDP protocol: " + generator.domains.size() + " domains, " + written + " files updated");
+    }
+
+    private void load(JsonNode schema, String source) {
+        for (JsonNode domain : schema.path("domains")) {
+            String name = domain.path("domain").asText();
+            if (domainSources.put(name, source) != null) {
+                throw new IllegalArgumentException("Domain " + name + " is defined twice");
+            }
+            domains.add(domain);
+            for (JsonNode type : domain.path("types")) {
+                types.put(name + "." + type.path("id").asText(), type);
+            }
+        }
+    }
+
+    private int writeAll(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        int written = write(dir.resolve(HELPER + ".java"), helper());
+        for (JsonNode domain : domains) {
+            String name = domain.path("domain").asText();
+            written += write(dir.resolve(name + ".java"), domain(domain));
+        }
+        return written;
+    }
+
+    /**
+     * Writes {@code content} unless the file already holds it, so unchanged sources
+     * do not trigger a recompile.
+     */
+    private static int write(Path file, String content) throws IOException {
+        if (Files.exists(file) && Files.readString(file, StandardCharsets.UTF_8).equals(content)) {
+            return 0;
+        }
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return 1;
+    }
+
+    private String domain(JsonNode domain) {
+        String name = domain.path("domain").asText();
+        Set<String> recordNames = new LinkedHashSet<>();
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(PACKAGE).append(";\n\n");
+        out.append("// Generated by CdpProtocolGenerator from ").append(domainSources.get(name))
+                .append(". Do not edit.\n\n");
+        out.append("import cdphandler.CdpCommand;\n");
+        out.append("import com.fasterxml.jackson.core.JsonGenerator;\n");
+        out.append("import com.fasterxml.jackson.databind.JsonNode;\n\n");
+        out.append("import java.io.IOException;\n");
+        out.append("import java.util.List;\n\n");
+        javadoc(out, "", description(domain, "The " + name + " domain."));
+        out.append("public final class ").append(name).append(" {\n");
+        out.append("    private ").append(name).append("() {\n    }\n");
+
+        for (JsonNode type : domain.path("types")) {
+            if ("object".equals(type.path("type").asText()) && type.has("properties")) {
+                String typeName = type.path("id").asText();
+                claim(recordNames, name, typeName);
+                out.append('\n');
+                objectRecord(out, name, typeName, description(type, typeName + "."), type.path("properties"));
+            }
+        }
+        for (JsonNode command : domain.path("commands")) {
+            String commandName = command.path("name").asText();
+            String recordName = capitalize(commandName);
+            boolean hasResult = command.path("returns").size() > 0;
+            claim(recordNames, name, recordName);
+            out.append('\n');
+            commandRecord(out, name, commandName, recordName, command, hasResult);
+            if (hasResult) {
+                claim(recordNames, name, recordName + "Result");
+                out.append('\n');
+                objectRecord(out, name, recordName + "Result", "Result of {@link " + recordName + "}.",
+                        command.path("returns"));
+            }
+        }
+        out.append("}\n");
+        return out.toString();
+    }
+
+    private static void claim(Set<String> names, String domain, String name) {
+        if (!names.add(name) || name.equals(domain)) {
+            throw new IllegalArgumentException("Name clash in domain " + domain + ": " + name);
+        }
+    }
+
+    private void objectRecord(StringBuilder out, String domain, String recordName, String description,
+                              JsonNode properties) {
+        List<Field> fields = fields(domain, properties);
+        javadoc(out, "    ", description);
+        out.append("    public record ").append(recordName).append('(');
+        components(out, fields);
+        out.append(") {\n\n");
+
+        out.append("        public void write(JsonGenerator out) throws IOException {\n");
+        out.append("            out.writeStartObject();\n");
+        writeFields(out, fields);
+        out.append("            out.writeEndObject();\n");
+        out.append("        }\n\n");
+
+        out.append("        public static ").append(recordName).append(" from(JsonNode node) {\n");
+        out.append("            if (node == null || !node.isObject()) {\n");
+        out.append("                return null;\n");
+        out.append("            }\n");
+        out.append("            return new ").append(recordName).append('(');
+        for (int i = 0; i < fields.size(); i++) {
+            out.append(i == 0 ? "\n                    " : ",\n                    ");
+            out.append(read(fields.get(i)));
+        }
+        out.append(");\n");
+        out.append("        }\n");
+        out.append("    }\n");
+    }
+
+    private void commandRecord(StringBuilder out, String domain, String commandName, String recordName,
+                               JsonNode command, boolean hasResult) {
+        List<Field> fields = fields(domain, command.path("parameters"));
+        String result = hasResult ? recordName + "Result" : "Void";
+        String doc = description(command, "{@code " + domain + "." + commandName + "}.");
+        if (command.path("deprecated").asBoolean()) {
+            doc += "\n<p>\nDeprecated in the protocol.";
+        }
+        javadoc(out, "    ", doc);
+        out.append("    public record ").append(recordName).append('(');
+        components(out, fields);
+        out.append(") implements CdpCommand<").append(result).append("> {\n");
+
+        List<Field> required = fields.stream().filter(f -> !f.optional).toList();
+        List<Field> checked = required.stream().filter(f -> !f.type.primitive()).toList();
+        if (!checked.isEmpty()) {
+            out.append("\n        public ").append(recordName).append(" {\n");
+            for (Field field : checked) {
+                out.append("            java.util.Objects.requireNonNull(").append(field.javaName).append(", \"")
+                        .append(field.jsonName).append("\");\n");
+            }
+            out.append("        }\n");
+        }
+        if (required.size() < fields.size()) {
+            out.append("\n        public ").append(recordName).append('(');
+            for (int i = 0; i < required.size(); i++) {
+                Field field = required.get(i);
+                out.append(i == 0 ? "" : ", ").append(field.type.java).append(' ').append(field.javaName);
+            }
+            out.append(") {\n            this(");
+            for (int i = 0; i < fields.size(); i++) {
+                Field field = fields.get(i);
+                out.append(i == 0 ? "" : ", ").append(field.optional ? "null" : field.javaName);
+            }
+            out.append(");\n        }\n");
+            for (Field field : fields) {
+                if (!field.optional) {
+                    continue;
+                }
+                out.append("\n        public ").append(recordName).append(" with")
+                        .append(capitalize(field.jsonName)).append('(').append(field.type.boxed).append(' ')
+                        .append(field.javaName).append(") {\n");
+                out.append("            return new ").append(recordName).append('(');
+                for (int i = 0; i < fields.size(); i++) {
+                    out.append(i == 0 ? "" : ", ").append(fields.get(i).javaName);
+                }
+                out.append(");\n        }\n");
+            }
+        }
+
+        out.append("\n        @Override\n");
+        out.append("        public String method() {\n");
+        out.append("            return \"").append(domain).append('.').append(commandName).append("\";\n");
+        out.append("        }\n\n");
+        out.append("        @Override\n");
+        out.append("        public void writeParams(JsonGenerator out) throws IOException {\n");
+        writeFields(out, fields);
+        out.append("        }\n\n");
+        out.append("        @Override\n");
+        out.append("        public ").append(result).append(" parseResult(JsonNode result) {\n");
+        out.append("            return ").append(hasResult ? result + ".from(result)" : "null").append(";\n");
+        out.append("        }\n");
+        out.append("    }\n");
+    }
+
+    private static void components(StringBuilder out, List<Field> fields) {
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            out.append(i == 0 ? "" : ", ").append(field.optional ? field.type.boxed : field.type.java).append(' ')
+                    .append(field.javaName);
+        }
+    }
+
+    private static void writeFields(StringBuilder out, List<Field> fields) {
+        for (Field field : fields) {
+            String indent = "            ";
+            if (field.optional || !field.type.primitive()) {
+                out.append(indent).append("if (").append(field.javaName).append(" != null) {\n");
+                indent += "    ";
+            }
+            String name = "\"" + field.jsonName + "\"";
+            Type type = field.type;
+            if (type.item != null) {
+                out.append(indent).append("out.writeArrayFieldStart(").append(name).append(");\n");
+                out.append(indent).append("for (").append(type.item.boxed).append(" item : ")
+                        .append(field.javaName).append(") {\n");
+                out.append(indent).append("    ").append(writeValue(type.item, "item")).append('\n');
+                out.append(indent).append("}\n");
+                out.append(indent).append("out.writeEndArray();\n");
+            } else {
+                out.append(indent).append("out.writeFieldName(").append(name).append(");\n");
+                out.append(indent).append(writeValue(type, field.javaName)).append('\n');
+            }
+            if (field.optional || !field.type.primitive()) {
+                out.append("            }\n");
+            }
+        }
+    }
+
+    private static String writeValue(Type type, String value) {
+        return switch (type.kind) {
+            case STRING -> "out.writeString(" + value + ");";
+            case INTEGER, NUMBER -> "out.writeNumber(" + value + ");";
+            case BOOLEAN -> "out.writeBoolean(" + value + ");";
+            case JSON -> "out.writeTree(" + value + ");";
+            case RECORD -> value + ".write(out);";
+            case LIST -> throw new IllegalStateException("Nested arrays are not supported");
+        };
+    }
+
+    private static String read(Field field) {
+        String name = "\"" + field.jsonName + "\"";
+        Type type = field.type;
+        if (!field.optional && type.primitive()) {
+            return "node.path(" + name + ")." + type.reader + "()";
+        }
+        if (type.item != null) {
+            return HELPER + ".list(node.get(" + name + "), " + readItem(type.item) + ")";
+        }
+        return HELPER + "." + switch (type.kind) {
+            case STRING -> "string";
+            case INTEGER -> "integer";
+            case NUMBER -> "number";
+            case BOOLEAN -> "bool";
+            case JSON -> "json";
+            case RECORD -> "object";
+            case LIST -> throw new IllegalStateException("Unreachable");
+        } + "(node.get(" + name + ")" + (type.kind == Kind.RECORD ? ", " + type.java + "::from" : "") + ")";
+    }
+
+    private static String readItem(Type item) {
+        return switch (item.kind) {
+            case RECORD -> item.java + "::from";
+            case JSON -> "n -> n";
+            default -> "JsonNode::" + item.reader;
+        };
+    }
+
+    private List<Field> fields(String domain, JsonNode properties) {
+        List<Field> fields = new ArrayList<>();
+        for (JsonNode property : properties) {
+            String jsonName = property.path("name").asText();
+            String javaName = RESERVED.contains(jsonName) ? jsonName + "_" : jsonName;
+            fields.add(new Field(jsonName, javaName, property.path("optional").asBoolean(), type(domain, property)));
+        }
+        return fields;
+    }
+
+    private Type type(String domain, JsonNode node) {
+        if (node.has("$ref")) {
+            String ref = node.path("$ref").asText();
+            String qualified = ref.contains(".") ? ref : domain + "." + ref;
+            JsonNode target = types.get(qualified);
+            if (target == null) {
+                throw new IllegalArgumentException("Unknown type " + qualified + " referenced from " + domain);
+            }
+            if ("object".equals(target.path("type").asText()) && target.has("properties")) {
+                String owner = qualified.substring(0, qualified.indexOf('.'));
+                String simple = qualified.substring(qualified.indexOf('.') + 1);
+                String java = owner.equals(domain) ? simple : qualified;
+                return new Type(Kind.RECORD, java, java, null, null);
+            }
+            return type(qualified.substring(0, qualified.indexOf('.')), target);
+        }
+        return switch (node.path("type").asText()) {
+            case "string" -> new Type(Kind.STRING, "String", "String", "asText", null);
+            case "integer" -> new Type(Kind.INTEGER, "int", "Integer", "asInt", null);
+            case "number" -> new Type(Kind.NUMBER, "double", "Double", "asDouble", null);
+            case "boolean" -> new Type(Kind.BOOLEAN, "boolean", "Boolean", "asBoolean", null);
+            case "any", "object" -> new Type(Kind.JSON, "JsonNode", "JsonNode", null, null);
+            case "array" -> {
+                Type item = type(domain, node.path("items"));
+                String java = "List<" + item.boxed + ">";
+                yield new Type(Kind.LIST, java, java, null, item);
+            }
+            default -> throw new IllegalArgumentException("Unsupported type in " + domain + ": " + node);
+        };
+    }
+
+    private static String description(JsonNode node, String fallback) {
+        String description = node.path("description").asText("");
+        description = description.isBlank() ? fallback : description;
+        return node.path("experimental").asBoolean() ? description + "\n<p>\nExperimental." : description;
+    }
+
+    private static void javadoc(StringBuilder out, String indent, String text) {
+        String escaped = text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("*/", "*&#47;").replace("@", "&#64;")
+                .replace("&lt;p&gt;", "<p>").replace("{&#64;code", "{@code").replace("{&#64;link", "{@link");
+        out.append(indent).append("/**\n");
+        for (String line : escaped.split("\n")) {
+            out.append(indent).append(" *").append(line.isEmpty() ? "" : " " + line).append('\n');
+        }
+        out.append(indent).append(" */\n");
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String helper() {
+        return """
+                package cdphandler.protocol;
+
+                // Generated by CdpProtocolGenerator. Do not edit.
+
+                import com.fasterxml.jackson.databind.JsonNode;
+
+                import java.util.ArrayList;
+                import java.util.Collections;
+                import java.util.List;
+                import java.util.function.Function;
+
+                /**
+                 * Reads optional values for the generated records; a missing or {@code null}
+                 * field reads as {@code null}.
+                 */
+                final class ProtocolJson {
+                    private ProtocolJson() {
+                    }
+
+                    static String string(JsonNode node) {
+                        return node == null || node.isNull() ? null : node.asText();
+                    }
+
+                    static Integer integer(JsonNode node) {
+                        return node == null || node.isNull() ? null : node.asInt();
+                    }
+
+                    static Double number(JsonNode node) {
+                        return node == null || node.isNull() ? null : node.asDouble();
+                    }
+
+                    static Boolean bool(JsonNode node) {
+                        return node == null || node.isNull() ? null : node.asBoolean();
+                    }
+
+                    static JsonNode json(JsonNode node) {
+                        return node == null || node.isNull() ? null : node;
+                    }
+
+                    static <T> T object(JsonNode node, Function<JsonNode, T> reader) {
+                        return node == null || node.isNull() ? null : reader.apply(node);
+                    }
+
+                    static <T> List<T> list(JsonNode node, Function<JsonNode, T> reader) {
+                        if (node == null || !node.isArray()) {
+                            return null;
+                        }
+                        List<T> items = new ArrayList<>(node.size());
+                        for (JsonNode item : node) {
+                            items.add(reader.apply(item));
+                        }
+                        return Collections.unmodifiableList(items);
+                    }
+                }
+                """;
+    }
+
+    private enum Kind { STRING, INTEGER, NUMBER, BOOLEAN, JSON, RECORD, LIST }
+
+    /**
+     * A schema type mapped to Java: {@code java} for required values, {@code boxed}
+     * for optional ones and list items.
+     */
+    private record Type(Kind kind, String java, String boxed, String reader, Type item) {
+        boolean primitive() {
+            return !java.equals(boxed);
+        }
+    }
+
+    private record Field(String jsonName, String javaName, boolean optional, Type type) {
+    }
+}
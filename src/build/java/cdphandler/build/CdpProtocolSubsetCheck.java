@@ -0,0 +1,122 @@
+package cdphandler.build;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks that the schema subset in {@code src/main/protocol} agrees with the pinned
+ * upstream DevTools protocol files. Runs in the {@code check-protocol} profile; see
+ * {@code src/main/protocol/README.md}.
+ * <p>
+ * Every domain, type, command, parameter, return value and property of the subset
+ * must exist upstream with the same wire shape ({@code type}, {@code $ref},
+ * {@code optional}, {@code items}, {@code enum}). Descriptions and the
+ * experimental/deprecated flags are not compared. Members the subset leaves out are
+ * only reported when upstream requires them.
+ * <p>
+ * Usage: {@code CdpProtocolSubsetCheck <upstreamDir> <subset.json>...}, where each
+ * subset file is compared with the upstream file of the same name.
+ */
+public final class CdpProtocolSubsetCheck {
+    private static final Set<String> IGNORED = Set.of("description", "experimental", "deprecated");
+
+    private final List<String> problems = new ArrayList<>();
+
+    private CdpProtocolSubsetCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: CdpProtocolSubsetCheck <upstreamDir> <subset.json>...");
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        CdpProtocolSubsetCheck check = new CdpProtocolSubsetCheck();
+        for (int i = 1; i < args.length; i++) {
+            Path subset = Path.of(args[i]);
+            Path upstream = Path.of(args[0]).resolve(subset.getFileName());
+            check.file(subset.getFileName().toString(), mapper.readTree(subset.toFile()),
+                    mapper.readTree(upstream.toFile()));
+        }
+        if (!check.problems.isEmpty()) {
+            check.problems.forEach(System.err::println);
+            throw new IllegalStateException(check.problems.size() + " difference(s) from the upstream protocol");
+        }
+        System.out.println("CDP protocol: subset matches upstream");
+    }
+
+    private void file(String name, JsonNode subset, JsonNode upstream) {
+        if (!subset.path("version").equals(upstream.path("version"))) {
+            problems.add(name + ": version " + subset.path("version") + " != " + upstream.path("version"));
+        }
+        Map<String, JsonNode> domains = byKey(upstream.path("domains"), "domain");
+        for (JsonNode domain : subset.path("domains")) {
+            String domainName = domain.path("domain").asText();
+            JsonNode match = domains.get(domainName);
+            if (match == null) {
+                problems.add(name + ": no domain " + domainName);
+                continue;
+            }
+            members(domainName + " type", domain.path("types"), match.path("types"), "id", false);
+            members(domainName + " command", domain.path("commands"), match.path("commands"), "name", false);
+        }
+    }
+
+    /**
+     * Compares the subset's {@code members} with the upstream ones of the same key;
+     * with {@code requireAll}, upstream members that are not optional must be present.
+     */
+    private void members(String where, JsonNode members, JsonNode upstreamMembers, String key, boolean requireAll) {
+        Map<String, JsonNode> upstream = byKey(upstreamMembers, key);
+        Map<String, JsonNode> present = byKey(members, key);
+        for (Map.Entry<String, JsonNode> entry : present.entrySet()) {
+            JsonNode match = upstream.get(entry.getKey());
+            if (match == null) {
+                problems.add(where + " " + entry.getKey() + " does not exist upstream");
+            } else {
+                member(where + " " + entry.getKey(), entry.getValue(), match);
+            }
+        }
+        if (requireAll) {
+            upstream.forEach((name, member) -> {
+                if (!present.containsKey(name) && !member.path("optional").asBoolean()) {
+                    problems.add(where + " is missing required " + name);
+                }
+            });
+        }
+    }
+
+    private void member(String where, JsonNode member, JsonNode upstream) {
+        if (!shape(member).equals(shape(upstream))) {
+            problems.add(where + ": " + shape(member) + " != " + shape(upstream));
+        }
+        members(where + " parameter", member.path("parameters"), upstream.path("parameters"), "name", true);
+        members(where + " return", member.path("returns"), upstream.path("returns"), "name", true);
+        members(where + " property", member.path("properties"), upstream.path("properties"), "name", true);
+    }
+
+    /** The wire-relevant fields of a member; nested member lists are compared one by one. */
+    private static JsonNode shape(JsonNode member) {
+        ObjectNode shape = member.deepCopy();
+        shape.remove(IGNORED);
+        shape.remove(List.of("parameters", "returns", "properties"));
+        if (shape.has("items")) {
+            shape.set("items", shape(shape.get("items")));
+        }
+        return shape;
+    }
+
+    private static Map<String, JsonNode> byKey(JsonNode members, String key) {
+        Map<String, JsonNode> map = new LinkedHashMap<>();
+        members.forEach(member -> map.put(member.path(key).asText(), member));
+        return map;
+    }
+}
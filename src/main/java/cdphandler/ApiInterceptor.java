@@ -17,6 +17,9 @@ public final class ApiInterceptor {
 
     private final CdpClient client;
 
+    // In-flight request counts, fed on a queue of their own
+    private final CdpNetworkTracker networkTracker = new CdpNetworkTracker();
+
     // URL filter → future
     private final ConcurrentHashMap<String, CompletableFuture<ApiResponse>> pending = new ConcurrentHashMap<>();
 
@@ -59,31 +62,21 @@ public final class ApiInterceptor {
     }
 
     private void registerListeners() {
+        // One listener for the domain so request, response and body events share a
+        // dispatch queue and keep their relative order.
+        client.on("Network", this::handleNetworkEvent);
+        networkTracker.subscribe(client);
+    }
 
-        client.addEventListener(event -> {
-
-            if (!event.has("method"))
-                return;
-
-            switch (event.get("method").asText()) {
-
-                case "Network.requestWillBeSent":
-                    handleRequest(event);
-                    break;
-
-                case "Network.responseReceived":
-                    handleResponse(event);
-                    break;
-
-                case "Network.loadingFinished":
-                    handleBody(event);
-                    break;
-
-                case "Network.webSocketFrameReceived":
-                    handleWebSocketFrameReceived(event);
-                    break;
+    private void handleNetworkEvent(JsonNode event) {
+        switch (event.path("method").asText()) {
+            case "Network.requestWillBeSent" -> handleRequest(event);
+            case "Network.responseReceived" -> handleResponse(event);
+            case "Network.loadingFinished" -> handleBody(event);
+            case "Network.webSocketFrameReceived" -> handleWebSocketFrameReceived(event);
+            default -> {
             }
-        });
+        }
     }
 
     private void handleRequest(JsonNode event) {
@@ -125,7 +118,7 @@ public final class ApiInterceptor {
         }
 
         // Run the blocking Network.getResponseBody call off the listener thread
-        // to avoid deadlocking the single-threaded CdpClient listenerExecutor.
+        // so this interceptor's event queue keeps draining meanwhile.
         CompletableFuture.runAsync(() -> {
             try {
                 JsonNode body = client.sendCommand(
@@ -165,6 +158,13 @@ public final class ApiInterceptor {
         return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Returns the tracker of in-flight requests fed by this interceptor.
+     */
+    public CdpNetworkTracker getNetworkTracker() {
+        return networkTracker;
+    }
+
     private void handleWebSocketFrameReceived(JsonNode event) {
         String payload = event.get("params").get("response").get("payloadData").asText();
         log.info("WebSocket frame received with payload: {}", payload);
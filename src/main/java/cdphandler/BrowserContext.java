@@ -1,14 +1,9 @@
 package cdphandler;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import logger.Log;
 import logger.Logger;
 
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,6 +16,11 @@ import java.util.List;
  * process.
  * This makes it safe for parallel test execution: each test thread creates its
  * own context, and there is zero shared state between them.
+ * <p>
+ * Drivers returned by {@link #newDriver()} are bound to flattened CDP sessions
+ * on this context's browser-level WebSocket, so opening a page costs one
+ * {@code Target.createTarget} and one {@code Target.attachToTarget} round trip
+ * rather than a new WebSocket handshake and listener thread per page.
  *
  * <pre>
  * BrowserContext ctx = new BrowserContext(browser.wsUrl(), browser.port());
@@ -39,6 +39,7 @@ public class BrowserContext implements AutoCloseable {
 
     private final CdpUtility browserUtility;
     private final String browserContextId;
+    private final String browserWsUrl;
     private final int port;
     private final List<String> targetIds = new ArrayList<>();
 
@@ -52,6 +53,7 @@ public class BrowserContext implements AutoCloseable {
      *                     queries).
      */
     public BrowserContext(String browserWsUrl, int port) {
+        this.browserWsUrl = browserWsUrl;
         this.port = port;
         this.browserUtility = new CdpUtility(browserWsUrl, false);
         this.browserContextId = browserUtility.targetCreateBrowserContext();
@@ -61,10 +63,15 @@ public class BrowserContext implements AutoCloseable {
     /**
      * Opens a new page (tab) within this isolated context and returns
      * a ready-to-use {@link ICdpDriver} connected to it.
+     * <p>
+     * The driver talks to the page through a flattened session on this context's
+     * browser-level connection; closing the driver detaches from the page.
      */
     public ICdpDriver newDriver() {
-        String pageWsUrl = newPage();
-        return CdpHandler.createDriver(pageWsUrl);
+        String targetId = createPageTarget();
+        CdpClient session = browserUtility.getClient().attachToTarget(targetId);
+        log.info("Attached to page target: {} (session {})", targetId, session.getSessionId());
+        return CdpHandler.createDriver(session);
     }
 
     /**
@@ -73,12 +80,7 @@ public class BrowserContext implements AutoCloseable {
      * @return The WebSocket debugger URL for the new page target.
      */
     public String newPage() {
-        String targetId = browserUtility.targetCreateTarget("about:blank", browserContextId);
-        targetIds.add(targetId);
-        log.info("Created page target: {} in context: {}", targetId, browserContextId);
-
-        // Query /json to get the WebSocket URL for this target
-        return getWsUrlForTarget(targetId);
+        return getWsUrlForTarget(createPageTarget());
     }
 
     /**
@@ -122,46 +124,22 @@ public class BrowserContext implements AutoCloseable {
     // Internal helpers
     // -----------------------------------------------------------------------
 
+    private String createPageTarget() {
+        String targetId = browserUtility.targetCreateTarget("about:blank", browserContextId);
+        targetIds.add(targetId);
+        log.info("Created page target: {} in context: {}", targetId, browserContextId);
+        return targetId;
+    }
+
     /**
-     * Queries the Chrome HTTP debug endpoint to find the WebSocket URL for
-     * a specific target by its targetId.
+     * Builds the page-level WebSocket URL for a target. Chrome serves every target
+     * at {@code /devtools/page/<targetId>} on the same host and port as the
+     * browser endpoint, so no {@code /json} lookup is needed.
      */
     private String getWsUrlForTarget(String targetId) {
-        HttpClient client = HttpClient.newHttpClient();
-        // Retry a few times — the target may take a moment to appear in /json
-        for (int attempt = 0; attempt < 10; attempt++) {
-            try {
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create("http://127.0.0.1:" + port + "/json"))
-                        .timeout(Duration.ofSeconds(5))
-                        .GET()
-                        .build();
-
-                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-                JsonNode targets = new com.fasterxml.jackson.databind.ObjectMapper()
-                        .readTree(response.body());
-
-                if (targets.isArray()) {
-                    for (JsonNode target : targets) {
-                        if (targetId.equals(target.path("id").asText())) {
-                            String ws = target.path("webSocketDebuggerUrl").asText();
-                            if (!ws.isEmpty()) {
-                                return ws;
-                            }
-                        }
-                    }
-                }
-
-                // Target not yet visible — wait a bit
-                Thread.sleep(100);
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                break;
-            } catch (Exception e) {
-                // retry
-            }
-        }
-        throw new RuntimeException("Could not find WebSocket URL for target " + targetId
-                + " on port " + port);
+        URI browserUri = URI.create(browserWsUrl);
+        String host = browserUri.getHost() != null ? browserUri.getHost() : "127.0.0.1";
+        int targetPort = browserUri.getPort() != -1 ? browserUri.getPort() : port;
+        return browserUri.getScheme() + "://" + host + ":" + targetPort + "/devtools/page/" + targetId;
     }
 }
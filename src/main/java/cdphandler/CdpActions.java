@@ -0,0 +1,224 @@
+package cdphandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import tools.Utilities;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Builder for pointer and key gestures, in the spirit of W3C Actions.
+ * <p>
+ * Obtain one from {@link CdpUtility#actions()}. Steps are compiled into
+ * {@code Input.dispatchMouseEvent}/{@code Input.dispatchKeyEvent} commands and
+ * only sent by {@link #perform()}, back-to-back, with one wait for all of them at
+ * the end. The Input domain handles events in the order they are sent, so the
+ * gesture is the same as sending them one by one, minus a round trip per event.
+ * {@link #pause(Duration)} is the only place the sender waits between events.
+ *
+ * <pre>
+ * cdp.actions()
+ *         .moveTo(source)
+ *         .press()
+ *         .moveTo(target, 10)
+ *         .release()
+ *         .perform();
+ * </pre>
+ */
+public final class CdpActions {
+    private final CdpUtility cdpUtility;
+    /** Commands separated by pauses; {@code pauses[i]} follows {@code segments[i]}. */
+    private final List<CdpPipeline> segments = new ArrayList<>();
+    private final List<Duration> pauses = new ArrayList<>();
+    private int x;
+    private int y;
+    private int modifiers;
+    private String pressedButton = "none";
+    private String lastReleasedButton;
+    private int clickCount;
+    private boolean positioned;
+
+    CdpActions(CdpUtility cdpUtility, int modifiers) {
+        this.cdpUtility = cdpUtility;
+        this.modifiers = modifiers;
+        startSegment();
+    }
+
+    private void startSegment() {
+        segments.add(cdpUtility.pipeline());
+        pauses.add(Duration.ZERO);
+    }
+
+    private CdpPipeline current() {
+        return segments.getLast();
+    }
+
+    /**
+     * Moves the pointer to {@code (x, y)} in one step.
+     */
+    public CdpActions moveTo(int x, int y) {
+        return moveTo(x, y, 1);
+    }
+
+    /**
+     * Moves the pointer to {@code (x, y)} in {@code steps} evenly spaced moves, e.g.
+     * to give drag-and-drop libraries the intermediate positions they expect.
+     */
+    public CdpActions moveTo(int x, int y, int steps) {
+        if (steps < 1) {
+            throw new IllegalArgumentException("steps must be positive: " + steps);
+        }
+        // Where the pointer starts is unknown, so the first move goes straight there
+        int fromX = positioned ? this.x : x;
+        int fromY = positioned ? this.y : y;
+        int moves = positioned ? steps : 1;
+        positioned = true;
+        for (int i = 1; i <= moves; i++) {
+            this.x = fromX + (x - fromX) * i / moves;
+            this.y = fromY + (y - fromY) * i / moves;
+            current().inputDispatchMouseEvent(MouseEvent.MOVED, this.x, this.y, modifiers, pressedButton, 0);
+        }
+        lastReleasedButton = null;
+        return this;
+    }
+
+    /**
+     * Moves the pointer to the in-view centre of {@code element} in one step.
+     */
+    public CdpActions moveTo(ICdpElement element) {
+        return moveTo(element, 1);
+    }
+
+    /**
+     * Moves the pointer to the in-view centre of {@code element}. The centre is
+     * read when this method is called, not when the gesture is performed.
+     */
+    public CdpActions moveTo(ICdpElement element, int steps) {
+        CdpPoint center = element.getCenterLocation();
+        return moveTo(center.x(), center.y(), steps);
+    }
+
+    /**
+     * Moves the pointer by an offset from its current position.
+     */
+    public CdpActions moveBy(int xOffset, int yOffset) {
+        return moveTo(x + xOffset, y + yOffset, 1);
+    }
+
+    public CdpActions moveBy(int xOffset, int yOffset, int steps) {
+        return moveTo(x + xOffset, y + yOffset, steps);
+    }
+
+    public CdpActions press() {
+        return press("left");
+    }
+
+    /**
+     * Presses {@code button} ({@code "left"}, {@code "middle"} or {@code "right"}) at
+     * the current position. Pressing the button just released without moving
+     * continues the click sequence, so two clicks make a double click.
+     */
+    public CdpActions press(String button) {
+        clickCount = button.equals(lastReleasedButton) ? clickCount + 1 : 1;
+        pressedButton = button;
+        current().inputDispatchMouseEvent(MouseEvent.PRESSED, x, y, modifiers, button, clickCount);
+        return this;
+    }
+
+    /**
+     * Releases the pressed button at the current position.
+     */
+    public CdpActions release() {
+        if ("none".equals(pressedButton)) {
+            throw new IllegalStateException("No mouse button is pressed");
+        }
+        current().inputDispatchMouseEvent(MouseEvent.RELEASED, x, y, modifiers, pressedButton, clickCount);
+        lastReleasedButton = pressedButton;
+        pressedButton = "none";
+        return this;
+    }
+
+    public CdpActions click() {
+        return press().release();
+    }
+
+    public CdpActions doubleClick() {
+        return click().click();
+    }
+
+    /**
+     * Presses at the current position, moves to {@code (x, y)} in {@code steps} moves
+     * and releases there.
+     */
+    public CdpActions dragTo(int x, int y, int steps) {
+        return press().moveTo(x, y, steps).release();
+    }
+
+    /**
+     * Presses {@code key}; modifier keys apply to every later event until released.
+     */
+    public CdpActions keyDown(CdpKey key) {
+        modifiers |= key.getModifier();
+        current().inputDispatchKeyEvent("keyDown", modifiers, key.getText(), "", key.getCode(), key.getKey(),
+                key.getWindowsVirtualKeyCode(), key.getNativeVirtualKeyCode());
+        return this;
+    }
+
+    public CdpActions keyUp(CdpKey key) {
+        modifiers &= ~key.getModifier();
+        current().inputDispatchKeyEvent("keyUp", modifiers, key.getText(), "", key.getCode(), key.getKey(),
+                key.getWindowsVirtualKeyCode(), key.getNativeVirtualKeyCode());
+        return this;
+    }
+
+    /**
+     * Waits {@code duration} before sending the following events, e.g. for a
+     * long press or a hover menu.
+     */
+    public CdpActions pause(Duration duration) {
+        pauses.set(pauses.size() - 1, pauses.getLast().plus(duration));
+        startSegment();
+        return this;
+    }
+
+    /**
+     * Returns the number of input commands queued so far.
+     */
+    public int size() {
+        int size = 0;
+        for (CdpPipeline segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Sends the gesture and waits until the browser has acknowledged every event.
+     * The builder is empty afterwards and keeps its pointer position and modifiers.
+     *
+     * @return One result per input command, in order.
+     * @throws RuntimeException if an event fails or the gesture times out.
+     */
+    public List<JsonNode> perform() {
+        Duration timeout = cdpUtility.timeoutFor("Input.dispatchMouseEvent");
+        Duration keyTimeout = cdpUtility.timeoutFor("Input.dispatchKeyEvent");
+        if (keyTimeout.compareTo(timeout) > 0) {
+            timeout = keyTimeout;
+        }
+        Duration paused = Duration.ZERO;
+        List<CompletableFuture<JsonNode>> futures = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            futures.addAll(segments.get(i).executeAsync(timeout));
+            if (!pauses.get(i).isZero()) {
+                Utilities.sleep(pauses.get(i));
+                paused = paused.plus(pauses.get(i));
+            }
+        }
+        segments.clear();
+        pauses.clear();
+        startSegment();
+        return CdpPipeline.await(futures, timeout.plus(paused));
+    }
+}
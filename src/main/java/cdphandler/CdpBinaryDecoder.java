@@ -0,0 +1,154 @@
+package cdphandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Decodes the base64 payload of screenshot, screencast, response-body and stream
+ * frames straight from the raw frame text into bytes.
+ * <p>
+ * The generic path builds a {@link JsonNode} tree, copies the payload out with
+ * {@code asText()} and only then base64-decodes it. Here the payload field is
+ * decoded by the streaming parser into a reusable buffer and every other field is
+ * kept as JSON, so a multi-megabyte screenshot is neither held as a {@code String}
+ * nor parsed into a tree.
+ * <p>
+ * Not thread-safe: one instance is owned by a connection and only used from its
+ * listener thread.
+ */
+final class CdpBinaryDecoder {
+    /** Methods carrying a base64 payload → name of the payload field. */
+    static final Map<String, String> BINARY_FIELDS = Map.of(
+            "Page.captureScreenshot", "data",
+            "Page.screencastFrame", "data",
+            "Network.getResponseBody", "body",
+            "IO.read", "data");
+
+    /** Methods whose payload is only base64 when {@code base64Encoded} is true. */
+    private static final Set<String> CONDITIONALLY_ENCODED = Set.of("Network.getResponseBody", "IO.read");
+
+    /** Buffers that grew beyond this are dropped after use instead of being kept for reuse. */
+    private static final int MAX_RETAINED_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * Result of decoding one frame.
+     *
+     * @param fields The container object ({@code result} or {@code params}) without the payload field.
+     * @param data   The decoded payload, or an empty array if the frame had none.
+     * @param error  The CDP {@code error} object, or {@code null}.
+     */
+    record Decoded(ObjectNode fields, byte[] data, JsonNode error) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private PooledBuffer buffer = new PooledBuffer();
+
+    CdpBinaryDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    static boolean isBinaryMethod(String method) {
+        return method != null && BINARY_FIELDS.containsKey(method);
+    }
+
+    /**
+     * Decodes a frame for {@code method}.
+     *
+     * @param message   The raw frame text.
+     * @param method    The command or event the frame belongs to.
+     * @param container {@code "result"} for command responses, {@code "params"} for events.
+     */
+    Decoded decode(String message, String method, String container) throws IOException {
+        String dataField = BINARY_FIELDS.get(method);
+        boolean base64 = !CONDITIONALLY_ENCODED.contains(method) || isBase64Encoded(message, container);
+        ObjectNode fields = objectMapper.createObjectNode();
+        byte[] data = new byte[0];
+        JsonNode error = null;
+        try (JsonParser parser = objectMapper.getFactory().createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("CDP frame is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("error".equals(field)) {
+                    error = objectMapper.readTree(parser);
+                } else if (container.equals(field) && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.currentName();
+                        parser.nextToken();
+                        if (name.equals(dataField)) {
+                            data = base64 ? readBase64(parser) : parser.getText().getBytes(StandardCharsets.UTF_8);
+                        } else {
+                            fields.set(name, objectMapper.readTree(parser));
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new Decoded(fields, data, error);
+    }
+
+    private byte[] readBase64(JsonParser parser) throws IOException {
+        PooledBuffer out = buffer;
+        out.reset();
+        parser.readBinaryValue(Base64Variants.MIME_NO_LINEFEEDS, out);
+        byte[] bytes = out.toByteArray();
+        if (out.capacity() > MAX_RETAINED_BYTES) {
+            buffer = new PooledBuffer();
+        }
+        return bytes;
+    }
+
+    /**
+     * Looks ahead for the {@code base64Encoded} flag, which Chrome sends after the
+     * payload. The payload string itself is skipped without being materialised.
+     */
+    private boolean isBase64Encoded(String message, String container) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!container.equals(field) || value != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    JsonToken flag = parser.nextToken();
+                    if ("base64Encoded".equals(name)) {
+                        return flag == JsonToken.VALUE_TRUE;
+                    }
+                    parser.skipChildren();
+                }
+            }
+        }
+        return false;
+    }
+
+    /** {@link ByteArrayOutputStream} that is reset and reused across frames. */
+    private static final class PooledBuffer extends ByteArrayOutputStream {
+        PooledBuffer() {
+            super(64 * 1024);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package cdphandler;
+
+import java.util.List;
+
+/**
+ * Built-in sets of requests a {@link CdpResourceBlocker} fails before they reach
+ * the network. Profiles can be combined with each other and with custom URL globs;
+ * a request is blocked if any of them matches. The names can also be given as
+ * {@code -Dcdp.blockResources=block-media,block-third-party}.
+ */
+public enum CdpBlockProfile {
+    /**
+     * Images, fonts, audio and video.
+     */
+    BLOCK_MEDIA(List.of("Image", "Font", "Media")),
+    /**
+     * Everything, including frames, served by a different site than the page's
+     * document (analytics, ads, CDN-hosted widgets).
+     */
+    BLOCK_THIRD_PARTY(List.of()),
+    /**
+     * Everything except documents, XHR/fetch requests, event streams and web sockets;
+     * scripts and stylesheets are blocked too, so only use it with pages that work
+     * without them.
+     */
+    BLOCK_ALL_BUT_DOCUMENT_AND_XHR(List.of("Stylesheet", "Image", "Media", "Font", "Script", "TextTrack",
+            "Manifest", "Ping", "Prefetch", "Other"));
+
+    private final List<String> resourceTypes;
+
+    CdpBlockProfile(List<String> resourceTypes) {
+        this.resourceTypes = resourceTypes;
+    }
+
+    /**
+     * Returns the {@code Network.ResourceType} names this profile blocks, empty for
+     * {@link #BLOCK_THIRD_PARTY}, which blocks by origin instead.
+     */
+    public List<String> resourceTypes() {
+        return resourceTypes;
+    }
+
+    /**
+     * Parses a profile name in either form, e.g. {@code "block-media"} or
+     * {@code "BLOCK_MEDIA"}.
+     *
+     * @throws IllegalArgumentException if there is no such profile.
+     */
+    public static CdpBlockProfile parse(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+}
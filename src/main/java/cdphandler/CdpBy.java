@@ -20,6 +20,15 @@ public record CdpBy(String name, CdpLocatorType type, String locator) {
         return new CdpBy(name, CdpLocatorType.PIERCING_CSS, cssSelector);
     }
 
+    /**
+     * XPath evaluated in the document, every open shadow root and every same-origin
+     * frame. Shadow roots are searched with each of their top-level elements as the
+     * context node, so use relative paths such as {@code descendant-or-self::button}.
+     */
+    public static CdpBy ByPiercingXPath(String name, String xpath) {
+        return new CdpBy(name, CdpLocatorType.PIERCING_XPATH, xpath);
+    }
+
     @Override
     public @NonNull String toString() {
         return String.format("{'name': '%s', 'type': '%s', 'locator': '%s'}", name, type, locator);
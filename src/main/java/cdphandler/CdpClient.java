@@ -1,20 +1,29 @@
 package cdphandler;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.WebSocket;
 import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -23,38 +32,95 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * Example usage:
  *   ChromeDevToolsClient client = new ChromeDevToolsClient("ws://127.0.0.1:9222/devtools/page/...");
  *   JsonNode result = client.sendCommand("Page.navigate", Map.of("url", "https://example.com"), Duration.ofSeconds(10));
- *   client.addEventListener(event -> System.out.println("Event: " + event.toString()));
+ *   client.on("Page.loadEventFired", event -> System.out.println("Event: " + event.toString()));
  *   client.close();
  *
- * <p><b>Thread-safety:</b> All {@code send*} methods are serialized via an
- * internal lock so that the {@code java.net.http.WebSocket} contract
- * ("a send operation must complete before another can begin") is honoured even
- * when commands are issued from multiple threads concurrently.</p>
+ * <p><b>Thread-safety:</b> All {@code send*} methods enqueue their frame on a
+ * lock-free {@link CdpSendQueue} drained by a single writer, so the
+ * {@code java.net.http.WebSocket} contract ("a send operation must complete
+ * before another can begin") is honoured without any caller blocking on another
+ * caller's send. See {@link #getSendStats()} for queue depth and latency.</p>
+ *
+ * <p><b>Flattened sessions:</b> A client connected to the browser-level endpoint
+ * can {@linkplain #attachToTarget(String) attach} to page targets with
+ * {@code Target.attachToTarget(flatten=true)}. Each attached target is exposed as
+ * a session-bound {@code CdpClient} that shares this client's WebSocket, send queue
+ * and listener thread; commands carry the {@code sessionId} and incoming frames are
+ * routed back to the owning session by their {@code sessionId}.</p>
+ *
+ * <p><b>Event routing:</b> Incoming frames are first scanned with a streaming
+ * parser to pull out {@code id}, {@code method} and {@code sessionId}; the full
+ * JSON tree is only built when a pending command or a subscriber needs it.
+ * Prefer {@link #on(String, Consumer)} with a method or domain name over
+ * {@link #addEventListener(Consumer)}, which forces every event to be parsed.</p>
+ *
+ * <p><b>Dispatch:</b> The inbound thread only parses frames, completes command
+ * responses and hands events to a {@link CdpEventDispatcher}, which gives each
+ * listener its own bounded queue drained on a shared pool. Slow listeners no
+ * longer delay responses, and may safely call the blocking {@code sendCommand}.
+ * Queue overflow follows the listener's {@link CdpEventPolicy}; see
+ * {@link #getDispatchStats()} for depth, drops and latency.</p>
  */
 public final class CdpClient implements WebSocket.Listener, AutoCloseable {
     private final WebSocket webSocket;
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final AtomicInteger idCounter = new AtomicInteger(1);
+    private final AtomicInteger idCounter;
     private final ConcurrentHashMap<Integer, CompletableFuture<JsonNode>> pendingRequests = new ConcurrentHashMap<>();
-    private final CopyOnWriteArrayList<Consumer<JsonNode>> eventListeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<Subscription<Consumer<JsonNode>>> eventListeners = new CopyOnWriteArrayList<>();
+    /** CDP method ("Network.responseReceived") or domain ("Network") → listeners. */
+    private final ConcurrentHashMap<String, CopyOnWriteArrayList<Subscription<Consumer<JsonNode>>>> methodListeners = new ConcurrentHashMap<>();
+    /** JFR round-trip events of pending commands; only populated while a recording is running. */
+    private final ConcurrentHashMap<Integer, CdpJfrEvents.Command> commandEvents = new ConcurrentHashMap<>();
+    /** Pending commands whose base64 payload is decoded straight to bytes, keyed by id. */
+    private final ConcurrentHashMap<Integer, PendingBinary> pendingBinaryRequests = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CopyOnWriteArrayList<Subscription<BiConsumer<JsonNode, byte[]>>>> binaryListeners = new ConcurrentHashMap<>();
     private final CompletableFuture<Void> connectFuture = new CompletableFuture<>();
     private final StringBuilder textMessageBuffer = new StringBuilder();
     private final ExecutorService listenerExecutor;
 
     /**
-     * Lock that serializes all WebSocket send operations.
+     * The connection-owning client for session-bound clients, {@code null} for a
+     * client that owns its own WebSocket.
+     */
+    private final CdpClient root;
+
+    /**
+     * CDP {@code sessionId} this client is bound to, {@code null} for a client that
+     * talks to the target at the other end of its WebSocket directly.
+     */
+    private final String sessionId;
+
+    /** sessionId → session-bound client (only populated on the root client). */
+    private final ConcurrentHashMap<String, CdpClient> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Pipeline that orders all WebSocket text sends.
      * <p>
      * The {@code java.net.http.WebSocket} API throws
      * {@link IllegalStateException} if {@code sendText} is called while a
      * previous send is still in-flight.  Multiple threads (main test thread,
      * ForkJoinPool workers from ApiInterceptor, CdpTraceCollector's
-     * bodyFetchExecutor, and the listenerExecutor for async acks) may issue
-     * sends concurrently, so we must serialize them.
-     * <p>
-     * The lock covers <em>only</em> the send+join; it is released before
-     * waiting for the CDP response so other commands can be sent in parallel.
+     * bodyFetchExecutor, and event listeners sending acks) may issue
+     * sends concurrently, so their frames are queued and written one at a time
+     * by whichever thread currently holds the writer role.
      */
-    private final ReentrantLock sendLock = new ReentrantLock();
+    private final CdpSendQueue sendQueue;
+
+    /** Shared with sessions; only used on the listener thread. */
+    private final CdpBinaryDecoder binaryDecoder;
+
+    /** Per-listener event queues; shared with sessions. */
+    private final CdpEventDispatcher eventDispatcher;
+
+    /** Ring-file record of every frame on the connection, or {@code null} if disabled; shared with sessions. */
+    private final CdpFlightRecorder flightRecorder;
+
+    /** Slack on top of a command's timeout before a blocked caller stops waiting for the wheel. */
+    private static final long EXPIRY_GRACE_MILLIS = 1000;
+
+    /** Connection-wide counters, only updated on the root client. */
+    private final LongAdder timedOutRequests = new LongAdder();
+    private final LongAdder discardedResponses = new LongAdder();
 
     /**
      * Construct and connect synchronously to the supplied websocket debugger address.
@@ -66,6 +132,12 @@ public final class CdpClient implements WebSocket.Listener, AutoCloseable {
         Objects.requireNonNull(websocketDebuggerAddress, "websocketDebuggerAddress required");
         URI websocketUri = URI.create(websocketDebuggerAddress);
         HttpClient httpClient = HttpClient.newHttpClient();
+        this.root = null;
+        this.sessionId = null;
+        this.idCounter = new AtomicInteger(1);
+        this.binaryDecoder = new CdpBinaryDecoder(objectMapper);
+        this.eventDispatcher = new CdpEventDispatcher();
+        this.flightRecorder = CdpFlightRecorder.openDefault();
         this.listenerExecutor = Executors.newSingleThreadExecutor(r -> {
             Thread t = new Thread(r, "cdp-ws-listener");
             t.setDaemon(true);
@@ -80,11 +152,65 @@ public final class CdpClient implements WebSocket.Listener, AutoCloseable {
                     .join();
             // Wait for onOpen -> connectFuture completion (with timeout).
             connectFuture.get(10, TimeUnit.SECONDS);
+            this.sendQueue = new CdpSendQueue(webSocket);
         } catch (Exception e) {
             throw new RuntimeException("Failed to connect to CDP websocket: " + websocketDebuggerAddress, e);
         }
     }
 
+    /**
+     * Creates a session-bound client that multiplexes over the connection owned by
+     * {@code root}.
+     */
+    private CdpClient(CdpClient root, String sessionId) {
+        this.root = root;
+        this.sessionId = sessionId;
+        this.webSocket = root.webSocket;
+        this.idCounter = root.idCounter;
+        this.sendQueue = root.sendQueue;
+        this.listenerExecutor = root.listenerExecutor;
+        this.binaryDecoder = root.binaryDecoder;
+        this.eventDispatcher = root.eventDispatcher;
+        this.flightRecorder = root.flightRecorder;
+        this.connectFuture.complete(null);
+    }
+
+    /**
+     * Attaches to the given target using {@code Target.attachToTarget} with
+     * {@code flatten=true} and returns a client bound to the resulting session.
+     * <p>
+     * The returned client shares this client's WebSocket: no extra handshake,
+     * {@code /json} lookup or listener thread is needed per target. Closing it
+     * detaches from the target but leaves the shared connection open.
+     *
+     * @param targetId The target to attach to (e.g. from {@code Target.createTarget}).
+     * @return A session-bound {@code CdpClient}.
+     */
+    public CdpClient attachToTarget(String targetId) {
+        Objects.requireNonNull(targetId, "targetId required");
+        if (root != null) {
+            return root.attachToTarget(targetId);
+        }
+        try {
+            JsonNode result = sendCommand("Target.attachToTarget",
+                    Map.of("targetId", targetId, "flatten", true), Duration.ofSeconds(10));
+            String newSessionId = result.get("sessionId").asText();
+            CdpClient session = new CdpClient(this, newSessionId);
+            sessions.put(newSessionId, session);
+            return session;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to attach to target: " + targetId, e);
+        }
+    }
+
+    /**
+     * Returns the CDP {@code sessionId} this client is bound to, or {@code null}
+     * if it talks to the target at the other end of its WebSocket directly.
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
     /**
      * Send a CDP command with a parameter map and wait for the result.
      *
@@ -99,44 +225,170 @@ public final class CdpClient implements WebSocket.Listener, AutoCloseable {
     public JsonNode sendCommand(String method, Map<String, Object> params, Duration timeout)
             throws TimeoutException, ExecutionException, InterruptedException {
         int id = idCounter.getAndIncrement();
-        ObjectNodeBuilder wrapper = new ObjectNodeBuilder(objectMapper);
-        wrapper.put("id", id);
-        wrapper.put("method", method);
-        if (params != null) wrapper.putObject("params", params);
+        return await(id, submit(id, method, paramsOf(params), timeout), timeout);
+    }
+
+    /**
+     * Send a typed command from {@code cdphandler.protocol} and wait for its parsed
+     * result.
+     *
+     * @param command The command, e.g. {@code new Page.Navigate(url)}
+     * @param timeout Timeout to wait for response
+     * @return The parsed result, {@code null} for commands without one
+     * @throws TimeoutException if response not received in time
+     * @throws ExecutionException if underlying error occurred
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public <R> R sendCommand(CdpCommand<R> command, Duration timeout)
+            throws TimeoutException, ExecutionException, InterruptedException {
+        int id = idCounter.getAndIncrement();
+        return command.parseResult(await(id, submit(id, command.method(), paramsOf(command), timeout), timeout));
+    }
+
+    private JsonNode await(int id, CompletableFuture<JsonNode> responseFuture, Duration timeout)
+            throws TimeoutException, ExecutionException, InterruptedException {
+        try {
+            // The timeout wheel fails the future on time; the wait bound is only a backstop
+            JsonNode message = responseFuture.get(timeout.toMillis() + EXPIRY_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+            // CDP responses will contain either "result" or "error"
+            if (message.has("error")) {
+                throw new ExecutionException(new RuntimeException("CDP error: " + message.get("error").toString()));
+            }
+            return message.get("result") != null ? message.get("result") : message;
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof TimeoutException te) {
+                throw te;
+            }
+            throw ee;
+        } catch (TimeoutException te) {
+            pendingRequests.remove(id);
+            throw te;
+        }
+    }
 
+    /**
+     * Send a CDP command and return a future for its result instead of blocking.
+     * <p>
+     * The command is queued immediately, so several calls made back-to-back are
+     * in flight together and their round trips overlap. The future completes with
+     * the "result" object, or exceptionally with a {@link TimeoutException} or
+     * a {@code RuntimeException} describing the CDP error.
+     *
+     * @param method  CDP method name (e.g. "Input.dispatchMouseEvent")
+     * @param params  Parameters map (nullable)
+     * @param timeout Timeout after which the future fails and the request is forgotten
+     * @return Future completed with the result JsonNode
+     */
+    public CompletableFuture<JsonNode> sendCommandFuture(String method, Map<String, Object> params, Duration timeout) {
+        int id = idCounter.getAndIncrement();
+        return submit(id, method, paramsOf(params), timeout).thenApply(CdpClient::unwrapResult);
+    }
+
+    /**
+     * Send a typed command and return a future for its raw "result" object, for
+     * callers that keep working with {@code JsonNode}. See
+     * {@link #sendCommandFuture(String, Map, Duration)}.
+     */
+    public CompletableFuture<JsonNode> sendCommandFuture(CdpCommand<?> command, Duration timeout) {
+        int id = idCounter.getAndIncrement();
+        return submit(id, command.method(), paramsOf(command), timeout).thenApply(CdpClient::unwrapResult);
+    }
+
+    /**
+     * Send a typed command and return a future for its parsed result. The params
+     * are streamed by the command itself, so no map or tree is built.
+     *
+     * @param command The command, e.g. {@code new Input.InsertText("a")}
+     * @param timeout Timeout after which the future fails and the request is forgotten
+     * @return Future completed with the parsed result, {@code null} for commands without one
+     */
+    public <R> CompletableFuture<R> send(CdpCommand<R> command, Duration timeout) {
+        return sendCommandFuture(command, timeout).thenApply(command::parseResult);
+    }
+
+    private static JsonNode unwrapResult(JsonNode message) {
+        if (message.has("error")) {
+            throw new CompletionException(new RuntimeException("CDP error: " + message.get("error").toString()));
+        }
+        return message.get("result") != null ? message.get("result") : message;
+    }
+
+    /**
+     * Registers a pending response for {@code id} and queues the command frame.
+     * A serialization or send failure fails the returned future, so callers never
+     * block on the socket themselves; the timeout wheel fails it with a
+     * {@link TimeoutException} once {@code timeout} has elapsed.
+     */
+    private CompletableFuture<JsonNode> submit(int id, String method, ParamsWriter params, Duration timeout) {
         String payload;
         try {
-            payload = wrapper.buildString();
+            payload = buildPayload(id, method, params);
         } catch (JsonProcessingException e) {
-            throw new ExecutionException("Failed to serialize command payload", e);
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to serialize command payload", e));
         }
 
         CompletableFuture<JsonNode> responseFuture = new CompletableFuture<>();
         pendingRequests.put(id, responseFuture);
+        enqueue(id, method, payload, timeout, pendingRequests, responseFuture);
+        return responseFuture;
+    }
 
-        // Serialize the send — the WebSocket API forbids overlapping sendText calls.
-        sendLock.lock();
-        try {
-            webSocket.sendText(payload, true).join();
-        } catch (CompletionException ce) {
-            pendingRequests.remove(id);
-            throw new ExecutionException("Failed to send CDP command", ce);
-        } finally {
-            sendLock.unlock();
+    private void enqueue(int id, String method, String payload, Duration timeout, Map<Integer, ?> pending,
+            CompletableFuture<?> responseFuture) {
+        CdpJfrEvents.Command event = new CdpJfrEvents.Command();
+        if (event.isEnabled()) {
+            event.begin();
+            event.method = method;
+            event.id = id;
+            event.requestBytes = payload.length();
+            commandEvents.put(id, event);
         }
+        CdpTimeoutWheel.Timeout expiry = CdpTimeoutWheel.shared().schedule(timeout, () -> {
+            if (pending.remove(id) != null) {
+                connection().timedOutRequests.increment();
+                commitCommandEvent(id, "timeout", 0);
+                responseFuture.completeExceptionally(new TimeoutException(method + " timed out after " + timeout));
+            }
+        });
+        responseFuture.whenComplete((result, error) -> expiry.cancel());
+        recordFrame(CdpFlightRecorder.Direction.SENT, id, method, payload);
+        sendQueue.send(payload).whenComplete((ignored, error) -> {
+            if (error != null && pending.remove(id) != null) {
+                responseFuture.completeExceptionally(new RuntimeException("Failed to send CDP command", error));
+            }
+        });
+    }
 
-        // Wait for response (lock is released so other threads can send)
+    /**
+     * Send a command whose result carries a base64 payload and receive the decoded
+     * bytes instead of JSON. The payload is decoded directly from the frame, so no
+     * tree or intermediate {@code String} of the base64 text is built.
+     * <p>
+     * Supported methods are {@code Page.captureScreenshot} ({@code data}),
+     * {@code Network.getResponseBody} ({@code body}) and {@code IO.read}
+     * ({@code data}); text bodies that are not base64-encoded are returned as UTF-8.
+     *
+     * @param method  CDP method name
+     * @param params  Parameters map (nullable)
+     * @param timeout Timeout after which the future fails and the request is forgotten
+     * @return Future completed with the decoded payload
+     * @throws IllegalArgumentException if {@code method} has no known binary field
+     */
+    public CompletableFuture<byte[]> sendCommandBytes(String method, Map<String, Object> params, Duration timeout) {
+        if (!CdpBinaryDecoder.isBinaryMethod(method)) {
+            throw new IllegalArgumentException("No binary payload known for " + method);
+        }
+        int id = idCounter.getAndIncrement();
+        String payload;
         try {
-            JsonNode message = responseFuture.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
-            // CDP responses will contain either "result" or "error"
-            if (message.has("error")) {
-                throw new ExecutionException(new RuntimeException("CDP error: " + message.get("error").toString()));
-            }
-            return message.get("result") != null ? message.get("result") : message;
-        } catch (TimeoutException te) {
-            pendingRequests.remove(id);
-            throw te;
+            payload = buildPayload(id, method, paramsOf(params));
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to serialize command payload", e));
         }
+        CompletableFuture<byte[]> responseFuture = new CompletableFuture<>();
+        pendingBinaryRequests.put(id, new PendingBinary(method, responseFuture));
+        enqueue(id, method, payload, timeout, pendingBinaryRequests, responseFuture);
+        return responseFuture;
     }
 
     /**
@@ -151,72 +403,233 @@ public final class CdpClient implements WebSocket.Listener, AutoCloseable {
      * Send a CDP command without waiting for the response (fire-and-forget).
      * <p>
      * Use this for commands that are called from within an event listener
-     * callback, where blocking for a response would deadlock the single-threaded
-     * listener executor.
+     * callback and whose result is not needed; blocking for a response there
+     * holds up the listener's event queue.
      *
      * @param method CDP method name (e.g. "Page.screencastFrameAck")
      * @param params Parameters map (nullable)
      */
     public void sendCommandAsync(String method, Map<String, Object> params) {
         int id = idCounter.getAndIncrement();
-        ObjectNodeBuilder wrapper = new ObjectNodeBuilder(objectMapper);
-        wrapper.put("id", id);
-        wrapper.put("method", method);
-        if (params != null) wrapper.putObject("params", params);
-
         String payload;
         try {
-            payload = wrapper.buildString();
+            payload = buildPayload(id, method, paramsOf(params));
         } catch (Exception e) {
             return; // silently skip on serialization failure
         }
 
-        // Serialize the send — same lock as sendCommand.
-        sendLock.lock();
-        try {
-            webSocket.sendText(payload, true).join();
-        } catch (Exception e) {
-            // fire-and-forget: swallow send failures
-        } finally {
-            sendLock.unlock();
+        // fire-and-forget: send failures are swallowed by the queue's future
+        recordFrame(CdpFlightRecorder.Direction.SENT, id, method, payload);
+        sendQueue.send(payload);
+    }
+
+    /**
+     * Returns a snapshot of the send pipeline: frames sent, frames still queued,
+     * and the average and worst enqueue-to-sent latency. Session-bound clients
+     * report the stats of the shared connection.
+     */
+    public CdpSendStats getSendStats() {
+        return sendQueue.stats();
+    }
+
+    /**
+     * Returns a snapshot of command bookkeeping for the whole connection: commands
+     * awaiting a response, commands expired by their timeout, and responses that
+     * arrived with nobody waiting (late replies to expired commands, or replies to
+     * {@link #sendCommandAsync fire-and-forget} commands).
+     */
+    public CdpRequestStats getRequestStats() {
+        CdpClient connection = connection();
+        int pending = connection.pendingCount();
+        for (CdpClient session : connection.sessions.values()) {
+            pending += session.pendingCount();
         }
+        return new CdpRequestStats(pending, connection.timedOutRequests.sum(), connection.discardedResponses.sum());
+    }
+
+    private int pendingCount() {
+        return pendingRequests.size() + pendingBinaryRequests.size();
+    }
+
+    /**
+     * Returns the flight recorder holding the most recent frames of this
+     * connection, or {@code null} if it is disabled ({@code -Dcdp.flightRecorder=false}).
+     * Call {@link CdpFlightRecorder#dump(java.nio.file.Path)} on it when a test fails.
+     */
+    public CdpFlightRecorder getFlightRecorder() {
+        return flightRecorder;
+    }
+
+    private void recordFrame(CdpFlightRecorder.Direction direction, int id, String method, String payload) {
+        if (flightRecorder != null) {
+            flightRecorder.record(direction, id, method, payload);
+        }
+    }
+
+    /** The client owning the WebSocket: {@code root} for sessions, otherwise this. */
+    private CdpClient connection() {
+        return root != null ? root : this;
+    }
+
+    /**
+     * Returns a snapshot of event dispatch: events delivered and dropped, events
+     * still queued across all listeners, and the average and worst arrival-to-listener
+     * latency. Session-bound clients report the stats of the shared connection.
+     */
+    public CdpDispatchStats getDispatchStats() {
+        return eventDispatcher.stats();
     }
 
     /**
      * Register an event listener. CDP events (messages without "id") will be posted to listeners.
+     * <p>
+     * A catch-all listener forces every incoming event to be parsed; use
+     * {@link #on(String, Consumer)} when only specific methods are of interest.
      *
      * @param listener consumer receiving event JsonNode
      */
     public void addEventListener(Consumer<JsonNode> listener) {
-        eventListeners.add(listener);
+        eventListeners.add(subscribe(listener, CdpEventDispatcher.DEFAULT_POLICY, CdpEventDispatcher.DEFAULT_CAPACITY));
     }
 
     /**
      * Remove a previously registered event listener.
      */
     public void removeEventListener(Consumer<JsonNode> listener) {
-        eventListeners.remove(listener);
+        unsubscribe(eventListeners, listener);
+    }
+
+    /**
+     * Subscribe to a single CDP event method (e.g. {@code "Network.responseReceived"})
+     * or to a whole domain (e.g. {@code "Network"}). Events nobody subscribed to are
+     * discarded without being parsed.
+     * <p>
+     * The listener gets a queue of {@value CdpEventDispatcher#DEFAULT_CAPACITY} events
+     * with the {@link CdpEventPolicy#DROP_OLDEST} policy, so a slow listener loses its
+     * oldest events instead of stalling command responses.
+     *
+     * @param methodOrDomain Event method name, or a domain name without a dot.
+     * @param listener       consumer receiving the event JsonNode
+     */
+    public void on(String methodOrDomain, Consumer<JsonNode> listener) {
+        on(methodOrDomain, listener, CdpEventDispatcher.DEFAULT_POLICY, CdpEventDispatcher.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Subscribe with an explicit queue policy and capacity. A listener registered
+     * for several methods keeps one queue, created by its first registration.
+     *
+     * @param methodOrDomain Event method name, or a domain name without a dot.
+     * @param listener       consumer receiving the event JsonNode
+     * @param policy         What to do when the listener's queue is full.
+     * @param capacity       Maximum number of queued events for this listener.
+     */
+    public void on(String methodOrDomain, Consumer<JsonNode> listener, CdpEventPolicy policy, int capacity) {
+        methodListeners.computeIfAbsent(methodOrDomain, k -> new CopyOnWriteArrayList<>())
+                .add(subscribe(listener, policy, capacity));
+    }
+
+    /**
+     * Remove a listener previously registered with {@link #on(String, Consumer)}.
+     */
+    public void off(String methodOrDomain, Consumer<JsonNode> listener) {
+        CopyOnWriteArrayList<Subscription<Consumer<JsonNode>>> listeners = methodListeners.get(methodOrDomain);
+        if (listeners != null) {
+            unsubscribe(listeners, listener);
+        }
+    }
+
+    /**
+     * Subscribe to an event that carries a base64 payload (e.g.
+     * {@code "Page.screencastFrame"}) and receive it already decoded. The listener
+     * gets the event {@code params} without the payload field, plus the bytes.
+     *
+     * @param method   Event method name
+     * @param listener consumer receiving the remaining params and the decoded payload
+     * @throws IllegalArgumentException if {@code method} has no known binary field
+     */
+    public void onBytes(String method, BiConsumer<JsonNode, byte[]> listener) {
+        if (!CdpBinaryDecoder.isBinaryMethod(method)) {
+            throw new IllegalArgumentException("No binary payload known for " + method);
+        }
+        binaryListeners.computeIfAbsent(method, k -> new CopyOnWriteArrayList<>())
+                .add(subscribe(listener, CdpEventDispatcher.DEFAULT_POLICY, CdpEventDispatcher.DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Remove a listener previously registered with {@link #onBytes(String, BiConsumer)}.
+     */
+    public void offBytes(String method, BiConsumer<JsonNode, byte[]> listener) {
+        CopyOnWriteArrayList<Subscription<BiConsumer<JsonNode, byte[]>>> listeners = binaryListeners.get(method);
+        if (listeners != null) {
+            unsubscribe(listeners, listener);
+        }
+    }
+
+    private <L> Subscription<L> subscribe(L listener, CdpEventPolicy policy, int capacity) {
+        return new Subscription<>(listener, eventDispatcher.acquire(listener, policy, capacity));
+    }
+
+    /**
+     * Releases every subscription of this client from the dispatcher, which a
+     * session shares with its root connection.
+     */
+    private void releaseSubscriptions() {
+        List<Subscription<?>> subscriptions = new ArrayList<>(eventListeners);
+        eventListeners.clear();
+        methodListeners.values().forEach(subscriptions::addAll);
+        methodListeners.clear();
+        binaryListeners.values().forEach(subscriptions::addAll);
+        binaryListeners.clear();
+        for (Subscription<?> subscription : subscriptions) {
+            eventDispatcher.release(subscription.listener());
+        }
+    }
+
+    private <L> void unsubscribe(List<Subscription<L>> subscriptions, L listener) {
+        for (Subscription<L> subscription : subscriptions) {
+            if (subscription.listener() == listener && subscriptions.remove(subscription)) {
+                eventDispatcher.release(listener);
+                return;
+            }
+        }
     }
 
     /**
      * Close the websocket and release resources.
+     * <p>
+     * For a session-bound client this detaches from the target and leaves the
+     * shared connection open.
      */
     @Override
     public void close() {
-        try {
-            if (webSocket != null) {
-                sendLock.lock();
+        if (root != null) {
+            if (root.sessions.remove(sessionId, this)) {
                 try {
-                    webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "client closing").join();
-                } finally {
-                    sendLock.unlock();
+                    root.sendCommand("Target.detachFromTarget", Map.of("sessionId", sessionId),
+                            Duration.ofSeconds(5));
+                } catch (Exception ignored) {
                 }
             }
+            releaseSubscriptions();
+            failPending(new RuntimeException("Session closed"));
+            return;
+        }
+        try {
+            if (webSocket != null) {
+                webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "client closing").join();
+            }
         } catch (Exception ignored) {
         } finally {
             listenerExecutor.shutdownNow();
-            pendingRequests.forEach((id, f) -> f.completeExceptionally(new RuntimeException("Client closed")));
-            pendingRequests.clear();
+            eventDispatcher.shutdown();
+            if (flightRecorder != null) {
+                flightRecorder.close();
+            }
+            RuntimeException closed = new RuntimeException("Client closed");
+            sessions.values().forEach(session -> session.failPending(closed));
+            sessions.clear();
+            failPending(closed);
         }
     }
 
@@ -231,11 +644,19 @@ public final class CdpClient implements WebSocket.Listener, AutoCloseable {
 
     @Override
     public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
-        textMessageBuffer.append(data);
-        if (last) {
-            final String payload = textMessageBuffer.toString();
-            textMessageBuffer.setLength(0); // clear buffer for next message
-            listenerExecutor.submit(() -> handleIncomingMessage(payload));
+        if (last && textMessageBuffer.length() == 0) {
+            // Single-fragment message: skip the copy through the buffer
+            final String payload = data.toString();
+            final long receivedAt = System.nanoTime();
+            listenerExecutor.submit(() -> handleIncomingMessage(payload, receivedAt));
+        } else {
+            textMessageBuffer.append(data);
+            if (last) {
+                final String payload = textMessageBuffer.toString();
+                textMessageBuffer.setLength(0); // clear buffer for next message
+                final long receivedAt = System.nanoTime();
+                listenerExecutor.submit(() -> handleIncomingMessage(payload, receivedAt));
+            }
         }
         // Request the next message
         webSocket.request(1);
@@ -264,67 +685,224 @@ public final class CdpClient implements WebSocket.Listener, AutoCloseable {
     @Override
     public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
         // onClose called when connection closed
-        pendingRequests.forEach((id, cf) -> cf.completeExceptionally(new RuntimeException("WebSocket closed: " + reason)));
-        pendingRequests.clear();
+        RuntimeException closed = new RuntimeException("WebSocket closed: " + reason);
+        sessions.values().forEach(session -> session.failPending(closed));
+        failPending(closed);
         connectFuture.completeExceptionally(new RuntimeException("WebSocket closed: " + reason));
         return WebSocket.Listener.super.onClose(webSocket, statusCode, reason);
     }
 
     @Override
     public void onError(WebSocket webSocket, Throwable error) {
-        pendingRequests.forEach((id, cf) -> cf.completeExceptionally(error));
-        pendingRequests.clear();
+        sessions.values().forEach(session -> session.failPending(error));
+        failPending(error);
         connectFuture.completeExceptionally(error);
     }
 
     // Internal message handling
-    private void handleIncomingMessage(String message) {
+
+    /** Top-level routing fields of an incoming frame, extracted without building a tree. */
+    private record FrameHeader(int id, String method, String sessionId) {
+        boolean hasId() {
+            return id >= 0;
+        }
+    }
+
+    /** A registered listener and the dispatcher queue its events go through. */
+    private record Subscription<L>(L listener, CdpEventDispatcher.Mailbox mailbox) {
+    }
+
+    /** A command sent with {@link #sendCommandBytes}; responses carry no method, so it is kept here. */
+    private record PendingBinary(String method, CompletableFuture<byte[]> future) {
+    }
+
+    private void handleIncomingMessage(String message, long receivedAt) {
         try {
-            JsonNode node = objectMapper.readTree(message);
-            if (node.has("id")) {
-                int id = node.get("id").asInt();
-                CompletableFuture<JsonNode> cf = pendingRequests.remove(id);
-                if (cf != null) {
-                    cf.complete(node);
-                    return;
+            FrameHeader header = scanHeader(message);
+            recordFrame(CdpFlightRecorder.Direction.RECEIVED, header.id(), header.method(), message);
+            if (header.sessionId() != null) {
+                // Frames for flattened sessions are routed to the owning session;
+                // frames for sessions we did not attach ourselves are dropped.
+                CdpClient session = sessions.get(header.sessionId());
+                if (session != null) {
+                    session.dispatch(header, message, receivedAt);
                 }
+                return;
             }
-            // Treat as event (no "id")
-            for (Consumer<JsonNode> listener : eventListeners) {
-                try {
-                    listener.accept(node);
-                } catch (Exception ex) {
-                    // swallow per-listener exception to avoid impacting other listeners
+            if ("Target.detachedFromTarget".equals(header.method())) {
+                JsonNode node = objectMapper.readTree(message);
+                CdpClient session = sessions.remove(node.path("params").path("sessionId").asText());
+                if (session != null) {
+                    session.releaseSubscriptions();
+                    session.failPending(new RuntimeException("Target detached"));
                 }
             }
-        } catch (JsonProcessingException e) {
+            dispatch(header, message, receivedAt);
+        } catch (IOException e) {
             // log parse error if necessary
         }
     }
 
-    // Helper builder to produce compact JSON without exposing ObjectNode to consumers
-    private static final class ObjectNodeBuilder {
-        private final ObjectMapper mapper;
-        private final com.fasterxml.jackson.databind.node.ObjectNode root;
+    /**
+     * Streams over the top-level fields of a frame, skipping nested objects such as
+     * {@code params} and {@code result}, to find the routing fields.
+     */
+    private FrameHeader scanHeader(String message) throws IOException {
+        int id = -1;
+        String method = null;
+        String frameSessionId = null;
+        try (JsonParser parser = objectMapper.getFactory().createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("CDP frame is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "id" -> id = parser.getIntValue();
+                    case "method" -> method = parser.getText();
+                    case "sessionId" -> frameSessionId = parser.getText();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return new FrameHeader(id, method, frameSessionId);
+    }
+
+    private void dispatch(FrameHeader header, String message, long receivedAt) throws IOException {
+        if (header.hasId()) {
+            commitCommandEvent(header.id(), "completed", message.length());
+            CompletableFuture<JsonNode> cf = pendingRequests.remove(header.id());
+            if (cf != null) {
+                cf.complete(objectMapper.readTree(message));
+                return;
+            }
+            PendingBinary binary = pendingBinaryRequests.remove(header.id());
+            if (binary != null) {
+                completeBinary(binary, message);
+                return;
+            }
+            // Nobody is waiting: drop it without building a tree
+            connection().discardedResponses.increment();
+            return;
+        }
+        if (header.method() != null) {
+            List<Subscription<BiConsumer<JsonNode, byte[]>>> byteListeners = binaryListeners.get(header.method());
+            if (byteListeners != null && !byteListeners.isEmpty()) {
+                CdpBinaryDecoder.Decoded decoded = binaryDecoder.decode(message, header.method(), "params");
+                for (Subscription<BiConsumer<JsonNode, byte[]>> subscription : byteListeners) {
+                    subscription.mailbox().offer(header.method(), receivedAt,
+                            () -> subscription.listener().accept(decoded.fields(), decoded.data()));
+                }
+            }
+        }
+        // Treat as event (no "id"); only materialise the tree if someone listens
+        List<Subscription<Consumer<JsonNode>>> byMethod = header.method() != null ? methodListeners.get(header.method()) : null;
+        List<Subscription<Consumer<JsonNode>>> byDomain = null;
+        if (header.method() != null) {
+            int dot = header.method().indexOf('.');
+            if (dot > 0) {
+                byDomain = methodListeners.get(header.method().substring(0, dot));
+            }
+        }
+        boolean hasMethodListeners = (byMethod != null && !byMethod.isEmpty()) || (byDomain != null && !byDomain.isEmpty());
+        if (eventListeners.isEmpty() && !hasMethodListeners) {
+            return;
+        }
+        JsonNode node = objectMapper.readTree(message);
+        notifyListeners(eventListeners, header.method(), receivedAt, node);
+        if (byMethod != null) notifyListeners(byMethod, header.method(), receivedAt, node);
+        if (byDomain != null) notifyListeners(byDomain, header.method(), receivedAt, node);
+    }
 
-        ObjectNodeBuilder(ObjectMapper mapper) {
-            this.mapper = mapper;
-            this.root = mapper.createObjectNode();
+    private void completeBinary(PendingBinary binary, String message) {
+        try {
+            CdpBinaryDecoder.Decoded decoded = binaryDecoder.decode(message, binary.method(), "result");
+            if (decoded.error() != null) {
+                binary.future().completeExceptionally(new RuntimeException("CDP error: " + decoded.error()));
+            } else {
+                binary.future().complete(decoded.data());
+            }
+        } catch (IOException e) {
+            binary.future().completeExceptionally(new RuntimeException("Failed to decode " + binary.method(), e));
         }
+    }
 
-        void put(String key, Object value) {
-            root.set(key, mapper.valueToTree(value));
+    private static void notifyListeners(List<Subscription<Consumer<JsonNode>>> listeners, String method,
+            long receivedAt, JsonNode node) {
+        for (Subscription<Consumer<JsonNode>> subscription : listeners) {
+            subscription.mailbox().offer(method, receivedAt, () -> subscription.listener().accept(node));
         }
+    }
 
-        void putObject(String key, Map<String, Object> map) {
-            if (map == null) return;
-            com.fasterxml.jackson.databind.node.ObjectNode p = mapper.createObjectNode();
-            map.forEach((k, v) -> p.set(k, mapper.valueToTree(v)));
-            root.set(key, p);
+    private void commitCommandEvent(int id, String outcome, long responseBytes) {
+        if (commandEvents.isEmpty()) {
+            return;
+        }
+        CdpJfrEvents.Command event = commandEvents.remove(id);
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.outcome = outcome;
+                event.responseBytes = responseBytes;
+                event.commit();
+            }
         }
+    }
 
-        String buildString() throws JsonProcessingException {
-            return mapper.writeValueAsString(root);
+    private void failPending(Throwable cause) {
+        commandEvents.keySet().forEach(id -> commitCommandEvent(id, "closed", 0));
+        pendingRequests.forEach((id, cf) -> cf.completeExceptionally(cause));
+        pendingRequests.clear();
+        pendingBinaryRequests.forEach((id, binary) -> binary.future().completeExceptionally(cause));
+        pendingBinaryRequests.clear();
+    }
+
+    /**
+     * Writes the {@code params} value of a command frame.
+     */
+    @FunctionalInterface
+    private interface ParamsWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private ParamsWriter paramsOf(Map<String, Object> params) {
+        return params == null ? null : generator -> objectMapper.writeValue(generator, params);
+    }
+
+    private static ParamsWriter paramsOf(CdpCommand<?> command) {
+        return generator -> {
+            generator.writeStartObject();
+            command.writeParams(generator);
+            generator.writeEndObject();
+        };
+    }
+
+    /**
+     * Serialises the command frame straight to text with a streaming generator;
+     * params maps are written by Jackson's cached serialisers and typed commands
+     * write their own fields, so no intermediate tree is built.
+     */
+    private String buildPayload(int id, String method, ParamsWriter params) throws JsonProcessingException {
+        StringWriter out = new StringWriter(64 + method.length());
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeNumberField("id", id);
+            generator.writeStringField("method", method);
+            if (params != null) {
+                generator.writeFieldName("params");
+                params.write(generator);
+            }
+            if (sessionId != null) {
+                generator.writeStringField("sessionId", sessionId);
+            }
+            generator.writeEndObject();
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            // StringWriter does not throw; kept for the generator's checked signature
+            throw JsonMappingException.fromUnexpectedIOE(e);
         }
+        return out.toString();
     }
 }
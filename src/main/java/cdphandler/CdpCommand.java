@@ -0,0 +1,33 @@
+package cdphandler;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+
+/**
+ * A typed CDP command. The implementations in {@code cdphandler.protocol} are
+ * generated from the vendored protocol schema in {@code src/main/protocol}; send
+ * them with {@link CdpClient#send(CdpCommand, java.time.Duration)} or
+ * {@link CdpUtility#execute(CdpCommand)}.
+ *
+ * @param <R> The parsed result type, {@link Void} for commands without a result.
+ */
+public interface CdpCommand<R> {
+
+    /**
+     * Returns the CDP method name, e.g. {@code "Page.navigate"}.
+     */
+    String method();
+
+    /**
+     * Writes the command's parameters as fields of the already opened
+     * {@code params} object; unset optional parameters are omitted.
+     */
+    void writeParams(JsonGenerator out) throws IOException;
+
+    /**
+     * Parses the {@code result} object of the command's response.
+     */
+    R parseResult(JsonNode result);
+}
@@ -0,0 +1,16 @@
+package cdphandler;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of a {@link CdpClient} event dispatcher.
+ *
+ * @param eventsDelivered Events handed to listeners so far.
+ * @param eventsDropped   Events discarded by a full queue or replaced by coalescing.
+ * @param queueDepth      Events currently waiting across all listener queues.
+ * @param averageLatency  Mean time from frame arrival to listener invocation.
+ * @param maxLatency      Worst time from frame arrival to listener invocation.
+ */
+public record CdpDispatchStats(long eventsDelivered, long eventsDropped, int queueDepth, Duration averageLatency,
+        Duration maxLatency) {
+}
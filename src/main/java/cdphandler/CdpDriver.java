@@ -1,7 +1,6 @@
 package cdphandler;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import logger.Log;
 import logger.Logger;
 import tools.Utilities;
@@ -9,8 +8,11 @@ import tools.Utilities;
 import java.io.File;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 public class CdpDriver implements ICdpDriver {
@@ -60,6 +62,10 @@ public class CdpDriver implements ICdpDriver {
     private Duration POLLING_INTERVAL = Duration.ofMillis(50);
     private Duration DEFAULT_TIMEOUT = Duration.ofMinutes(1);
     private Duration PAGE_LOAD_TIMEOUT = Duration.ofMinutes(1);
+    private CdpTypingMode typingMode = CdpTypingMode.valueOf(
+            System.getProperty("cdp.typingMode", CdpTypingMode.KEYSTROKES.name()).toUpperCase());
+    private CdpLoadState loadState = CdpLoadState.valueOf(
+            System.getProperty("cdp.loadState", CdpLoadState.DOM_CONTENT_LOADED.name()).toUpperCase());
     private final CdpUtility cdpUtility;
     private BrowserLauncher.LaunchedBrowser launchedBrowser;
 
@@ -67,8 +73,18 @@ public class CdpDriver implements ICdpDriver {
     private static final List<CdpKey> modifierKeys = List.of(CdpKey.Alt, CdpKey.Control, CdpKey.Meta, CdpKey.Shift);
 
     public CdpDriver(String websocketDebuggerAddress) {
-        this.cdpUtility = new CdpUtility(websocketDebuggerAddress);
-        cdpUtility.runtimeEvaluate(CdpScripts.CDP_ELEMENTS_CLEANUP_SCRIPT, false);
+        this(new CdpClient(websocketDebuggerAddress));
+    }
+
+    /**
+     * Creates a driver on top of an already connected client. Pass a session-bound
+     * client from {@link CdpClient#attachToTarget(String)} to drive a page over a
+     * shared browser-level connection.
+     */
+    public CdpDriver(CdpClient client) {
+        this.cdpUtility = new CdpUtility(client, true);
+        cdpUtility.getHelperRuntime().install();
+        cdpUtility.getResourceBlocker().applyDefaults();
     }
 
     // -----------------------------------------------------------------------
@@ -137,19 +153,9 @@ public class CdpDriver implements ICdpDriver {
     @Override
     public void back() {
         if (isTracing()) {
-            record("back", "driver", null, null, null, () -> {
-                checkBrowsingContextOpen();
-                cdpUtility.runtimeEvaluate(CdpScripts.BACK_SCRIPT, false);
-                sleep(getPollingInterval());
-                waitUntilDocumentReady();
-                log.info("Navigating back to: " + getCurrentUrl());
-            });
+            record("back", "driver", null, null, null, () -> traverseHistory(-1));
         } else {
-            checkBrowsingContextOpen();
-            cdpUtility.runtimeEvaluate(CdpScripts.BACK_SCRIPT, false);
-            sleep(getPollingInterval());
-            waitUntilDocumentReady();
-            log.info("Navigating back to: " + getCurrentUrl());
+            traverseHistory(-1);
         }
     }
 
@@ -158,6 +164,11 @@ public class CdpDriver implements ICdpDriver {
         return cdpUtility.pageCaptureScreenshot("png").get("data").asText();
     }
 
+    @Override
+    public byte[] captureScreenshotBytes() {
+        return cdpUtility.pageCaptureScreenshotBytes("png");
+    }
+
     private void checkBrowsingContextOpen() {
         return; // TODO: Check why getWindowHandle() is getting stuck
     }
@@ -253,43 +264,71 @@ public class CdpDriver implements ICdpDriver {
 
     private List<ICdpElement> doFindElements(CdpBy by, Duration duration) {
         checkBrowsingContextOpen();
-        String locatorScript = switch (by.type()) {
-            case ID -> CdpScripts.ID_LOCATOR_SCRIPT;
-            case CSS -> CdpScripts.CSS_LOCATOR_SCRIPT;
-            case XPATH -> CdpScripts.XPATH_LOCATOR_SCRIPT;
-            case PIERCING_CSS -> CdpScripts.PIERCING_CSS_LOCATOR_SCRIPT;
-            default -> throw new IllegalStateException("Unexpected value: " + by.type());
-        };
-        String script = String.format(CdpScripts.FIND_ELEMENT_SCRIPT.replace("<locatorScript>", locatorScript), "", by.locator());
-        AtomicReference<List<ICdpElement>> cdpElements = new AtomicReference<>(new ArrayList<>());
-        Utilities.waitUntil(() -> {
-            JsonNode result = cdpUtility.runtimeEvaluate(script, true);
-            if (result != null && result.has("value")) {
-                JsonNode valueNode = result.get("value");
-                if (valueNode.isArray() && !valueNode.isEmpty()) {
-                    ArrayNode values = (ArrayNode) valueNode;
-                    for (int i = 0; i < values.size(); i++) {
-                        String name = values.size() == 1 ? by.name() : by.name() + "[" + i + "]";
-                        cdpElements.get().add(new CdpElement(this, new CdpBy(name, by.type(), by.locator()), values.get(i).asText()));
-                    }
-                    return !cdpElements.get().isEmpty();
+        String strategy = CdpElement.locatorStrategy(by);
+        List<String> references = cdpUtility.getHelperRuntime().awaitFind("", strategy, by.locator(), duration);
+        List<ICdpElement> cdpElements = new ArrayList<>();
+        for (int i = 0; i < references.size(); i++) {
+            String name = references.size() == 1 ? by.name() : by.name() + "[" + i + "]";
+            cdpElements.add(new CdpElement(this, new CdpBy(name, by.type(), by.locator()), references.get(i)));
+        }
+        return cdpElements;
+    }
+
+    @Override
+    public Map<String, ICdpElement> findAll(Map<String, CdpBy> locators) {
+        return findAll(locators, DEFAULT_TIMEOUT);
+    }
+
+    @Override
+    public Map<String, ICdpElement> findAll(Map<String, CdpBy> locators, Duration duration) {
+        if (isTracing()) {
+            return record("findAll", "driver", locators.keySet().toString(), null, new Object[] { locators, duration },
+                    () -> doFindAll(locators, duration));
+        }
+        return doFindAll(locators, duration);
+    }
+
+    private Map<String, ICdpElement> doFindAll(Map<String, CdpBy> locators, Duration duration) {
+        checkBrowsingContextOpen();
+        Map<String, ICdpElement> found = new ConcurrentHashMap<>();
+        cdpUtility.getWait().until(() -> {
+            List<String> names = new ArrayList<>();
+            List<List<String>> queries = new ArrayList<>();
+            locators.forEach((name, by) -> {
+                if (!found.containsKey(name)) {
+                    names.add(name);
+                    queries.add(List.of(CdpElement.locatorStrategy(by), by.locator()));
+                }
+            });
+            List<String> references = cdpUtility.getHelperRuntime().findFirst("", queries);
+            for (int i = 0; i < names.size(); i++) {
+                if (references.get(i) != null) {
+                    found.put(names.get(i), new CdpElement(this, locators.get(names.get(i)), references.get(i)));
                 }
             }
-            sleep(getPollingInterval());
-            return false;
+            return found.size() == locators.size();
         }, duration);
-        return cdpElements.get();
+
+        Map<String, ICdpElement> elements = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        locators.forEach((name, by) -> {
+            ICdpElement element = found.get(name);
+            if (element != null) {
+                elements.put(name, element);
+            } else {
+                missing.add(name);
+            }
+        });
+        if (!missing.isEmpty()) {
+            log.warn("Failed to find elements: " + missing);
+            throw new NoSuchElementException("Failed to find elements: " + missing);
+        }
+        return elements;
     }
 
     @Override
     public void forward() {
-        record("forward", "driver", null, null, null, () -> {
-            checkBrowsingContextOpen();
-            cdpUtility.runtimeEvaluate(CdpScripts.FORWARD_SCRIPT, false);
-            sleep(getPollingInterval());
-            waitUntilDocumentReady();
-            log.info("Navigating forward to: " + getCurrentUrl());
-        });
+        record("forward", "driver", null, null, null, () -> traverseHistory(1));
     }
 
     @Override
@@ -303,25 +342,26 @@ public class CdpDriver implements ICdpDriver {
 
     @Override
     public void get(String url) {
+        get(url, loadState);
+    }
+
+    @Override
+    public void get(String url, CdpLoadState loadState) {
         if (isTracing()) {
-            record("get", "driver", null, null, new Object[] { url }, () -> {
-                checkBrowsingContextOpen();
-                validateUrl(url);
-                cdpUtility.pageNavigate(url);
-                sleep(getPollingInterval());
-                waitUntilDocumentReady();
-                log.info("Navigating to: " + getCurrentUrl());
-            });
+            record("get", "driver", null, null, new Object[] { url }, () -> doGet(url, loadState));
         } else {
-            checkBrowsingContextOpen();
-            validateUrl(url);
-            cdpUtility.pageNavigate(url);
-            sleep(getPollingInterval());
-            waitUntilDocumentReady();
-            log.info("Navigating to: " + getCurrentUrl());
+            doGet(url, loadState);
         }
     }
 
+    private void doGet(String url, CdpLoadState loadState) {
+        checkBrowsingContextOpen();
+        validateUrl(url);
+        cdpUtility.releaseElementHandles();
+        navigate(loadState, () -> cdpUtility.pageNavigate(url));
+        log.info("Navigating to: " + getCurrentUrl());
+    }
+
     @Override
     public CdpUtility getCdpUtility() {
         return cdpUtility;
@@ -354,6 +394,11 @@ public class CdpDriver implements ICdpDriver {
         return cdpUtility.runtimeEvaluate(CdpScripts.GET_PAGE_SOURCE, true).get("value").asText();
     }
 
+    @Override
+    public CdpResourceBlocker getResourceBlocker() {
+        return cdpUtility.getResourceBlocker();
+    }
+
     @Override
     public Duration getPollingInterval() {
         return POLLING_INTERVAL;
@@ -365,6 +410,25 @@ public class CdpDriver implements ICdpDriver {
         return cdpUtility.runtimeEvaluate(CdpScripts.GET_TITLE_SCRIPT, true).get("value").asText();
     }
 
+    @Override
+    public CdpLoadState getLoadState() {
+        return loadState;
+    }
+
+    @Override
+    public CdpNetworkTracker getNetworkTracker() {
+        CdpNetworkTracker tracker = cdpUtility.getNetworkTracker();
+        if (tracker == null) {
+            throw new IllegalStateException("Network domain is not enabled for this driver");
+        }
+        return tracker;
+    }
+
+    @Override
+    public CdpTypingMode getTypingMode() {
+        return typingMode;
+    }
+
     @Override
     public String getWindowHandle() {
         try {
@@ -532,9 +596,8 @@ public class CdpDriver implements ICdpDriver {
     public void refresh() {
         record("refresh", "driver", null, null, null, () -> {
             checkBrowsingContextOpen();
-            cdpUtility.pageReload();
-            sleep(getPollingInterval());
-            waitUntilDocumentReady();
+            cdpUtility.releaseElementHandles();
+            navigate(loadState, cdpUtility::pageReload);
             log.info("Refreshing page: " + getCurrentUrl());
         });
     }
@@ -542,32 +605,7 @@ public class CdpDriver implements ICdpDriver {
     @Override
     public void sendKeys(String text) {
         record("sendKeys", "driver", null, null, new Object[] { text }, () -> {
-            for (char character : text.toCharArray()) {
-                CdpKey key = CdpKey.getCdpKey(character);
-                String charStr = String.valueOf(character);
-
-                // Fall back for unmapped characters (e.g. space, punctuation)
-                if (key == null) {
-                    key = (character == ' ') ? CdpKey.Space : null;
-                }
-
-                if (key != null) {
-                    cdpUtility.inputDispatchKeyEvent("keyDown", getCurrentModifierValue(), charStr, "",
-                            key.getCode(), charStr, key.getWindowsVirtualKeyCode(),
-                            key.getNativeVirtualKeyCode());
-                    sleep(getPollingInterval());
-                    cdpUtility.inputDispatchKeyEvent("keyUp", getCurrentModifierValue(), charStr, "",
-                            key.getCode(), charStr, key.getWindowsVirtualKeyCode(),
-                            key.getNativeVirtualKeyCode());
-                } else {
-                    int vk = (int) character;
-                    cdpUtility.inputDispatchKeyEvent("keyDown", getCurrentModifierValue(), charStr, "",
-                            charStr, charStr, vk, vk);
-                    sleep(getPollingInterval());
-                    cdpUtility.inputDispatchKeyEvent("keyUp", getCurrentModifierValue(), charStr, "",
-                            charStr, charStr, vk, vk);
-                }
-            }
+            CdpKeyboard.type(cdpUtility, typingMode, getCurrentModifierValue(), text, getPollingInterval());
             log.info("Sending keys: " + text);
         });
     }
@@ -587,6 +625,16 @@ public class CdpDriver implements ICdpDriver {
         this.POLLING_INTERVAL = POLLING_INTERVAL;
     }
 
+    @Override
+    public void setLoadState(CdpLoadState loadState) {
+        this.loadState = loadState;
+    }
+
+    @Override
+    public void setTypingMode(CdpTypingMode typingMode) {
+        this.typingMode = typingMode;
+    }
+
     @Override
     public void setWindowRect(CdpRect windowRect) {
         record("setWindowRect", "driver", null, null, new Object[] { windowRect }, () -> {
@@ -621,12 +669,78 @@ public class CdpDriver implements ICdpDriver {
         cdpUtility.targetActivateTarget(windowHandle);
     }
 
+    @Override
+    public boolean waitForNetworkIdle(Duration quietPeriod, int maxInflight) {
+        checkBrowsingContextOpen();
+        return getNetworkTracker().waitForNetworkIdle(quietPeriod, maxInflight, PAGE_LOAD_TIMEOUT);
+    }
+
     private void validateUrl(String url) {
         if (url == null || (!url.equals("about:blank") && !url.matches("^[a-zA-Z][a-zA-Z0-9+.-]*://.*"))) {
             throw new IllegalArgumentException("invalid argument: URL must be an absolute URL: " + url);
         }
     }
 
+    /**
+     * Moves {@code delta} entries through the session history, like
+     * {@code history.go(delta)}, and waits for the driver's load state. Does
+     * nothing at either end of the history.
+     */
+    private void traverseHistory(int delta) {
+        checkBrowsingContextOpen();
+        cdpUtility.releaseElementHandles();
+        navigate(loadState, () -> {
+            JsonNode history = cdpUtility.pageGetNavigationHistory();
+            JsonNode entry = history.path("entries").path(history.path("currentIndex").asInt() + delta);
+            return entry.has("id") ? cdpUtility.pageNavigateToHistoryEntry(entry.get("id").asInt()) : null;
+        });
+        log.info("Navigating " + (delta < 0 ? "back" : "forward") + " to: " + getCurrentUrl());
+    }
+
+    /**
+     * Starts a navigation and waits until it reaches {@code loadState}, or
+     * {@link CdpLoadState#LOAD} while tracing so traces capture the loaded page.
+     *
+     * @param navigation Sends the navigation command and returns its result, or
+     *                   {@code null} if nothing was navigated.
+     */
+    private void navigate(CdpLoadState loadState, Supplier<JsonNode> navigation) {
+        CdpResourceBlocker blocker = cdpUtility.getResourceBlocker();
+        blocker.startNavigation();
+        awaitNavigation(loadState, navigation);
+        if (blocker.isActive())
+            log.info("Blocked " + blocker.getBlockedCount() + " requests during navigation");
+    }
+
+    private void awaitNavigation(CdpLoadState loadState, Supplier<JsonNode> navigation) {
+        if (isTracing() && loadState.compareTo(CdpLoadState.LOAD) < 0) {
+            loadState = CdpLoadState.LOAD;
+        }
+        CdpLifecycle lifecycle = cdpUtility.getLifecycle();
+        if (!lifecycle.enable()) {
+            if (navigation.get() != null) {
+                sleep(getPollingInterval());
+                waitUntilDocumentReady();
+            }
+            return;
+        }
+        long mark = lifecycle.mark();
+        JsonNode result = navigation.get();
+        if (result == null) {
+            return;
+        }
+        String errorText = result.path("errorText").asText("");
+        if (!errorText.isEmpty()) {
+            log.warn("Navigation failed: " + errorText);
+            return;
+        }
+        if (!lifecycle.await(mark, result.path("loaderId").asText(null), loadState, PAGE_LOAD_TIMEOUT))
+            log.warn("Timeout waiting for page to reach " + loadState.eventName());
+    }
+
+    /**
+     * Polls {@code document.readyState}, for targets without lifecycle events.
+     */
     private void waitUntilDocumentReady() {
         // When tracing is active, wait for readyState === 'complete' so the trace
         // captures the fully-loaded DOM (scripts, images, etc. all done).
@@ -636,7 +750,7 @@ public class CdpDriver implements ICdpDriver {
         String script = isTracing()
                 ? CdpScripts.WAIT_UNTIL_DOCUMENT_READY
                 : CdpScripts.WAIT_UNTIL_DOCUMENT_READY_OR_INTERACTIVE;
-        boolean isReady = Utilities.waitUntil(() -> {
+        boolean isReady = cdpUtility.getWait().until(() -> {
             JsonNode result = cdpUtility.runtimeEvaluate(script, true);
             return result != null && result.has("value") && result.get("value").asBoolean();
         }, PAGE_LOAD_TIMEOUT);
@@ -0,0 +1,318 @@
+package cdphandler;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written equivalent of {@link OllamaProxy}: resolves natural-language
+ * locators and wraps returned elements with {@link CdpHandler#createElement},
+ * with plain virtual calls instead of {@code Method.invoke}, so the JIT can
+ * inline the hot paths. Every other method delegates as is.
+ */
+final class CdpDriverDecorator implements ICdpDriver {
+    private final ICdpDriver cdpDriver;
+
+    CdpDriverDecorator(ICdpDriver cdpDriver) {
+        this.cdpDriver = cdpDriver;
+    }
+
+    static ICdpElement wrap(ICdpElement element) {
+        return element instanceof CdpElement ? CdpHandler.createElement(element) : element;
+    }
+
+    static List<ICdpElement> wrap(List<ICdpElement> elements) {
+        List<ICdpElement> wrapped = new ArrayList<>(elements.size());
+        for (ICdpElement element : elements) {
+            if (element instanceof CdpElement) {
+                wrapped.add(CdpHandler.createElement(element));
+            }
+        }
+        return wrapped;
+    }
+
+    private static Map<String, ICdpElement> wrap(Map<String, ICdpElement> elements) {
+        Map<String, ICdpElement> wrapped = new LinkedHashMap<>();
+        elements.forEach((name, element) -> wrapped.put(name, wrap(element)));
+        return wrapped;
+    }
+
+    @Override
+    public void back() {
+        cdpDriver.back();
+    }
+
+    @Override
+    public String captureScreenshot() {
+        return cdpDriver.captureScreenshot();
+    }
+
+    @Override
+    public byte[] captureScreenshotBytes() {
+        return cdpDriver.captureScreenshotBytes();
+    }
+
+    @Override
+    public void close() {
+        cdpDriver.close();
+    }
+
+    @Override
+    public void closeBrowser() {
+        cdpDriver.closeBrowser();
+    }
+
+    @Override
+    public void closeTab() {
+        cdpDriver.closeTab();
+    }
+
+    @Override
+    public void closeWindow() {
+        cdpDriver.closeWindow();
+    }
+
+    @Override
+    public ICdpElement findElement(CdpBy by) {
+        return wrap(cdpDriver.findElement(OllamaProxy.resolve(cdpDriver, by)));
+    }
+
+    @Override
+    public ICdpElement findElement(CdpBy by, Duration duration) {
+        return wrap(cdpDriver.findElement(OllamaProxy.resolve(cdpDriver, by), duration));
+    }
+
+    @Override
+    public List<ICdpElement> findElements(CdpBy by) {
+        return wrap(cdpDriver.findElements(OllamaProxy.resolve(cdpDriver, by)));
+    }
+
+    @Override
+    public List<ICdpElement> findElements(CdpBy by, Duration duration) {
+        return wrap(cdpDriver.findElements(OllamaProxy.resolve(cdpDriver, by), duration));
+    }
+
+    @Override
+    public Map<String, ICdpElement> findAll(Map<String, CdpBy> locators) {
+        return wrap(cdpDriver.findAll(OllamaProxy.resolve(cdpDriver, locators)));
+    }
+
+    @Override
+    public Map<String, ICdpElement> findAll(Map<String, CdpBy> locators, Duration duration) {
+        return wrap(cdpDriver.findAll(OllamaProxy.resolve(cdpDriver, locators), duration));
+    }
+
+    @Override
+    public void forward() {
+        cdpDriver.forward();
+    }
+
+    @Override
+    public void fullScreenWindow() {
+        cdpDriver.fullScreenWindow();
+    }
+
+    @Override
+    public void get(String url) {
+        cdpDriver.get(url);
+    }
+
+    @Override
+    public void get(String url, CdpLoadState loadState) {
+        cdpDriver.get(url, loadState);
+    }
+
+    @Override
+    public CdpUtility getCdpUtility() {
+        return cdpDriver.getCdpUtility();
+    }
+
+    @Override
+    public int getCurrentModifierValue() {
+        return cdpDriver.getCurrentModifierValue();
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        return cdpDriver.getCurrentUrl();
+    }
+
+    @Override
+    public Duration getDefaultTimeout() {
+        return cdpDriver.getDefaultTimeout();
+    }
+
+    @Override
+    public CdpLoadState getLoadState() {
+        return cdpDriver.getLoadState();
+    }
+
+    @Override
+    public CdpNetworkTracker getNetworkTracker() {
+        return cdpDriver.getNetworkTracker();
+    }
+
+    @Override
+    public Duration getPageLoadTimeout() {
+        return cdpDriver.getPageLoadTimeout();
+    }
+
+    @Override
+    public String getPageSource() {
+        return cdpDriver.getPageSource();
+    }
+
+    @Override
+    public CdpResourceBlocker getResourceBlocker() {
+        return cdpDriver.getResourceBlocker();
+    }
+
+    @Override
+    public Duration getPollingInterval() {
+        return cdpDriver.getPollingInterval();
+    }
+
+    @Override
+    public String getTitle() {
+        return cdpDriver.getTitle();
+    }
+
+    @Override
+    public CdpTypingMode getTypingMode() {
+        return cdpDriver.getTypingMode();
+    }
+
+    @Override
+    public String getWindowHandle() {
+        return cdpDriver.getWindowHandle();
+    }
+
+    @Override
+    public List<String> getWindowHandles() {
+        return cdpDriver.getWindowHandles();
+    }
+
+    @Override
+    public CdpRect getWindowRect() {
+        return cdpDriver.getWindowRect();
+    }
+
+    @Override
+    public boolean isElementPresent(CdpBy by) {
+        return cdpDriver.isElementPresent(by);
+    }
+
+    @Override
+    public void keyDown(CdpKey key) {
+        cdpDriver.keyDown(key);
+    }
+
+    @Override
+    public void keyUp(CdpKey key) {
+        cdpDriver.keyUp(key);
+    }
+
+    @Override
+    public void keyPress(CdpKey key) {
+        cdpDriver.keyPress(key);
+    }
+
+    @Override
+    public void maximizeWindow() {
+        cdpDriver.maximizeWindow();
+    }
+
+    @Override
+    public void minimizeWindow() {
+        cdpDriver.minimizeWindow();
+    }
+
+    @Override
+    public void refresh() {
+        cdpDriver.refresh();
+    }
+
+    @Override
+    public void sendKeys(String text) {
+        cdpDriver.sendKeys(text);
+    }
+
+    @Override
+    public void setDefaultTimeout(Duration DEFAULT_TIMEOUT) {
+        cdpDriver.setDefaultTimeout(DEFAULT_TIMEOUT);
+    }
+
+    @Override
+    public void setLoadState(CdpLoadState loadState) {
+        cdpDriver.setLoadState(loadState);
+    }
+
+    @Override
+    public void setPageLoadTimeout(Duration PAGE_LOAD_TIMEOUT) {
+        cdpDriver.setPageLoadTimeout(PAGE_LOAD_TIMEOUT);
+    }
+
+    @Override
+    public void setPollingInterval(Duration POLLING_INTERVAL) {
+        cdpDriver.setPollingInterval(POLLING_INTERVAL);
+    }
+
+    @Override
+    public void setTypingMode(CdpTypingMode typingMode) {
+        cdpDriver.setTypingMode(typingMode);
+    }
+
+    @Override
+    public void setWindowRect(CdpRect windowRect) {
+        cdpDriver.setWindowRect(windowRect);
+    }
+
+    @Override
+    public void sleep(Duration duration) {
+        cdpDriver.sleep(duration);
+    }
+
+    @Override
+    public void switchToWindow(String windowHandle) {
+        cdpDriver.switchToWindow(windowHandle);
+    }
+
+    @Override
+    public boolean waitForNetworkIdle(Duration quietPeriod, int maxInflight) {
+        return cdpDriver.waitForNetworkIdle(quietPeriod, maxInflight);
+    }
+
+    @Override
+    public void startTracing(File zipFile) {
+        cdpDriver.startTracing(zipFile);
+    }
+
+    @Override
+    public void stopTracing() {
+        cdpDriver.stopTracing();
+    }
+
+    @Override
+    public CdpTraceCollector getTraceCollector() {
+        return cdpDriver.getTraceCollector();
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof CdpDriverDecorator decorator ? cdpDriver.equals(decorator.cdpDriver)
+                : cdpDriver.equals(object);
+    }
+
+    @Override
+    public int hashCode() {
+        return cdpDriver.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return cdpDriver.toString();
+    }
+}
@@ -1,19 +1,19 @@
 package cdphandler;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import logger.Log;
 import logger.Logger;
-import tools.Utilities;
 
 import java.time.Duration;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class CdpElement implements ICdpElement {
     private static final Logger log = Log.getLogger(CdpElement.class);
+    private static final int DRAG_STEPS = 5;
     private final ICdpDriver cdpDriver;
     private final CdpBy by;
     private final String referenceId;
@@ -40,23 +40,135 @@ public class CdpElement implements ICdpElement {
         this.referenceId = referenceId;
     }
 
+    private CdpHelperRuntime helpers() {
+        return cdpDriver.getCdpUtility().getHelperRuntime();
+    }
+
+    private CdpWait waiter() {
+        return cdpDriver.getCdpUtility().getWait();
+    }
+
+    /**
+     * Maps a locator type to its {@code __cdp.find} strategy.
+     */
+    static String locatorStrategy(CdpBy by) {
+        return switch (by.type()) {
+            case ID -> "id";
+            case CSS -> "css";
+            case XPATH -> "xpath";
+            case PIERCING_CSS -> "piercingCss";
+            case PIERCING_XPATH -> "piercingXpath";
+            default -> throw new IllegalStateException("Unexpected value: " + by.type());
+        };
+    }
+
     private boolean isTracing() {
         return cdpDriver != null && cdpDriver.getTraceCollector() != null;
     }
 
     private void record(String name, Object[] args, Runnable action) {
-        if (isTracing()) {
-            cdpDriver.getTraceCollector().record(name, "element", this.by.toString(), getRect(), args, action);
-        } else {
+        record(name, args, () -> {
             action.run();
-        }
+            return null;
+        });
     }
 
     private <T> T record(String name, Object[] args, Supplier<T> action) {
-        if (isTracing()) {
-            return cdpDriver.getTraceCollector().record(name, "element", this.by.toString(), getRect(), args, action);
+        return record(name, args, this::getRect, action);
+    }
+
+    private <T> T record(String name, Object[] args, Supplier<CdpRect> rect, Supplier<T> action) {
+        CdpJfrEvents.ElementAction event = new CdpJfrEvents.ElementAction();
+        event.begin();
+        try {
+            if (isTracing()) {
+                return cdpDriver.getTraceCollector().record(name, "element", this.by.toString(), rect.get(), args,
+                        action);
+            }
+            return action.get();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.action = name;
+                event.locator = String.valueOf(this.by);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Records an input interaction that starts from an actionability snapshot. When
+     * tracing, the snapshot is taken first so its rect doubles as the trace rect
+     * instead of costing a separate {@link #getRect()}.
+     */
+    private void interact(String name, Object[] args, boolean waitForActionable, Consumer<Actionability> action) {
+        AtomicReference<Actionability> snapshot = new AtomicReference<>();
+        AtomicBoolean polled = new AtomicBoolean();
+        record(name, args, () -> {
+            // A failed snapshot must fail inside the recorded action, not before it
+            snapshot.set(pollActionability(waitForActionable));
+            polled.set(true);
+            return snapshot.get() == null ? null : snapshot.get().rect();
+        }, () -> {
+            action.accept(polled.get() ? requireSnapshot(snapshot.get()) : prepareInteraction(waitForActionable));
+            return null;
+        });
+    }
+
+    /**
+     * Scrolls the element into view and takes an actionability snapshot, polling
+     * until it is actionable when {@code waitForActionable} is set.
+     *
+     * @throws IllegalStateException if no snapshot can be taken, e.g. the element is
+     *                               stale or detached
+     */
+    private Actionability prepareInteraction(boolean waitForActionable) {
+        return requireSnapshot(pollActionability(waitForActionable));
+    }
+
+    /**
+     * {@link #prepareInteraction}, returning {@code null} when the last snapshot failed.
+     */
+    private Actionability pollActionability(boolean waitForActionable) {
+        AtomicReference<Actionability> snapshot = new AtomicReference<>(actionabilitySnapshot(true));
+        if (!waitForActionable || Actionability.isActionable(snapshot.get()))
+            return snapshot.get();
+        if (!waiter().until(
+                () -> Actionability.isActionable(snapshot.updateAndGet(s -> actionabilitySnapshot(true))),
+                cdpDriver.getDefaultTimeout()))
+            log.warn(this + " element is not actionable");
+        return snapshot.get();
+    }
+
+    private Actionability requireSnapshot(Actionability snapshot) {
+        if (snapshot == null)
+            throw new IllegalStateException("Element is stale or not actionable: " + this);
+        return snapshot;
+    }
+
+    /**
+     * Visibility, enabled state, hit-testing, rect and in-view centre of the element,
+     * fetched with a single {@code Runtime.evaluate}. Returns {@code null} when the
+     * snapshot cannot be taken (e.g. mid-navigation), so callers polling for
+     * actionability retry instead of failing.
+     */
+    private Actionability actionabilitySnapshot(boolean scroll) {
+        try {
+            JsonNode node = helpers().callElement("snapshot", true, this.referenceId, scroll).get("value");
+            return new Actionability(node.get("displayed").asBoolean(), node.get("enabled").asBoolean(),
+                    node.get("obscured").asBoolean(), new CdpRect(node),
+                    new CdpPoint(node.get("centerX").asInt(), node.get("centerY").asInt()));
+        } catch (Exception e) {
+            log.warn("Failed to get actionability of element {}: {}", this, e.toString());
+            return null;
+        }
+    }
+
+    private record Actionability(boolean displayed, boolean enabled, boolean obscured, CdpRect rect,
+            CdpPoint center) {
+        static boolean isActionable(Actionability snapshot) {
+            return snapshot != null && snapshot.displayed && snapshot.enabled && !snapshot.obscured;
         }
-        return action.get();
     }
 
     @Override
@@ -73,81 +185,51 @@ public class CdpElement implements ICdpElement {
 
     @Override
     public void clear() {
-        if (isTracing()) {
-            record("clear", null, () -> doClear());
-        } else {
-            doClear();
-        }
+        record("clear", null, () -> doClear());
     }
 
     private void doClear() {
-        String script = String.format(CdpScripts.CLEAR_ELEMENT_SCRIPT, this.referenceId);
-        this.cdpDriver.getCdpUtility().runtimeEvaluate(script, false);
+        helpers().callElement("clear", false, this.referenceId);
     }
 
     @Override
     public void click() {
-        if (isTracing()) {
-            record("click", null, () -> doClick());
-        } else {
-            doClick();
-        }
+        interact("click", null, true, this::doClick);
     }
 
-    private void doClick() {
-        scrollIntoView();
-        if (!isElementActionable())
-            log.warn(this + " element is not actionable");
-        CdpPoint objCdpPoint = getCenterLocation();
-        cdpDriver.getCdpUtility().inputDispatchMouseEvent(MouseEvent.MOVED, objCdpPoint.x(), objCdpPoint.y(),
-                cdpDriver.getCurrentModifierValue(), "none", 0);
-        cdpDriver.getCdpUtility().inputDispatchMouseEvent(MouseEvent.PRESSED, objCdpPoint.x(), objCdpPoint.y(),
-                cdpDriver.getCurrentModifierValue(), "left", 1);
-        cdpDriver.getCdpUtility().inputDispatchMouseEvent(MouseEvent.RELEASED, objCdpPoint.x(), objCdpPoint.y(),
-                cdpDriver.getCurrentModifierValue(), "left", 1);
+    private void doClick(Actionability snapshot) {
+        CdpPoint objCdpPoint = snapshot.center();
+        // Move, press and release are independent sends: pipeline them so the click
+        // costs one round trip instead of three.
+        actions().moveTo(objCdpPoint.x(), objCdpPoint.y()).click().perform();
         log.info("Clicked: " + this.by.name());
     }
 
     @Override
     public void doubleClick() {
-        record("doubleClick", null, () -> {
-            scrollIntoView();
-            if (!isElementActionable())
-                log.warn(this + " element is not actionable");
-
-            CdpPoint objCdpPoint = getCenterLocation();
-            cdpDriver.getCdpUtility().inputDispatchMouseEvent(MouseEvent.MOVED, objCdpPoint.x(), objCdpPoint.y(),
-                    cdpDriver.getCurrentModifierValue(), "none", 0);
-            cdpDriver.getCdpUtility().inputDispatchMouseEvent(MouseEvent.PRESSED, objCdpPoint.x(), objCdpPoint.y(),
-                    cdpDriver.getCurrentModifierValue(), "left", 1);
-            cdpDriver.getCdpUtility().inputDispatchMouseEvent(MouseEvent.RELEASED, objCdpPoint.x(), objCdpPoint.y(),
-                    cdpDriver.getCurrentModifierValue(), "left", 1);
-            cdpDriver.getCdpUtility().inputDispatchMouseEvent(MouseEvent.PRESSED, objCdpPoint.x(), objCdpPoint.y(),
-                    cdpDriver.getCurrentModifierValue(), "left", 2);
-            cdpDriver.getCdpUtility().inputDispatchMouseEvent(MouseEvent.RELEASED, objCdpPoint.x(), objCdpPoint.y(),
-                    cdpDriver.getCurrentModifierValue(), "left", 2);
+        interact("doubleClick", null, true, snapshot -> {
+            CdpPoint objCdpPoint = snapshot.center();
+            actions().moveTo(objCdpPoint.x(), objCdpPoint.y()).doubleClick().perform();
             log.info("Double clicked: " + this.by.name());
         });
     }
 
     @Override
     public void dragDrop(int xOffset, int yOffset) {
-        record("dragDrop", new Object[] { xOffset, yOffset }, () -> {
-            scrollIntoView();
-            CdpPoint sourceLocation = getCenterLocation();
-            cdpDriver.getCdpUtility().inputDispatchMouseEvent(MouseEvent.MOVED, sourceLocation.x(), sourceLocation.y(),
-                    cdpDriver.getCurrentModifierValue(), "none", 0);
-            cdpDriver.getCdpUtility().inputDispatchMouseEvent(MouseEvent.PRESSED, sourceLocation.x(), sourceLocation.y(),
-                    cdpDriver.getCurrentModifierValue(), "left", 1);
-
-            cdpDriver.getCdpUtility().inputDispatchMouseEvent(MouseEvent.MOVED, sourceLocation.x() + xOffset,
-                    sourceLocation.y() + yOffset, cdpDriver.getCurrentModifierValue(), "none", 0);
-            cdpDriver.getCdpUtility().inputDispatchMouseEvent(MouseEvent.RELEASED, sourceLocation.x() + xOffset,
-                    sourceLocation.y() + yOffset, cdpDriver.getCurrentModifierValue(), "left", 1);
-            log.info("Dragged: " + this + " to " + (sourceLocation.x() + xOffset) + ", " + (sourceLocation.y() + yOffset));
+        interact("dragDrop", new Object[] { xOffset, yOffset }, false, snapshot -> {
+            CdpPoint sourceLocation = snapshot.center();
+            int targetX = sourceLocation.x() + xOffset;
+            int targetY = sourceLocation.y() + yOffset;
+            // Intermediate moves let drag libraries pass their start threshold
+            actions().moveTo(sourceLocation.x(), sourceLocation.y()).dragTo(targetX, targetY, DRAG_STEPS).perform();
+            log.info("Dragged: " + this + " to " + targetX + ", " + targetY);
         });
     }
 
+    private CdpActions actions() {
+        return new CdpActions(cdpDriver.getCdpUtility(), cdpDriver.getCurrentModifierValue());
+    }
+
     @Override
     public boolean equals(Object object) {
         return object instanceof CdpElement && ((CdpElement) object).referenceId.equals(this.referenceId);
@@ -186,40 +268,19 @@ public class CdpElement implements ICdpElement {
     }
 
     private List<ICdpElement> doFindElements(CdpBy by, Duration duration) {
-        String locatorScript = switch (by.type()) {
-            case ID -> CdpScripts.ID_LOCATOR_SCRIPT;
-            case CSS -> CdpScripts.CSS_LOCATOR_SCRIPT;
-            case XPATH -> CdpScripts.XPATH_LOCATOR_SCRIPT;
-            case PIERCING_CSS -> CdpScripts.PIERCING_CSS_LOCATOR_SCRIPT;
-            default -> throw new IllegalStateException("Unexpected value: " + by.type());
-        };
-        String script = String.format(CdpScripts.FIND_ELEMENT_SCRIPT.replace("<locatorScript>", locatorScript),
-                this.referenceId, by.locator());
-        AtomicReference<List<ICdpElement>> cdpElements = new AtomicReference<>(new ArrayList<>());
-        Utilities.waitUntil(() -> {
-            JsonNode result = this.cdpDriver.getCdpUtility().runtimeEvaluate(script, true);
-            if (result != null && result.has("value")) {
-                JsonNode valueNode = result.get("value");
-                if (valueNode.isArray() && !valueNode.isEmpty()) {
-                    ArrayNode values = (ArrayNode) valueNode;
-                    for (int i = 0; i < values.size(); i++) {
-                        String name = values.size() == 1 ? by.name() : by.name() + "[" + i + "]";
-                        cdpElements.get().add(
-                                new CdpElement(this, new CdpBy(name, by.type(), by.locator()), values.get(i).asText()));
-                    }
-                    return !cdpElements.get().isEmpty();
-                }
-            }
-            Utilities.sleep(Duration.ofSeconds(1));
-            return false;
-        }, duration);
-        return cdpElements.get();
+        String strategy = locatorStrategy(by);
+        List<String> references = helpers().awaitFind(this.referenceId, strategy, by.locator(), duration);
+        List<ICdpElement> cdpElements = new ArrayList<>();
+        for (int i = 0; i < references.size(); i++) {
+            String name = references.size() == 1 ? by.name() : by.name() + "[" + i + "]";
+            cdpElements.add(new CdpElement(this, new CdpBy(name, by.type(), by.locator()), references.get(i)));
+        }
+        return cdpElements;
     }
 
     @Override
     public String getAttribute(String attributeName) {
-        String script = String.format(CdpScripts.GET_ATTRIBUTE_SCRIPT, this.referenceId, attributeName);
-        return this.cdpDriver.getCdpUtility().runtimeEvaluate(script, true).get("value").asText();
+        return helpers().callElement("attribute", true, this.referenceId, attributeName).get("value").asText();
     }
 
     @Override
@@ -234,11 +295,9 @@ public class CdpElement implements ICdpElement {
 
     @Override
     public CdpPoint getCenterLocation() {
-        String script = String.format(CdpScripts.IN_VIEW_CENTER_POINT, this.referenceId);
-        JsonNode result = this.cdpDriver.getCdpUtility().runtimeEvaluate(script, true);
+        JsonNode result = helpers().callElement("center", true, this.referenceId);
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode node = objectMapper.readTree(result.get("value").asText());
+            JsonNode node = result.get("value");
             return new CdpPoint(node.get("x").asInt(), node.get("y").asInt());
         } catch (Exception e) {
             log.error("Failed to get point of element", e);
@@ -248,8 +307,7 @@ public class CdpElement implements ICdpElement {
 
     @Override
     public String getCssValue(String propertyName) {
-        String script = String.format(CdpScripts.GET_CSS_VALUE_SCRIPT, this.referenceId, propertyName);
-        return this.cdpDriver.getCdpUtility().runtimeEvaluate(script, true).get("value").asText();
+        return helpers().callElement("cssValue", true, this.referenceId, propertyName).get("value").asText();
     }
 
     @Override
@@ -259,12 +317,10 @@ public class CdpElement implements ICdpElement {
 
     @Override
     public CdpRect getRect() {
-        String script = String.format(CdpScripts.GET_RECT_SCRIPT, this.referenceId);
-        JsonNode result = this.cdpDriver.getCdpUtility().runtimeEvaluate(script, true);
+        JsonNode result = helpers().callElement("rect", true, this.referenceId);
 
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode node = objectMapper.readTree(result.get("value").asText());
+            JsonNode node = result.get("value");
             return new CdpRect(
                     new CdpPoint(node.get("x").asInt(), node.get("y").asInt()),
                     new CdpDimension(node.get("width").asInt(), node.get("height").asInt()));
@@ -281,20 +337,17 @@ public class CdpElement implements ICdpElement {
 
     @Override
     public int getScrollHeight() {
-        String script = String.format(CdpScripts.GET_SCROLL_HEIGHT, this.referenceId);
-        return this.cdpDriver.getCdpUtility().runtimeEvaluate(script, true).get("value").asInt();
+        return helpers().callElement("property", true, this.referenceId, "scrollHeight").get("value").asInt();
     }
 
     @Override
     public int getScrollLeft() {
-        String script = String.format(CdpScripts.GET_SCROLL_LEFT, this.referenceId);
-        return this.cdpDriver.getCdpUtility().runtimeEvaluate(script, true).get("value").asInt();
+        return helpers().callElement("property", true, this.referenceId, "scrollLeft").get("value").asInt();
     }
 
     @Override
     public int getScrollTop() {
-        String script = String.format(CdpScripts.GET_SCROLL_TOP, this.referenceId);
-        return this.cdpDriver.getCdpUtility().runtimeEvaluate(script, true).get("value").asInt();
+        return helpers().callElement("property", true, this.referenceId, "scrollTop").get("value").asInt();
     }
 
     @Override
@@ -304,8 +357,7 @@ public class CdpElement implements ICdpElement {
 
     @Override
     public String getText() {
-        String script = String.format(CdpScripts.GET_INNER_TEXT, this.referenceId);
-        return this.cdpDriver.getCdpUtility().runtimeEvaluate(script, true).get("value").asText();
+        return helpers().callElement("property", true, this.referenceId, "innerText").get("value").asText();
     }
 
     @Override
@@ -315,8 +367,7 @@ public class CdpElement implements ICdpElement {
 
     @Override
     public boolean isDisplayed() {
-        String script = String.format(CdpScripts.IS_DISPLAYED_SCRIPT, this.referenceId);
-        return this.cdpDriver.getCdpUtility().runtimeEvaluate(script, true).get("value").asBoolean();
+        return helpers().callElement("displayed", true, this.referenceId).get("value").asBoolean();
     }
 
     @Override
@@ -326,15 +377,14 @@ public class CdpElement implements ICdpElement {
 
     @Override
     public boolean isElementActionable(Duration timeout) {
-        return Utilities.waitUntil(() -> isDisplayed() && isEnabled() && !isElementObscured(), timeout);
+        return waiter().until(() -> Actionability.isActionable(actionabilitySnapshot(false)), timeout);
     }
 
     @Override
     public boolean isElementObscured() {
         CdpPoint inViewCenterPoint = getCenterLocation();
-        String script = String.format(CdpScripts.IS_ELEMENT_OBSCURED_SCRIPT, this.referenceId, inViewCenterPoint.x(),
-                inViewCenterPoint.y());
-        return this.cdpDriver.getCdpUtility().runtimeEvaluate(script, true).get("value").asBoolean();
+        return helpers().callElement("obscured", true, this.referenceId, inViewCenterPoint.x(), inViewCenterPoint.y())
+                .get("value").asBoolean();
     }
 
     @Override
@@ -344,14 +394,12 @@ public class CdpElement implements ICdpElement {
 
     @Override
     public boolean isEnabled() {
-        String script = String.format(CdpScripts.IS_ENABLED_SCRIPT, this.referenceId);
-        return this.cdpDriver.getCdpUtility().runtimeEvaluate(script, true).get("value").asBoolean();
+        return helpers().callElement("enabled", true, this.referenceId).get("value").asBoolean();
     }
 
     @Override
     public boolean isSelected() {
-        String script = String.format(CdpScripts.IS_SELECTED_SCRIPT, this.referenceId);
-        return this.cdpDriver.getCdpUtility().runtimeEvaluate(script, true).get("value").asBoolean();
+        return helpers().callElement("selected", true, this.referenceId).get("value").asBoolean();
     }
 
     @Override
@@ -361,94 +409,44 @@ public class CdpElement implements ICdpElement {
 
     @Override
     public void mouseMove(int xOffset, int yOffset) {
-        scrollIntoView();
-        if (!isElementActionable())
-            log.warn("Element is not actionable");
-
-        CdpPoint objCdpPoint = getCenterLocation();
-        objCdpPoint = new CdpPoint(objCdpPoint.x() + xOffset, objCdpPoint.y() + yOffset);
-        cdpDriver.getCdpUtility().inputDispatchMouseEvent(MouseEvent.MOVED, objCdpPoint.x(), objCdpPoint.y(), 0, "none",
-                0);
+        CdpPoint objCdpPoint = prepareInteraction(true).center();
+        cdpDriver.getCdpUtility().inputDispatchMouseEvent(MouseEvent.MOVED, objCdpPoint.x() + xOffset,
+                objCdpPoint.y() + yOffset, 0, "none", 0);
     }
 
     @Override
     public void scrollBy(int x, int y) {
         record("scrollBy", new Object[] { x, y }, () -> {
-            String script = String.format(CdpScripts.SCROLL_BY_SCRIPT, this.referenceId, x, y);
-            this.cdpDriver.getCdpUtility().runtimeEvaluate(script, false);
+            helpers().callElement("scrollBy", false, this.referenceId, x, y);
         });
     }
 
     @Override
     public void scrollIntoView() {
-        if (isTracing()) {
-            record("scrollIntoView", null, () -> doScrollIntoView());
-        } else {
-            doScrollIntoView();
-        }
+        record("scrollIntoView", null, () -> doScrollIntoView());
     }
 
     private void doScrollIntoView() {
-        String script = String.format(CdpScripts.SCROLL_INTO_VIEW_SCRIPT, this.referenceId);
-        this.cdpDriver.getCdpUtility().runtimeEvaluate(script, false);
+        helpers().callElement("scrollIntoView", false, this.referenceId);
     }
 
     @Override
     public void sendKeys(String text) {
-        if (isTracing()) {
-            record("sendKeys", new Object[] { text }, () -> doSendKeys(text));
-        } else {
-            doSendKeys(text);
-        }
+        interact("sendKeys", new Object[] { text }, false, snapshot -> doSendKeys(text));
     }
 
     private void doSendKeys(String text) {
-        // Scroll into view and focus the element before typing so that the element
-        // reference is still live and the WebSocket connection is in a stable state.
-        scrollIntoView();
-        String focusScript = String.format(CdpScripts.FOCUS_ELEMENT_SCRIPT, this.referenceId);
-        this.cdpDriver.getCdpUtility().runtimeEvaluate(focusScript, false);
+        // The snapshot has scrolled the element into view; focus it before typing so
+        // that the element reference is still live and the WebSocket connection is
+        // in a stable state.
+        helpers().callElement("focus", false, this.referenceId);
 
-        // Type character-by-character using Input.dispatchKeyEvent so the interaction
+        // Type with Input commands rather than Runtime.evaluate so the interaction
         // works even when the page has re-initialised document.cdpElements (e.g. after
         // an Amazon geolocation redirect) and avoids the WebSocket send failure that
         // occurs when Runtime.evaluate is called on a stale document context.
-        for (char ch : text.toCharArray()) {
-            CdpKey key = CdpKey.getCdpKey(ch);
-            String charStr = String.valueOf(ch);
-
-            // Fall back for unmapped characters (e.g. space, punctuation)
-            if (key == null) {
-                key = (ch == ' ') ? CdpKey.Space : null;
-            }
-
-            if (key != null) {
-                this.cdpDriver.getCdpUtility().inputDispatchKeyEvent(
-                        "keyDown",
-                        this.cdpDriver.getCurrentModifierValue(),
-                        charStr, "",
-                        key.getCode(), charStr,
-                        key.getWindowsVirtualKeyCode(),
-                        key.getNativeVirtualKeyCode());
-                this.cdpDriver.getCdpUtility().inputDispatchKeyEvent(
-                        "keyUp",
-                        this.cdpDriver.getCurrentModifierValue(),
-                        charStr, "",
-                        key.getCode(), charStr,
-                        key.getWindowsVirtualKeyCode(),
-                        key.getNativeVirtualKeyCode());
-            } else {
-                // For characters not mapped in CdpKey (e.g. punctuation), send a
-                // raw char event using the Unicode code point as the virtual key code.
-                int vk = (int) ch;
-                this.cdpDriver.getCdpUtility().inputDispatchKeyEvent(
-                        "keyDown", this.cdpDriver.getCurrentModifierValue(),
-                        charStr, "", charStr, charStr, vk, vk);
-                this.cdpDriver.getCdpUtility().inputDispatchKeyEvent(
-                        "keyUp", this.cdpDriver.getCurrentModifierValue(),
-                        charStr, "", charStr, charStr, vk, vk);
-            }
-        }
+        CdpKeyboard.type(this.cdpDriver.getCdpUtility(), this.cdpDriver.getTypingMode(),
+                this.cdpDriver.getCurrentModifierValue(), text, Duration.ZERO);
         log.info("Sent keys: " + text);
     }
 
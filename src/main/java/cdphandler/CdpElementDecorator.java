@@ -0,0 +1,254 @@
+package cdphandler;
+
+import logger.Log;
+import logger.Logger;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Hand-written equivalent of {@link CdpElementProxy}: logs each call and wraps
+ * returned elements, with plain virtual calls instead of {@code Method.invoke}.
+ * The log message is only formatted when INFO is enabled.
+ */
+final class CdpElementDecorator implements ICdpElement {
+    private static final Logger log = Log.getLogger(CdpElementDecorator.class);
+
+    private final ICdpElement cdpElement;
+
+    CdpElementDecorator(ICdpElement cdpElement) {
+        this.cdpElement = cdpElement;
+    }
+
+    private void called(String method) {
+        log.info("Calling element method: {}", method);
+    }
+
+    private void called(String method, Object argument) {
+        log.info("Calling element method: {} with args: [{}]", method, argument);
+    }
+
+    private void called(String method, Object first, Object second) {
+        log.info("Calling element method: {} with args: [{}, {}]", method, first, second);
+    }
+
+    @Override
+    public String captureScreenshot() {
+        called("captureScreenshot");
+        return cdpElement.captureScreenshot();
+    }
+
+    @Override
+    public void clear() {
+        called("clear");
+        cdpElement.clear();
+    }
+
+    @Override
+    public void click() {
+        called("click");
+        cdpElement.click();
+    }
+
+    @Override
+    public void doubleClick() {
+        called("doubleClick");
+        cdpElement.doubleClick();
+    }
+
+    @Override
+    public void dragDrop(int xOffset, int yOffset) {
+        called("dragDrop", xOffset, yOffset);
+        cdpElement.dragDrop(xOffset, yOffset);
+    }
+
+    @Override
+    public ICdpElement findElement(CdpBy by) {
+        called("findElement", by);
+        return CdpDriverDecorator.wrap(cdpElement.findElement(by));
+    }
+
+    @Override
+    public ICdpElement findElement(CdpBy by, Duration duration) {
+        called("findElement", by, duration);
+        return CdpDriverDecorator.wrap(cdpElement.findElement(by, duration));
+    }
+
+    @Override
+    public List<ICdpElement> findElements(CdpBy by) {
+        called("findElements", by);
+        return CdpDriverDecorator.wrap(cdpElement.findElements(by));
+    }
+
+    @Override
+    public List<ICdpElement> findElements(CdpBy by, Duration duration) {
+        called("findElements", by, duration);
+        return CdpDriverDecorator.wrap(cdpElement.findElements(by, duration));
+    }
+
+    @Override
+    public String getAttribute(String attributeName) {
+        called("getAttribute", attributeName);
+        return cdpElement.getAttribute(attributeName);
+    }
+
+    @Override
+    public CdpBy getBy() {
+        called("getBy");
+        return cdpElement.getBy();
+    }
+
+    @Override
+    public ICdpDriver getCdpDriver() {
+        called("getCdpDriver");
+        return cdpElement.getCdpDriver();
+    }
+
+    @Override
+    public CdpPoint getCenterLocation() {
+        called("getCenterLocation");
+        return cdpElement.getCenterLocation();
+    }
+
+    @Override
+    public String getCssValue(String propertyName) {
+        called("getCssValue", propertyName);
+        return cdpElement.getCssValue(propertyName);
+    }
+
+    @Override
+    public CdpPoint getLocation() {
+        called("getLocation");
+        return cdpElement.getLocation();
+    }
+
+    @Override
+    public CdpRect getRect() {
+        called("getRect");
+        return cdpElement.getRect();
+    }
+
+    @Override
+    public String getReferenceId() {
+        called("getReferenceId");
+        return cdpElement.getReferenceId();
+    }
+
+    @Override
+    public int getScrollHeight() {
+        called("getScrollHeight");
+        return cdpElement.getScrollHeight();
+    }
+
+    @Override
+    public int getScrollLeft() {
+        called("getScrollLeft");
+        return cdpElement.getScrollLeft();
+    }
+
+    @Override
+    public int getScrollTop() {
+        called("getScrollTop");
+        return cdpElement.getScrollTop();
+    }
+
+    @Override
+    public CdpDimension getSize() {
+        called("getSize");
+        return cdpElement.getSize();
+    }
+
+    @Override
+    public String getText() {
+        called("getText");
+        return cdpElement.getText();
+    }
+
+    @Override
+    public boolean isDisplayed() {
+        called("isDisplayed");
+        return cdpElement.isDisplayed();
+    }
+
+    @Override
+    public boolean isElementActionable() {
+        called("isElementActionable");
+        return cdpElement.isElementActionable();
+    }
+
+    @Override
+    public boolean isElementActionable(Duration timeout) {
+        called("isElementActionable", timeout);
+        return cdpElement.isElementActionable(timeout);
+    }
+
+    @Override
+    public boolean isElementObscured() {
+        called("isElementObscured");
+        return cdpElement.isElementObscured();
+    }
+
+    @Override
+    public boolean isElementPresent(CdpBy by) {
+        called("isElementPresent", by);
+        return cdpElement.isElementPresent(by);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        called("isEnabled");
+        return cdpElement.isEnabled();
+    }
+
+    @Override
+    public boolean isSelected() {
+        called("isSelected");
+        return cdpElement.isSelected();
+    }
+
+    @Override
+    public void mouseMove() {
+        called("mouseMove");
+        cdpElement.mouseMove();
+    }
+
+    @Override
+    public void mouseMove(int xOffset, int yOffset) {
+        called("mouseMove", xOffset, yOffset);
+        cdpElement.mouseMove(xOffset, yOffset);
+    }
+
+    @Override
+    public void scrollBy(int x, int y) {
+        called("scrollBy", x, y);
+        cdpElement.scrollBy(x, y);
+    }
+
+    @Override
+    public void scrollIntoView() {
+        called("scrollIntoView");
+        cdpElement.scrollIntoView();
+    }
+
+    @Override
+    public void sendKeys(String text) {
+        called("sendKeys", text);
+        cdpElement.sendKeys(text);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        // Never equal to a raw element: CdpElement.equals only accepts a CdpElement
+        return object instanceof CdpElementDecorator decorator && cdpElement.equals(decorator.cdpElement);
+    }
+
+    @Override
+    public int hashCode() {
+        return cdpElement.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return cdpElement.toString();
+    }
+}
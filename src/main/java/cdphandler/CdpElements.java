@@ -0,0 +1,98 @@
+package cdphandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * An immutable list of elements whose properties can be read in bulk.
+ * <p>
+ * Each read runs one helper over every element in a single {@code Runtime}
+ * call per driver, instead of one round trip per element, so checking a table
+ * of a few hundred cells costs about as much as checking one.
+ *
+ * <pre>
+ * CdpElements cells = CdpElements.of(cdp.findElements(CdpBy.ByCssSelector("cells", "td")));
+ * List&lt;String&gt; texts = cells.texts();
+ * </pre>
+ * <p>
+ * Results are in list order. An entry is {@code null} where the element is no
+ * longer in the page or the read failed for it.
+ */
+public final class CdpElements extends AbstractList<ICdpElement> {
+    private final List<ICdpElement> elements;
+
+    private CdpElements(List<ICdpElement> elements) {
+        this.elements = elements;
+    }
+
+    public static CdpElements of(List<? extends ICdpElement> elements) {
+        return new CdpElements(List.copyOf(elements));
+    }
+
+    @Override
+    public ICdpElement get(int index) {
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * Returns the {@code innerText} of each element, as {@link ICdpElement#getText()} does.
+     */
+    public List<String> texts() {
+        return read("property", JsonNode::asText, "innerText");
+    }
+
+    /**
+     * Returns the value of attribute {@code name} of each element, {@code null}
+     * where it is not set.
+     */
+    public List<String> attributes(String name) {
+        return read("attribute", JsonNode::asText, name);
+    }
+
+    /**
+     * Returns the computed value of CSS property {@code propertyName} of each element.
+     */
+    public List<String> cssValues(String propertyName) {
+        return read("cssValue", JsonNode::asText, propertyName);
+    }
+
+    /**
+     * Returns the rect of each element, as {@link ICdpElement#getRect()} does.
+     */
+    public List<CdpRect> rects() {
+        return read("rect", CdpRect::new);
+    }
+
+    private <T> List<T> read(String function, Function<JsonNode, T> mapper, Object... args) {
+        List<T> values = new ArrayList<>(Collections.nCopies(elements.size(), null));
+        // Elements may come from several drivers; one call per driver
+        Map<ICdpDriver, List<Integer>> byDriver = new LinkedHashMap<>();
+        for (int i = 0; i < elements.size(); i++) {
+            byDriver.computeIfAbsent(elements.get(i).getCdpDriver(), driver -> new ArrayList<>()).add(i);
+        }
+        byDriver.forEach((driver, indices) -> {
+            List<String> references = new ArrayList<>(indices.size());
+            for (int index : indices) {
+                references.add(elements.get(index).getReferenceId());
+            }
+            List<JsonNode> results = driver.getCdpUtility().getHelperRuntime().batch(function, references, args);
+            for (int i = 0; i < indices.size(); i++) {
+                JsonNode result = results.get(i);
+                values.set(indices.get(i), result == null ? null : mapper.apply(result));
+            }
+        });
+        return values;
+    }
+}
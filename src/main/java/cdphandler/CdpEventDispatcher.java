@@ -0,0 +1,238 @@
+package cdphandler;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Delivers CDP events to listeners through one bounded queue per listener.
+ * <p>
+ * The connection's inbound thread only parses frames, completes command
+ * responses and enqueues events here; listeners run on a shared pool. A slow
+ * listener therefore fills its own queue, subject to its {@link CdpEventPolicy},
+ * instead of delaying command responses or other listeners. Each listener sees
+ * its events in arrival order and is never invoked concurrently with itself;
+ * the same listener registered for several methods shares one queue, so its
+ * relative ordering is preserved.
+ */
+final class CdpEventDispatcher {
+    /**
+     * Never waits: {@link #offer} runs on the inbound thread, which also completes
+     * command responses, so a full queue must not hold them back.
+     */
+    static final CdpEventPolicy DEFAULT_POLICY = CdpEventPolicy.DROP_OLDEST;
+    static final int DEFAULT_CAPACITY = 4096;
+
+    /** How long a {@link CdpEventPolicy#BLOCK} queue may stall the inbound thread before dropping. */
+    private static final long BLOCK_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final ExecutorService executor;
+    /** listener (by identity) → its queue; shared by every registration of that listener. */
+    private final ConcurrentHashMap<Object, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    CdpEventDispatcher() {
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "cdp-event-dispatch");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Returns the queue for {@code listener}, creating it with the given policy on
+     * first registration. Each call must be balanced by {@link #release(Object)}.
+     */
+    Mailbox acquire(Object listener, CdpEventPolicy policy, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        return mailboxes.compute(listener, (k, existing) -> {
+            Mailbox mailbox = existing != null ? existing : new Mailbox(listener.getClass().getName(), policy, capacity);
+            mailbox.registrations++;
+            return mailbox;
+        });
+    }
+
+    void release(Object listener) {
+        mailboxes.computeIfPresent(listener, (k, mailbox) -> --mailbox.registrations > 0 ? mailbox : null);
+    }
+
+    CdpDispatchStats stats() {
+        long sent = delivered.sum();
+        long average = sent == 0 ? 0 : totalLatencyNanos.sum() / sent;
+        return new CdpDispatchStats(sent, dropped.sum(), depth.get(), Duration.ofNanos(average),
+                Duration.ofNanos(maxLatencyNanos.get()));
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Bounded FIFO of deliveries for a single listener, drained by at most one
+     * pool thread at a time.
+     */
+    final class Mailbox {
+        private final String listenerName;
+        private final CdpEventPolicy policy;
+        private final int capacity;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notFull = lock.newCondition();
+        private final ArrayDeque<Delivery> queue = new ArrayDeque<>();
+        /** Queued delivery per method, for {@link CdpEventPolicy#COALESCE}. */
+        private final Map<String, Delivery> queuedByMethod = new HashMap<>();
+        private boolean draining;
+        /** Guarded by the {@code mailboxes} map's compute lock. */
+        private int registrations;
+
+        private Mailbox(String listenerName, CdpEventPolicy policy, int capacity) {
+            this.listenerName = listenerName;
+            this.policy = policy;
+            this.capacity = capacity;
+        }
+
+        /**
+         * Queues {@code action} for this listener.
+         *
+         * @param method     Event method, used as the coalescing key.
+         * @param receivedAt {@link System#nanoTime()} when the frame arrived.
+         * @param action     Invokes the listener.
+         */
+        void offer(String method, long receivedAt, Runnable action) {
+            lock.lock();
+            try {
+                if (policy == CdpEventPolicy.COALESCE && method != null) {
+                    Delivery queued = queuedByMethod.get(method);
+                    if (queued != null) {
+                        queued.action = action;
+                        dropped.increment();
+                        return;
+                    }
+                }
+                if (queue.size() >= capacity && !makeRoom()) {
+                    dropped.increment();
+                    return;
+                }
+                Delivery delivery = new Delivery(method, receivedAt, action);
+                queue.addLast(delivery);
+                depth.incrementAndGet();
+                if (policy == CdpEventPolicy.COALESCE && method != null) {
+                    queuedByMethod.put(method, delivery);
+                }
+                if (!draining) {
+                    draining = true;
+                    schedule();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Called with the lock held and the queue full; returns false if the new event must be dropped. */
+        private boolean makeRoom() {
+            if (policy == CdpEventPolicy.BLOCK) {
+                long remaining = BLOCK_TIMEOUT_NANOS;
+                try {
+                    while (queue.size() >= capacity) {
+                        if (remaining <= 0) {
+                            return false;
+                        }
+                        remaining = notFull.awaitNanos(remaining);
+                    }
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            Delivery oldest = queue.pollFirst();
+            depth.decrementAndGet();
+            dropped.increment();
+            if (oldest != null && oldest.method != null) {
+                queuedByMethod.remove(oldest.method, oldest);
+            }
+            return true;
+        }
+
+        private void schedule() {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Dispatcher shut down with the connection; discard what is queued
+                dropped.add(queue.size());
+                depth.addAndGet(-queue.size());
+                queue.clear();
+                queuedByMethod.clear();
+                draining = false;
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Delivery delivery;
+                lock.lock();
+                try {
+                    delivery = queue.pollFirst();
+                    if (delivery == null) {
+                        draining = false;
+                        return;
+                    }
+                    depth.decrementAndGet();
+                    if (delivery.method != null) {
+                        queuedByMethod.remove(delivery.method, delivery);
+                    }
+                    notFull.signal();
+                } finally {
+                    lock.unlock();
+                }
+                long latency = System.nanoTime() - delivery.receivedAt;
+                delivered.increment();
+                totalLatencyNanos.add(latency);
+                maxLatencyNanos.accumulateAndGet(latency, Math::max);
+                CdpJfrEvents.EventDispatch event = new CdpJfrEvents.EventDispatch();
+                event.begin();
+                try {
+                    delivery.action.run();
+                } catch (Exception ex) {
+                    // swallow listener exceptions so one listener cannot stall its queue
+                }
+                event.end();
+                if (event.shouldCommit()) {
+                    event.method = delivery.method;
+                    event.listener = listenerName;
+                    event.queueTime = latency;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    private static final class Delivery {
+        private final String method;
+        private final long receivedAt;
+        /** Replaced in place when a newer event is coalesced into this slot. */
+        private Runnable action;
+
+        private Delivery(String method, long receivedAt, Runnable action) {
+            this.method = method;
+            this.receivedAt = receivedAt;
+            this.action = action;
+        }
+    }
+}
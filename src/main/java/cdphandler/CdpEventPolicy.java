@@ -0,0 +1,24 @@
+package cdphandler;
+
+/**
+ * What a listener's event queue does when events arrive faster than the
+ * listener consumes them. See {@link CdpClient#on(String, java.util.function.Consumer, CdpEventPolicy, int)}.
+ */
+public enum CdpEventPolicy {
+    /**
+     * Wait for room in the queue. Nothing is lost, but the connection's inbound
+     * thread stalls while it waits, delaying every other frame; if the queue is
+     * still full after a few seconds the event is dropped and counted. Only for
+     * listeners that must not lose events and never call blocking commands.
+     */
+    BLOCK,
+    /**
+     * Discard the oldest queued event to make room for the new one. The default.
+     */
+    DROP_OLDEST,
+    /**
+     * Replace a still-queued event of the same method with the newer one, so the
+     * listener only sees the latest state (e.g. progress or frame events).
+     */
+    COALESCE
+}
@@ -0,0 +1,319 @@
+package cdphandler;
+
+import logger.Log;
+import logger.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Always-on recorder of CDP traffic, kept in a fixed-size memory-mapped ring file.
+ * <p>
+ * Every frame sent or received by a {@link CdpClient} connection is written as a
+ * {@value #SLOT_SIZE}-byte record: timestamp, direction, id, method, full payload
+ * length and the first {@value #MAX_PAYLOAD_BYTES} bytes of the payload. Writing
+ * a record is a handful of absolute buffer puts, so the recorder can stay on
+ * where verbose command logging is too expensive; the last
+ * {@value #DEFAULT_SLOTS} frames can then be {@linkplain #dump(Path) dumped} when
+ * a test fails, or read back from the ring file with
+ * {@code tools.CdpFlightRecorderReader}.
+ * <p>
+ * Controlled by system properties: {@code cdp.flightRecorder} ({@code true} by
+ * default), {@code cdp.flightRecorder.dir} (default
+ * {@code ${java.io.tmpdir}/cdp-flight}) and {@code cdp.flightRecorder.keep}; ring
+ * files are deleted when the connection closes unless {@code keep} is
+ * {@code true}. A mapped file cannot be deleted on Windows, so the first recorder
+ * opened in a process also deletes the ring files of processes that have exited.
+ */
+public final class CdpFlightRecorder implements AutoCloseable {
+    /** Direction of a recorded frame. */
+    public enum Direction {
+        SENT, RECEIVED
+    }
+
+    /**
+     * One recorded frame.
+     *
+     * @param sequence    Position in the recording, increasing across wrap-arounds.
+     * @param timestamp   When the frame was recorded.
+     * @param direction   Sent or received.
+     * @param id          Command id, or -1 for events.
+     * @param method      CDP method, or empty for responses.
+     * @param size        Length of the full payload in characters.
+     * @param payload     The start of the payload.
+     */
+    public record Entry(long sequence, Instant timestamp, Direction direction, int id, String method, int size,
+            String payload) {
+        @Override
+        public String toString() {
+            return timestamp + " " + (direction == Direction.SENT ? ">>" : "<<") + " id=" + id + " " + method
+                    + " (" + size + " chars) " + payload + (payload.length() < size ? "..." : "");
+        }
+    }
+
+    static final int SLOT_SIZE = 512;
+    static final int DEFAULT_SLOTS = 4096;
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC = 0x43445046; // "CDPF"
+    private static final int VERSION = 1;
+
+    // Slot layout
+    private static final int SEQ = 0;
+    private static final int TIMESTAMP = 8;
+    private static final int DIRECTION = 16;
+    private static final int ID = 17;
+    private static final int SIZE = 21;
+    private static final int METHOD_LENGTH = 25;
+    private static final int METHOD = 26;
+    private static final int MAX_METHOD_BYTES = 64;
+    private static final int PAYLOAD_LENGTH = METHOD + MAX_METHOD_BYTES;
+    private static final int PAYLOAD = PAYLOAD_LENGTH + 2;
+    static final int MAX_PAYLOAD_BYTES = SLOT_SIZE - PAYLOAD;
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("cdp.flightRecorder", "true"));
+    private static final boolean KEEP = Boolean.parseBoolean(System.getProperty("cdp.flightRecorder.keep", "false"));
+    private static final AtomicInteger FILE_COUNTER = new AtomicInteger();
+    private static final AtomicBoolean SWEPT = new AtomicBoolean();
+    private static final Pattern RING_FILE = Pattern.compile("cdp-(\\d+)-\\d+\\.ring");
+    private static final String FAILURE_DIR = "target/flight-recorder";
+    private static final Logger log = Log.getLogger(CdpFlightRecorder.class);
+
+    private final Path file;
+    private final int slots;
+    private final MappedByteBuffer buffer;
+    private final AtomicLong sequence = new AtomicLong();
+    private final boolean deleteOnClose;
+
+    private CdpFlightRecorder(Path file, int slots, MappedByteBuffer buffer, boolean deleteOnClose) {
+        this.file = file;
+        this.slots = slots;
+        this.buffer = buffer;
+        this.deleteOnClose = deleteOnClose;
+    }
+
+    /**
+     * Opens a ring file for a new connection according to the system properties,
+     * or returns {@code null} if the recorder is disabled or the file cannot be
+     * created.
+     */
+    static CdpFlightRecorder openDefault() {
+        if (!ENABLED) {
+            return null;
+        }
+        Path dir = Paths.get(System.getProperty("cdp.flightRecorder.dir",
+                Paths.get(System.getProperty("java.io.tmpdir"), "cdp-flight").toString()));
+        if (!KEEP && SWEPT.compareAndSet(false, true)) {
+            deleteStaleFiles(dir);
+        }
+        String name = "cdp-" + ProcessHandle.current().pid() + "-" + FILE_COUNTER.incrementAndGet() + ".ring";
+        try {
+            return open(dir.resolve(name), DEFAULT_SLOTS, !KEEP);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the ring files in {@code dir} whose process is no longer running;
+     * their recorders could not delete them while the files were mapped.
+     */
+    static void deleteStaleFiles(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "cdp-*.ring")) {
+            for (Path file : files) {
+                Matcher matcher = RING_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches() && ProcessHandle.of(Long.parseLong(matcher.group(1))).isEmpty()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to delete stale flight recorder files in {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Creates (or truncates) a ring file with the given number of slots.
+     *
+     * @param file          The ring file.
+     * @param slots         Number of records kept before the oldest is overwritten.
+     * @param deleteOnClose Whether {@link #close()} deletes the file.
+     */
+    public static CdpFlightRecorder open(Path file, int slots, boolean deleteOnClose) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        long length = HEADER_SIZE + (long) slots * SLOT_SIZE;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, SLOT_SIZE);
+            buffer.putInt(12, slots);
+            return new CdpFlightRecorder(file, slots, buffer, deleteOnClose);
+        }
+    }
+
+    /**
+     * Reads every intact record from a ring file, oldest first.
+     *
+     * @param file A file written by a recorder, possibly from a process that died.
+     */
+    public static List<Entry> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != SLOT_SIZE) {
+                throw new IOException("Not a CDP flight recorder file: " + file);
+            }
+            return entries(buffer, buffer.getInt(12));
+        }
+    }
+
+    /** Path of the ring file. */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Records a frame. Safe to call from any thread.
+     *
+     * @param direction Sent or received.
+     * @param id        Command id, or -1 for events.
+     * @param method    CDP method, or {@code null} for responses.
+     * @param payload   The full frame text; only its start is kept.
+     */
+    void record(Direction direction, int id, String method, String payload) {
+        long seq = sequence.getAndIncrement();
+        int base = HEADER_SIZE + (int) (seq % slots) * SLOT_SIZE;
+        // Invalidate the slot first so a reader never mixes two records
+        buffer.putLong(base + SEQ, 0);
+        buffer.putLong(base + TIMESTAMP, System.currentTimeMillis());
+        buffer.put(base + DIRECTION, (byte) direction.ordinal());
+        buffer.putInt(base + ID, id);
+        buffer.putInt(base + SIZE, payload.length());
+        byte[] methodBytes = method == null ? new byte[0] : method.getBytes(StandardCharsets.US_ASCII);
+        int methodLength = Math.min(methodBytes.length, MAX_METHOD_BYTES);
+        buffer.put(base + METHOD_LENGTH, (byte) methodLength);
+        buffer.put(base + METHOD, methodBytes, 0, methodLength);
+        byte[] payloadBytes = payload.substring(0, Math.min(payload.length(), MAX_PAYLOAD_BYTES))
+                .getBytes(StandardCharsets.UTF_8);
+        int payloadLength = Math.min(payloadBytes.length, MAX_PAYLOAD_BYTES);
+        buffer.putShort(base + PAYLOAD_LENGTH, (short) payloadLength);
+        buffer.put(base + PAYLOAD, payloadBytes, 0, payloadLength);
+        buffer.putLong(base + SEQ, seq + 1);
+    }
+
+    /**
+     * Returns the recorded frames still in the ring, oldest first.
+     */
+    public List<Entry> snapshot() {
+        return entries(buffer, slots);
+    }
+
+    /**
+     * Writes the recorded frames as text, oldest first, one per line.
+     *
+     * @param target File to create or overwrite.
+     */
+    public void dump(Path target) {
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+                for (Entry entry : snapshot()) {
+                    writer.write(entry.toString());
+                    writer.write(System.lineSeparator());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to dump flight recorder to " + target, e);
+        }
+    }
+
+    /**
+     * Writes the recent CDP traffic of {@code driver} to
+     * {@code target/flight-recorder/<name>.txt}, for test listeners reporting a
+     * failure. Does nothing without a driver or recorder, and never throws.
+     *
+     * @param driver The driver of the failed test, or {@code null}.
+     * @param name   File name without extension, e.g. {@code <TestClass>_<method>}.
+     */
+    public static void dumpOnFailure(ICdpDriver driver, String name) {
+        if (driver == null) {
+            return;
+        }
+        try {
+            CdpFlightRecorder recorder = driver.getCdpUtility().getClient().getFlightRecorder();
+            if (recorder != null) {
+                recorder.dump(Paths.get(FAILURE_DIR, name + ".txt"));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to dump CDP flight recorder: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Flushes the ring file and deletes it unless it is being kept. Where the
+     * delete fails because the file is still mapped (Windows), a later process
+     * deletes it, see {@link #openDefault()}.
+     */
+    @Override
+    public void close() {
+        buffer.force();
+        if (deleteOnClose) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static List<Entry> entries(ByteBuffer buffer, int slots) {
+        List<Entry> entries = new ArrayList<>();
+        for (int slot = 0; slot < slots; slot++) {
+            int base = HEADER_SIZE + slot * SLOT_SIZE;
+            long marker = buffer.getLong(base + SEQ);
+            if (marker == 0) {
+                continue;
+            }
+            Instant timestamp = Instant.ofEpochMilli(buffer.getLong(base + TIMESTAMP));
+            Direction direction = Direction.values()[buffer.get(base + DIRECTION) & 1];
+            int id = buffer.getInt(base + ID);
+            int size = buffer.getInt(base + SIZE);
+            byte[] method = new byte[Math.min(buffer.get(base + METHOD_LENGTH) & 0xFF, MAX_METHOD_BYTES)];
+            buffer.get(base + METHOD, method);
+            byte[] payload = new byte[Math.min(buffer.getShort(base + PAYLOAD_LENGTH) & 0xFFFF, MAX_PAYLOAD_BYTES)];
+            buffer.get(base + PAYLOAD, payload);
+            // Skip slots that were rewritten while we copied them
+            if (buffer.getLong(base + SEQ) != marker) {
+                continue;
+            }
+            entries.add(new Entry(marker - 1, timestamp, direction, id, new String(method, StandardCharsets.US_ASCII),
+                    size, new String(payload, StandardCharsets.UTF_8)));
+        }
+        entries.sort(Comparator.comparingLong(Entry::sequence));
+        return entries;
+    }
+}
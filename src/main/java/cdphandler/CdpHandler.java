@@ -5,11 +5,33 @@ import logger.Logger;
 
 import java.lang.reflect.Proxy;
 
+/**
+ * Creates drivers and elements wrapped with natural-language locator resolution
+ * and call logging. The wrappers are the hand-written {@link CdpDriverDecorator}
+ * and {@link CdpElementDecorator}; {@code -Dcdp.reflectiveProxies=true} switches
+ * back to the {@link OllamaProxy} and {@link CdpElementProxy} dynamic proxies.
+ */
 public class CdpHandler {
     private static final Logger log = Log.getLogger(CdpHandler.class);
+    private static final boolean REFLECTIVE_PROXIES = Boolean.parseBoolean(
+            System.getProperty("cdp.reflectiveProxies", "false"));
 
     public static ICdpDriver createDriver(String websocketDebuggerAddress) {
-        CdpDriver cdpDriver = new CdpDriver(websocketDebuggerAddress);
+        return createDriver(new CdpDriver(websocketDebuggerAddress));
+    }
+
+    /**
+     * Creates a driver that issues its commands through the given client, e.g. a
+     * session-bound client from {@link CdpClient#attachToTarget(String)}.
+     */
+    public static ICdpDriver createDriver(CdpClient client) {
+        return createDriver(new CdpDriver(client));
+    }
+
+    private static ICdpDriver createDriver(CdpDriver cdpDriver) {
+        if (!REFLECTIVE_PROXIES) {
+            return new CdpDriverDecorator(cdpDriver);
+        }
         return (ICdpDriver) Proxy.newProxyInstance(
                 ICdpDriver.class.getClassLoader(),
                 new Class<?>[] { ICdpDriver.class },
@@ -49,6 +71,9 @@ public class CdpHandler {
     }
 
     public static ICdpElement createElement(ICdpElement cdpElement) {
+        if (!REFLECTIVE_PROXIES) {
+            return new CdpElementDecorator(cdpElement);
+        }
         return (ICdpElement) Proxy.newProxyInstance(
                 ICdpElement.class.getClassLoader(),
                 new Class<?>[] { ICdpElement.class },
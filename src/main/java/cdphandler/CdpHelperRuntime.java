@@ -0,0 +1,414 @@
+package cdphandler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The {@link CdpScripts#HELPER_RUNTIME_SCRIPT} helper library for one page target.
+ * <p>
+ * The library is registered with {@code Page.addScriptToEvaluateOnNewDocument},
+ * so every new document gets it before its own scripts run, and evaluated once in
+ * the current document. Element and locator calls then send an expression such as
+ * {@code __cdp.rect("1699_ab12")} instead of a full script; V8 compiles a few dozen
+ * bytes per call instead of re-parsing a whole script. If a document somehow lacks
+ * the library (e.g. it was created before {@link #install()}), the call installs
+ * it there and retries once.
+ * <p>
+ * Elements are referenced in one of two ways. By default a reference is an id in
+ * the page's {@code document.cdpElements} registry, which an in-page interval
+ * prunes of detached nodes. With {@code -Dcdp.remoteObjectHandles=true} a
+ * reference is instead a CDP {@code objectId} in the {@value #OBJECT_GROUP}
+ * object group, helpers run through {@code Runtime.callFunctionOn}, and nothing is
+ * kept or polled in the page; the group is released in bulk by
+ * {@link #releaseElements()} on navigation and at the start of each test.
+ */
+final class CdpHelperRuntime {
+    static final String NAME = "__cdp";
+    static final String OBJECT_GROUP = "cdp-elements";
+    private static final boolean REMOTE_OBJECT_HANDLES = Boolean.parseBoolean(
+            System.getProperty("cdp.remoteObjectHandles", "false"));
+    private static final boolean MUTATION_WAITS = Boolean.parseBoolean(
+            System.getProperty("cdp.mutationWaits", "false"));
+    static final String WATCH_BINDING = "__cdpWatch";
+    /** Polling interval of a watched wait, for changes the observer cannot see (e.g. a new document). */
+    static final Duration WATCH_INTERVAL = Duration.ofSeconds(1);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final CdpUtility cdpUtility;
+    private final boolean remoteObjectHandles;
+    private final CdpLocatorCache locatorCache = new CdpLocatorCache();
+    private volatile boolean registered;
+    private volatile boolean watchersEnabled = MUTATION_WAITS;
+    private volatile boolean bindingAdded;
+    private final Map<String, CdpWait> watches = new ConcurrentHashMap<>();
+    private final AtomicLong watchIds = new AtomicLong();
+
+    CdpHelperRuntime(CdpUtility cdpUtility) {
+        this(cdpUtility, REMOTE_OBJECT_HANDLES);
+    }
+
+    CdpHelperRuntime(CdpUtility cdpUtility, boolean remoteObjectHandles) {
+        this.cdpUtility = cdpUtility;
+        this.remoteObjectHandles = remoteObjectHandles;
+    }
+
+    /**
+     * Registers the library for future documents and installs it in the current one.
+     */
+    void install() {
+        if (!registered) {
+            registered = true;
+            cdpUtility.pageAddScriptToEvaluateOnNewDocument(CdpScripts.HELPER_RUNTIME_SCRIPT);
+        }
+        cdpUtility.runtimeEvaluate(CdpScripts.HELPER_RUNTIME_SCRIPT, false);
+    }
+
+    boolean usesRemoteObjectHandles() {
+        return remoteObjectHandles;
+    }
+
+    /**
+     * Calls a helper and returns the unwrapped {@code Runtime.evaluate} result, as
+     * {@link CdpUtility#runtimeEvaluate(String, boolean)} does.
+     *
+     * @param function      Helper name, e.g. {@code "rect"}.
+     * @param returnByValue Whether to return the result by value.
+     * @param args          Arguments, serialised as JSON literals.
+     */
+    JsonNode call(String function, boolean returnByValue, Object... args) {
+        String expression = expression(function, args);
+        JsonNode result = cdpUtility.runtimeEvaluate(expression, returnByValue);
+        if (isMissing(result)) {
+            install();
+            result = cdpUtility.runtimeEvaluate(expression, returnByValue);
+        }
+        return result;
+    }
+
+    /**
+     * Calls an element helper on the element behind {@code reference}.
+     *
+     * @param function      Helper name, e.g. {@code "rect"}.
+     * @param returnByValue Whether to return the result by value.
+     * @param reference     Element reference returned by {@link #find}.
+     * @param args          Further helper arguments.
+     */
+    JsonNode callElement(String function, boolean returnByValue, String reference, Object... args) {
+        if (!remoteObjectHandles) {
+            Object[] callArgs = new Object[args.length + 1];
+            callArgs[0] = reference;
+            System.arraycopy(args, 0, callArgs, 1, args.length);
+            return call(function, returnByValue, callArgs);
+        }
+        String declaration = "function(...a) { return " + NAME + ".node." + function + "(this, ...a); }";
+        JsonNode result = cdpUtility.runtimeCallFunctionOn(reference, declaration, Arrays.asList(args),
+                returnByValue, null);
+        if (isMissing(result)) {
+            install();
+            result = cdpUtility.runtimeCallFunctionOn(reference, declaration, Arrays.asList(args), returnByValue,
+                    null);
+        }
+        return result;
+    }
+
+    /**
+     * Calls an element helper on each element in {@code references} in one
+     * round trip. In remote object mode, a batch the browser rejects as a whole,
+     * e.g. one mixing elements of several frames, falls back to one call per
+     * element.
+     *
+     * @param function   Helper name, e.g. {@code "rect"}.
+     * @param references Element references returned by {@link #find}.
+     * @param args       Further helper arguments, the same for every element.
+     * @return One result per reference, {@code null} where the element is gone or
+     * the helper threw.
+     */
+    List<JsonNode> batch(String function, List<String> references, Object... args) {
+        List<JsonNode> values = new ArrayList<>(Collections.nCopies(references.size(), null));
+        if (references.isEmpty()) {
+            return values;
+        }
+        JsonNode result;
+        if (!remoteObjectHandles) {
+            result = call("batch", true, function, references, args);
+        } else {
+            String declaration = "function(f, a, ...e) { return " + NAME + ".node.batch(f, a, ...e); }";
+            List<Object> callArgs = List.of(function, Arrays.asList(args));
+            try {
+                result = cdpUtility.runtimeCallFunctionOn(references.getFirst(), declaration, callArgs, references,
+                        true, null);
+                if (isMissing(result)) {
+                    install();
+                    result = cdpUtility.runtimeCallFunctionOn(references.getFirst(), declaration, callArgs,
+                            references, true, null);
+                }
+            } catch (RuntimeException e) {
+                // One call cannot take objects from several frames or execution contexts,
+                // nor a released one; read each element on its own instead
+                for (int i = 0; i < references.size(); i++) {
+                    values.set(i, read(function, references.get(i), args));
+                }
+                return values;
+            }
+        }
+        JsonNode array = result == null ? null : result.get("value");
+        if (array != null && array.isArray()) {
+            for (int i = 0; i < array.size() && i < values.size(); i++) {
+                values.set(i, array.get(i).isNull() ? null : array.get(i));
+            }
+        }
+        return values;
+    }
+
+    /** Calls an element read on one remote object, {@code null} if it cannot be resolved or threw. */
+    private JsonNode read(String function, String reference, Object... args) {
+        try {
+            JsonNode result = callElement(function, true, reference, args);
+            JsonNode value = result == null ? null : result.get("value");
+            return value == null || value.isNull() ? null : value;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    CdpLocatorCache locatorCache() {
+        return locatorCache;
+    }
+
+    /**
+     * Finds elements below {@code reference}, or in the document when it is empty,
+     * going through the {@link CdpLocatorCache} when it is enabled. Finds below an
+     * element in a shadow root or a frame have no generation and always query.
+     *
+     * @return References to the matching elements, in document order.
+     */
+    List<String> find(String reference, String strategy, String locator) {
+        if (!locatorCache.isEnabled() || !CdpLocatorCache.cacheable(strategy, locator)) {
+            return query(reference, strategy, locator);
+        }
+        JsonNode result = reference.isEmpty() || !remoteObjectHandles
+                ? call("generation", true, reference)
+                : callElement("generation", true, reference);
+        JsonNode generation = result == null ? null : result.get("value");
+        if (generation == null || !generation.isTextual()) {
+            return query(reference, strategy, locator);
+        }
+        List<String> references = locatorCache.get(reference, strategy, locator, generation.asText());
+        if (references == null) {
+            references = query(reference, strategy, locator);
+            locatorCache.put(reference, strategy, locator, generation.asText(), references);
+        }
+        return references;
+    }
+
+    private List<String> query(String reference, String strategy, String locator) {
+        List<String> references = new ArrayList<>();
+        if (!remoteObjectHandles) {
+            JsonNode result = call("find", true, reference, strategy, locator);
+            JsonNode values = result == null ? null : result.get("value");
+            if (values != null && values.isArray()) {
+                values.forEach(value -> references.add(value.asText()));
+            }
+            return references;
+        }
+        JsonNode array = findInGroup(reference, strategy, locator);
+        if (isMissing(array)) {
+            install();
+            array = findInGroup(reference, strategy, locator);
+        }
+        for (JsonNode property : elements(array)) {
+            references.add(property.path("value").get("objectId").asText());
+        }
+        return references;
+    }
+
+    void setWatchersEnabled(boolean enabled) {
+        this.watchersEnabled = enabled;
+    }
+
+    /**
+     * Waits until {@link #find} returns at least one element or {@code timeout}
+     * elapses. With mutation waits enabled, the first miss installs a page-side
+     * watcher on the locator, and the wait then retries when the watcher reports a
+     * change instead of on its own backoff.
+     *
+     * @return References to the matching elements, empty if none appeared in time.
+     */
+    List<String> awaitFind(String reference, String strategy, String locator, Duration timeout) {
+        AtomicReference<List<String>> found = new AtomicReference<>(List.of());
+        if (!watchersEnabled) {
+            cdpUtility.getWait().until(() -> !found.updateAndGet(f -> find(reference, strategy, locator)).isEmpty(),
+                    timeout);
+            return found.get();
+        }
+        String key = "w" + watchIds.incrementAndGet();
+        CdpWait wait = new CdpWait();
+        watches.put(key, wait);
+        try {
+            wait.until(() -> {
+                if (!found.updateAndGet(f -> find(reference, strategy, locator)).isEmpty()) {
+                    return true;
+                }
+                // Idempotent, and re-installs the watcher in a document that replaced the old one
+                watch(reference, key, strategy, locator);
+                return false;
+            }, timeout, WATCH_INTERVAL, WATCH_INTERVAL);
+        } finally {
+            watches.remove(key);
+            cdpUtility.runtimeEvaluateAsync(expression("unwatch", key), false);
+        }
+        return found.get();
+    }
+
+    private void watch(String reference, String key, String strategy, String locator) {
+        if (!bindingAdded) {
+            synchronized (this) {
+                if (!bindingAdded) {
+                    cdpUtility.getClient().on("Runtime.bindingCalled", this::onBindingCalled);
+                    cdpUtility.runtimeEnable();
+                    cdpUtility.runtimeAddBinding(WATCH_BINDING);
+                    bindingAdded = true;
+                }
+            }
+        }
+        if (reference.isEmpty() || !remoteObjectHandles) {
+            call("watch", true, reference, key, strategy, locator);
+        } else {
+            callElement("watch", true, reference, key, strategy, locator);
+        }
+    }
+
+    private void onBindingCalled(JsonNode event) {
+        JsonNode params = event.path("params");
+        if (WATCH_BINDING.equals(params.path("name").asText())) {
+            CdpWait wait = watches.get(params.path("payload").asText());
+            if (wait != null) {
+                wait.signal();
+            }
+        }
+    }
+
+    /**
+     * Finds the first element for each of several locators below {@code reference},
+     * or in the document when it is empty, in one call.
+     *
+     * @param queries {@code [strategy, locator]} pairs.
+     * @return One reference per query, {@code null} where nothing matched.
+     */
+    List<String> findFirst(String reference, List<List<String>> queries) {
+        List<String> references = new ArrayList<>(Collections.nCopies(queries.size(), null));
+        if (!remoteObjectHandles) {
+            JsonNode result = call("findFirst", true, reference, queries);
+            JsonNode values = result == null ? null : result.get("value");
+            if (values != null && values.isArray()) {
+                for (int i = 0; i < values.size() && i < references.size(); i++) {
+                    references.set(i, values.get(i).isTextual() ? values.get(i).asText() : null);
+                }
+            }
+            return references;
+        }
+        JsonNode array = findFirstInGroup(reference, queries);
+        if (isMissing(array)) {
+            install();
+            array = findFirstInGroup(reference, queries);
+        }
+        for (JsonNode property : elements(array)) {
+            references.set(Integer.parseInt(property.get("name").asText()),
+                    property.path("value").get("objectId").asText());
+        }
+        return references;
+    }
+
+    /**
+     * Expands a remote array of elements into its element properties, then
+     * releases the array itself. The elements stay in {@link #OBJECT_GROUP} until
+     * {@link #releaseElements()}; without the release every poll of a wait would
+     * leave one more array behind in the group.
+     */
+    private List<JsonNode> elements(JsonNode array) {
+        List<JsonNode> elements = new ArrayList<>();
+        if (array == null || !array.has("objectId")) {
+            return elements;
+        }
+        String objectId = array.get("objectId").asText();
+        try {
+            for (JsonNode property : cdpUtility.runtimeGetProperties(objectId).path("result")) {
+                JsonNode value = property.path("value");
+                if (property.path("enumerable").asBoolean() && "node".equals(value.path("subtype").asText())) {
+                    elements.add(property);
+                }
+            }
+        } finally {
+            cdpUtility.runtimeReleaseObjectAsync(objectId);
+        }
+        return elements;
+    }
+
+    private JsonNode findFirstInGroup(String reference, List<List<String>> queries) {
+        if (reference.isEmpty()) {
+            return cdpUtility.runtimeEvaluateInGroup(NAME + ".node.findFirst(document," + json(queries) + ")",
+                    OBJECT_GROUP);
+        }
+        return cdpUtility.runtimeCallFunctionOn(reference,
+                "function(q) { return " + NAME + ".node.findFirst(this, q); }", List.of(queries), false,
+                OBJECT_GROUP);
+    }
+
+    private JsonNode findInGroup(String reference, String strategy, String locator) {
+        if (reference.isEmpty()) {
+            return cdpUtility.runtimeEvaluateInGroup(
+                    NAME + ".node.find(document," + json(strategy) + "," + json(locator) + ")", OBJECT_GROUP);
+        }
+        return cdpUtility.runtimeCallFunctionOn(reference,
+                "function(s, l) { return " + NAME + ".node.find(this, s, l); }", List.of(strategy, locator), false,
+                OBJECT_GROUP);
+    }
+
+    /**
+     * Releases every element handle handed out so far and empties the locator
+     * cache. Existing {@link CdpElement}s become stale in remote object mode; in
+     * registry mode the page prunes itself.
+     */
+    void releaseElements() {
+        locatorCache.clear();
+        if (remoteObjectHandles) {
+            cdpUtility.runtimeReleaseObjectGroup(OBJECT_GROUP);
+        }
+    }
+
+    static String expression(String function, Object... args) {
+        StringBuilder sb = new StringBuilder(NAME).append('.').append(function).append('(');
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(json(args[i]));
+        }
+        return sb.append(')').toString();
+    }
+
+    private static String json(Object value) {
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialise helper argument " + value, e);
+        }
+    }
+
+    /** True if the evaluation failed because the document has no helper library. */
+    static boolean isMissing(JsonNode result) {
+        return result != null && "ReferenceError".equals(result.path("className").asText())
+                && result.path("description").asText().contains(NAME + " is not defined");
+    }
+}
@@ -0,0 +1,121 @@
+package cdphandler;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event types emitted by the CDP stack.
+ * <p>
+ * Enable them in a recording with e.g.
+ * {@code -XX:StartFlightRecording:filename=test.jfr} (all are on in the
+ * {@code default} settings) and look under the "CDP" category in JDK Mission
+ * Control. When no recording is running, emitting one costs an allocation that
+ * the JIT usually removes and an {@code isEnabled()} check; fields are only
+ * filled in after {@code shouldCommit()}.
+ */
+public final class CdpJfrEvents {
+
+    private CdpJfrEvents() {
+    }
+
+    @Name("cdphandler.Command")
+    @Label("CDP Command")
+    @Category({ "CDP", "Protocol" })
+    @Description("Round trip of a CDP command, from send to response or timeout")
+    public static final class Command extends Event {
+        @Label("Method")
+        public String method;
+
+        @Label("Id")
+        public int id;
+
+        @Label("Request Size")
+        @DataAmount
+        public long requestBytes;
+
+        @Label("Response Size")
+        @DataAmount
+        public long responseBytes;
+
+        @Label("Outcome")
+        @Description("completed, timeout or closed")
+        public String outcome;
+    }
+
+    @Name("cdphandler.EventDispatch")
+    @Label("CDP Event Dispatch")
+    @Category({ "CDP", "Protocol" })
+    @Description("A listener handling one CDP event")
+    public static final class EventDispatch extends Event {
+        @Label("Method")
+        public String method;
+
+        @Label("Listener")
+        public String listener;
+
+        @Label("Queue Time")
+        @Description("Time from frame arrival until the listener was invoked")
+        @Timespan(Timespan.NANOSECONDS)
+        public long queueTime;
+    }
+
+    @Name("cdphandler.ElementAction")
+    @Label("Element Action")
+    @Category({ "CDP", "Driver" })
+    public static final class ElementAction extends Event {
+        @Label("Action")
+        public String action;
+
+        @Label("Locator")
+        public String locator;
+    }
+
+    @Name("cdphandler.Wait")
+    @Label("Wait")
+    @Category({ "CDP", "Driver" })
+    @Description("A polling wait such as Utilities.waitUntil")
+    public static final class Wait extends Event {
+        @Label("Attempts")
+        public int attempts;
+
+        @Label("Satisfied")
+        public boolean satisfied;
+    }
+
+    @Name("cdphandler.TraceCapture")
+    @Label("Trace Capture")
+    @Category({ "CDP", "Tracing" })
+    @Description("Screenshots and snapshots taken by CdpTraceCollector around an action")
+    public static final class TraceCapture extends Event {
+        @Label("Action")
+        public String action;
+
+        @Label("Phase")
+        @Description("before or after")
+        public String phase;
+    }
+
+    @Name("cdphandler.ScreencastFrame")
+    @Label("Screencast Frame")
+    @Category({ "CDP", "Tracing" })
+    public static final class ScreencastFrame extends Event {
+        @Label("Size")
+        @DataAmount
+        public long bytes;
+
+        @Label("Width")
+        public int width;
+
+        @Label("Height")
+        public int height;
+
+        @Label("Duplicate")
+        @Description("Identical to the previous frame and not stored")
+        public boolean duplicate;
+    }
+}
@@ -0,0 +1,111 @@
+package cdphandler;
+
+import tools.Utilities;
+
+import java.time.Duration;
+
+/**
+ * Text entry shared by {@link CdpDriver#sendKeys(String)} and
+ * {@link CdpElement#sendKeys(String)}, in the {@link CdpTypingMode} the driver is
+ * set to.
+ */
+final class CdpKeyboard {
+    /** Commands per pipeline, so very long texts do not put thousands of frames in flight at once. */
+    static final int PIPELINE_CHUNK = 200;
+
+    private CdpKeyboard() {
+    }
+
+    /**
+     * Key event fields for one character: a special key for control characters, a
+     * {@link CdpKey} where one matches, otherwise a raw event using the code point
+     * as the virtual key code.
+     */
+    record Keystroke(String text, String code, String key, int virtualKeyCode, boolean special) {
+    }
+
+    static Keystroke keystroke(char character) {
+        CdpKey special = switch (character) {
+            case '\n', '\r' -> CdpKey.Enter;
+            case '\t' -> CdpKey.Tab;
+            case '\b' -> CdpKey.Backspace;
+            case '\u001b' -> CdpKey.Escape;
+            default -> null;
+        };
+        if (special != null) {
+            return new Keystroke(special == CdpKey.Enter ? "\r" : "", special.getCode(), special.getKey(),
+                    special.getWindowsVirtualKeyCode(), true);
+        }
+        String charStr = String.valueOf(character);
+        CdpKey key = CdpKey.getCdpKey(character);
+        // Fall back for unmapped characters (e.g. space, punctuation)
+        if (key == null && character == ' ') {
+            key = CdpKey.Space;
+        }
+        if (key != null) {
+            return new Keystroke(charStr, key.getCode(), charStr, key.getWindowsVirtualKeyCode(), false);
+        }
+        return new Keystroke(charStr, charStr, charStr, character, false);
+    }
+
+    /**
+     * Types {@code text} into whatever has focus.
+     *
+     * @param keyDelay Pause between key down and key up in {@link CdpTypingMode#KEYSTROKES} mode.
+     */
+    static void type(CdpUtility cdpUtility, CdpTypingMode mode, int modifiers, String text, Duration keyDelay) {
+        switch (mode) {
+            case KEYSTROKES -> {
+                for (char character : text.toCharArray()) {
+                    Keystroke keystroke = keystroke(character);
+                    dispatch(cdpUtility, "keyDown", modifiers, keystroke);
+                    if (!keyDelay.isZero()) {
+                        Utilities.sleep(keyDelay);
+                    }
+                    dispatch(cdpUtility, "keyUp", modifiers, keystroke);
+                }
+            }
+            case INSERT_TEXT -> {
+                if (!text.isEmpty()) {
+                    cdpUtility.inputInsertText(text);
+                }
+            }
+            case PIPELINED, HYBRID -> {
+                CdpPipeline pipeline = cdpUtility.pipeline();
+                StringBuilder run = new StringBuilder();
+                for (char character : text.toCharArray()) {
+                    Keystroke keystroke = keystroke(character);
+                    if (mode == CdpTypingMode.HYBRID && !keystroke.special()) {
+                        run.append(character);
+                        continue;
+                    }
+                    if (!run.isEmpty()) {
+                        pipeline.inputInsertText(run.toString());
+                        run.setLength(0);
+                    }
+                    add(pipeline, "keyDown", modifiers, keystroke);
+                    add(pipeline, "keyUp", modifiers, keystroke);
+                    if (pipeline.size() >= PIPELINE_CHUNK) {
+                        pipeline.execute();
+                    }
+                }
+                if (!run.isEmpty()) {
+                    pipeline.inputInsertText(run.toString());
+                }
+                if (pipeline.size() > 0) {
+                    pipeline.execute();
+                }
+            }
+        }
+    }
+
+    private static void dispatch(CdpUtility cdpUtility, String type, int modifiers, Keystroke keystroke) {
+        cdpUtility.inputDispatchKeyEvent(type, modifiers, keystroke.text(), "", keystroke.code(), keystroke.key(),
+                keystroke.virtualKeyCode(), keystroke.virtualKeyCode());
+    }
+
+    private static void add(CdpPipeline pipeline, String type, int modifiers, Keystroke keystroke) {
+        pipeline.inputDispatchKeyEvent(type, modifiers, keystroke.text(), "", keystroke.code(), keystroke.key(),
+                keystroke.virtualKeyCode(), keystroke.virtualKeyCode());
+    }
+}
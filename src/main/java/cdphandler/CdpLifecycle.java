@@ -0,0 +1,190 @@
+package cdphandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import logger.Log;
+import logger.Logger;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Main-frame navigation state of one page target, fed by {@code Page.lifecycleEvent},
+ * {@code Page.frameNavigated} and {@code Page.navigatedWithinDocument}.
+ * <p>
+ * A navigation is awaited by its {@code loaderId} when the command that started it
+ * returns one ({@code Page.navigate}), otherwise as the first navigation committed
+ * after a {@link #mark()} taken before the command was sent. Same-document
+ * navigations and pages restored from the back/forward cache satisfy every
+ * {@link CdpLoadState} once committed, since no further lifecycle events follow.
+ * Waiting blocks on the events themselves; nothing is polled.
+ */
+final class CdpLifecycle {
+    private static final Logger log = Log.getLogger(CdpLifecycle.class);
+    /** Loaders whose events are kept; older ones can no longer be awaited. */
+    private static final int MAX_LOADERS = 8;
+    /** Recorded for a loader when its navigation satisfies every state. */
+    private static final String COMPLETE = "complete";
+
+    private final CdpUtility cdpUtility;
+    private final Object lock = new Object();
+    private final Map<String, Set<String>> events = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Set<String>> eldest) {
+            return size() > MAX_LOADERS;
+        }
+    };
+    private volatile Boolean enabled;
+    private String mainFrameId;
+    /** Loader of the last cross-document navigation, or {@code null} after a same-document one. */
+    private String currentLoaderId;
+    private long navigations;
+
+    CdpLifecycle(CdpUtility cdpUtility) {
+        this.cdpUtility = cdpUtility;
+    }
+
+    /**
+     * Subscribes to the page events and turns on lifecycle events, once.
+     *
+     * @return {@code false} if the target does not support them, in which case
+     * callers fall back to polling {@code document.readyState}.
+     */
+    boolean enable() {
+        if (enabled == null) {
+            synchronized (this) {
+                if (enabled == null) {
+                    try {
+                        // One listener for the domain so navigations and the lifecycle events
+                        // that follow them share a dispatch queue and keep their order
+                        cdpUtility.getClient().on("Page", this::onEvent);
+                        cdpUtility.pageEnable();
+                        cdpUtility.pageSetLifecycleEventsEnabled(true);
+                        JsonNode frame = cdpUtility.pageGetFrameTree().path("frameTree").path("frame");
+                        synchronized (lock) {
+                            mainFrameId = frame.path("id").asText(null);
+                            if (currentLoaderId == null && navigations == 0) {
+                                currentLoaderId = frame.path("loaderId").asText(null);
+                            }
+                        }
+                        enabled = true;
+                    } catch (RuntimeException e) {
+                        log.warn("Lifecycle events unavailable, falling back to readyState polling: {}",
+                                e.getMessage());
+                        enabled = false;
+                    }
+                }
+            }
+        }
+        return enabled;
+    }
+
+    /**
+     * Returns the id of the main frame, or {@code null} before it is known.
+     */
+    String mainFrameId() {
+        synchronized (lock) {
+            return mainFrameId;
+        }
+    }
+
+    /**
+     * Returns a marker for navigations committed so far; take it before sending a
+     * navigation command without a loader id.
+     */
+    long mark() {
+        synchronized (lock) {
+            return navigations;
+        }
+    }
+
+    /**
+     * Waits until the navigation reaches {@code state}.
+     *
+     * @param mark     {@link #mark()} taken before the navigation was started.
+     * @param loaderId Loader id returned by the navigation command, or {@code null}.
+     * @return {@code true} if the state was reached before {@code timeout}.
+     */
+    boolean await(long mark, String loaderId, CdpLoadState state, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (lock) {
+            while (!reached(mark, loaderId, state)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private boolean reached(long mark, String loaderId, CdpLoadState state) {
+        Set<String> names;
+        if (loaderId != null) {
+            names = events.get(loaderId);
+        } else if (navigations > mark) {
+            if (currentLoaderId == null) {
+                return true;
+            }
+            names = events.get(currentLoaderId);
+        } else {
+            return false;
+        }
+        if (names == null) {
+            return false;
+        }
+        // Any event of the loader means it committed
+        return state == CdpLoadState.COMMIT || names.contains(COMPLETE) || names.contains(state.eventName());
+    }
+
+    void onEvent(JsonNode event) {
+        JsonNode params = event.path("params");
+        synchronized (lock) {
+            switch (event.path("method").asText()) {
+                case "Page.lifecycleEvent" -> {
+                    if (params.path("frameId").asText().equals(mainFrameId)) {
+                        loader(params.path("loaderId").asText()).add(params.path("name").asText());
+                    }
+                }
+                case "Page.frameNavigated" -> {
+                    JsonNode frame = params.path("frame");
+                    if (frame.has("parentId")) {
+                        return;
+                    }
+                    mainFrameId = frame.path("id").asText();
+                    currentLoaderId = frame.path("loaderId").asText();
+                    Set<String> names = loader(currentLoaderId);
+                    names.add(CdpLoadState.COMMIT.eventName());
+                    // A page restored from the back/forward cache fires no new lifecycle events
+                    if ("BackForwardCacheRestore".equals(params.path("type").asText())) {
+                        names.add(COMPLETE);
+                    }
+                    navigations++;
+                }
+                case "Page.navigatedWithinDocument" -> {
+                    if (params.path("frameId").asText().equals(mainFrameId)) {
+                        currentLoaderId = null;
+                        navigations++;
+                    }
+                }
+                default -> {
+                    return;
+                }
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private Set<String> loader(String loaderId) {
+        return events.computeIfAbsent(loaderId, id -> new HashSet<>());
+    }
+}
@@ -0,0 +1,46 @@
+package cdphandler;
+
+/**
+ * How far a navigation must get before {@link ICdpDriver#get(String)},
+ * {@link ICdpDriver#back()}, {@link ICdpDriver#forward()} and
+ * {@link ICdpDriver#refresh()} return. See
+ * {@link ICdpDriver#setLoadState(CdpLoadState)}; the default is read from
+ * {@code -Dcdp.loadState} and falls back to {@link #DOM_CONTENT_LOADED}.
+ * Same-document navigations (fragments, {@code history.pushState}) satisfy every
+ * state once they are committed.
+ */
+public enum CdpLoadState {
+    /**
+     * The new document is committed: the response arrived and the old page is gone.
+     */
+    COMMIT("commit"),
+    /**
+     * The HTML is parsed and deferred scripts have run.
+     */
+    DOM_CONTENT_LOADED("DOMContentLoaded"),
+    /**
+     * The page and its subresources (images, stylesheets, frames) finished loading.
+     */
+    LOAD("load"),
+    /**
+     * No more than two network connections for 500 ms, as reported by Chrome.
+     */
+    NETWORK_ALMOST_IDLE("networkAlmostIdle"),
+    /**
+     * No network connections for 500 ms, as reported by Chrome.
+     */
+    NETWORK_IDLE("networkIdle");
+
+    private final String eventName;
+
+    CdpLoadState(String eventName) {
+        this.eventName = eventName;
+    }
+
+    /**
+     * Returns the {@code Page.lifecycleEvent} name that signals this state.
+     */
+    public String eventName() {
+        return eventName;
+    }
+}
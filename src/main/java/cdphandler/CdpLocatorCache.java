@@ -0,0 +1,106 @@
+package cdphandler;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Locator results for one page target, keyed by reference element, strategy and
+ * locator and tagged with the DOM generation they were found at.
+ * <p>
+ * The generation is kept in the page by the helper library's MutationObserver,
+ * which counts every child list, attribute and text change of the document and
+ * is only started once the cache first asks for it. A lookup is a hit only if the
+ * page still reports the generation of the entry, so a repeated find on an
+ * unchanged DOM costs one {@code __cdp.generation()} evaluate instead of a query;
+ * that includes finds that matched nothing, so polling for a missing element is
+ * cheap too. The generation embeds a per-document token, so a navigation always
+ * misses.
+ * <p>
+ * Piercing CSS and CSS using state pseudo-classes are never cached: the observer
+ * does not see into shadow roots, and states such as {@code :checked} or
+ * {@code :focus} change without a mutation. For the same reason the page reports
+ * no generation for a reference element inside a shadow root or a frame, and
+ * finds below it bypass the cache. The cache is off unless
+ * {@code -Dcdp.locatorCache=true} is set or it is enabled with
+ * {@link CdpUtility#setLocatorCacheEnabled(boolean)}.
+ */
+final class CdpLocatorCache {
+    static final int MAX_ENTRIES = 256;
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("cdp.locatorCache", "false"));
+    private static final Pattern STATE_PSEUDO_CLASS = Pattern.compile(
+            ":(checked|default|indeterminate|focus|focus-within|focus-visible|hover|active|target|visited|"
+                    + "valid|invalid|in-range|out-of-range|user-valid|user-invalid|placeholder-shown|autofill|"
+                    + "playing|paused|open|popover-open|modal|fullscreen)\\b");
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private volatile boolean enabled = ENABLED;
+
+    private record Key(String reference, String strategy, String locator) {
+    }
+
+    private record Entry(String generation, List<String> references) {
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /** True if results for this locator can be trusted while the generation is unchanged. */
+    static boolean cacheable(String strategy, String locator) {
+        return switch (strategy) {
+            case "id", "xpath" -> true;
+            case "css" -> !STATE_PSEUDO_CLASS.matcher(locator).find();
+            default -> false;
+        };
+    }
+
+    /**
+     * Returns the cached references if they were found at {@code generation}, or
+     * {@code null} on a miss. An entry from another generation is dropped.
+     */
+    synchronized List<String> get(String reference, String strategy, String locator, String generation) {
+        Key key = new Key(reference, strategy, locator);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.generation().equals(generation)) {
+            hits.increment();
+            return entry.references();
+        }
+        if (entry != null) {
+            entries.remove(key);
+            invalidations.increment();
+        }
+        misses.increment();
+        return null;
+    }
+
+    synchronized void put(String reference, String strategy, String locator, String generation,
+            List<String> references) {
+        entries.put(new Key(reference, strategy, locator), new Entry(generation, List.copyOf(references)));
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized CdpLocatorCacheStats stats() {
+        return new CdpLocatorCacheStats(enabled, hits.sum(), misses.sum(), invalidations.sum(), entries.size());
+    }
+}
@@ -0,0 +1,13 @@
+package cdphandler;
+
+/**
+ * Snapshot of a target's locator cache.
+ *
+ * @param enabled       Whether finds currently go through the cache.
+ * @param hits          Finds answered from the cache.
+ * @param misses        Finds that had to query the page.
+ * @param invalidations Misses caused by an entry from an older DOM generation.
+ * @param entries       Locator results currently cached.
+ */
+public record CdpLocatorCacheStats(boolean enabled, long hits, long misses, long invalidations, int entries) {
+}
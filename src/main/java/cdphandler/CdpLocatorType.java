@@ -5,5 +5,6 @@ public enum CdpLocatorType {
     CSS,
     XPATH,
     PIERCING_CSS,
+    PIERCING_XPATH,
     NATURAL_LANGUAGE
 }
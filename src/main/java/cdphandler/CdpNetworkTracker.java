@@ -0,0 +1,187 @@
+package cdphandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Counts the page's in-flight requests from {@code Network.requestWillBeSent},
+ * {@code Network.loadingFinished} and {@code Network.loadingFailed}, so a test
+ * can wait until the page stops talking to the server.
+ * <p>
+ * The {@link ApiInterceptor} of the same {@link CdpUtility} {@linkplain #subscribe(CdpClient)
+ * subscribes} it to those events on a queue of its own that never drops them: a lost
+ * {@code loadingFinished} would leave its request in flight for good. Requests are
+ * matched by URL fragment, as in {@link ApiInterceptor#waitFor(String, Duration)}:
+ * with no {@linkplain #include(String) includes} every request counts, and
+ * {@linkplain #exclude(String) excludes} win over includes. Filters apply to
+ * requests started after they change. Long-lived connections (event streams,
+ * long polling, analytics beacons) should be excluded, or the page never goes idle.
+ * <p>
+ * A document the main frame navigates away from may never report its open
+ * requests as finished, so on a main-frame {@code Page.frameNavigated} (sent once
+ * the Page domain is enabled) requests of other loaders are dropped.
+ */
+public final class CdpNetworkTracker {
+    private final List<String> includes = new CopyOnWriteArrayList<>();
+    private final List<String> excludes = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+    /** requestId → tracked request still in flight. */
+    private final Map<String, Request> inflight = new HashMap<>();
+    /** {@link System#nanoTime()} of the last tracked request starting or ending. */
+    private long lastChange = System.nanoTime();
+    private final List<Runnable> idleListeners = new CopyOnWriteArrayList<>();
+
+    /** Events the tracker needs, delivered through one queue so they keep their order. */
+    private static final List<String> EVENTS = List.of("Network.requestWillBeSent", "Network.loadingFinished",
+            "Network.loadingFailed", "Page.frameNavigated");
+
+    private record Request(String url, String loaderId) {
+    }
+
+    CdpNetworkTracker() {
+    }
+
+    /**
+     * Feeds the tracker from {@code client}. {@link #onEvent} only updates the map and
+     * wakes waiters, so the subscription can use {@link CdpEventPolicy#BLOCK}.
+     */
+    void subscribe(CdpClient client) {
+        Consumer<JsonNode> listener = this::onEvent;
+        for (String method : EVENTS) {
+            client.on(method, listener, CdpEventPolicy.BLOCK, CdpEventDispatcher.DEFAULT_CAPACITY);
+        }
+    }
+
+    /**
+     * Tracks only requests whose URL contains one of the included fragments.
+     */
+    public void include(String urlFragment) {
+        includes.add(urlFragment);
+    }
+
+    /**
+     * Ignores requests whose URL contains {@code urlFragment}.
+     */
+    public void exclude(String urlFragment) {
+        excludes.add(urlFragment);
+    }
+
+    /**
+     * Removes all includes and excludes.
+     */
+    public void clearFilters() {
+        includes.clear();
+        excludes.clear();
+    }
+
+    /**
+     * Runs {@code listener} each time the last tracked request in flight ends, on
+     * the thread that delivered the event.
+     */
+    void onIdle(Runnable listener) {
+        idleListeners.add(listener);
+    }
+
+    /**
+     * Returns the number of tracked requests currently in flight.
+     */
+    public int getInflightCount() {
+        synchronized (lock) {
+            return inflight.size();
+        }
+    }
+
+    /**
+     * Blocks until at most {@code maxInflight} tracked requests have been in flight
+     * for {@code quietPeriod}, i.e. no tracked request started or ended during that
+     * time while the count was at or below {@code maxInflight}. Returns at once if
+     * the network has already been that quiet.
+     *
+     * @param quietPeriod How long the network must stay quiet, e.g. 500 ms.
+     * @param maxInflight Requests allowed to stay open, e.g. {@code 0} or {@code 2}.
+     * @param timeout     Maximum time to wait.
+     * @return {@code true} if the network went idle before {@code timeout}.
+     */
+    public boolean waitForNetworkIdle(Duration quietPeriod, int maxInflight, Duration timeout) {
+        long quiet = quietPeriod.toNanos();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (lock) {
+            while (true) {
+                long now = System.nanoTime();
+                boolean settled = inflight.size() <= maxInflight;
+                long idleAt = lastChange + quiet;
+                if (settled && now - idleAt >= 0) {
+                    return true;
+                }
+                if (now - deadline >= 0) {
+                    return false;
+                }
+                // Woken early by every tracked request starting or ending
+                long wake = settled && idleAt - deadline < 0 ? idleAt : deadline;
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, Math.max(1, wake - now));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+    }
+
+    void onEvent(JsonNode event) {
+        JsonNode params = event.path("params");
+        String requestId = params.path("requestId").asText();
+        boolean idle;
+        synchronized (lock) {
+            boolean changed = switch (event.path("method").asText()) {
+                // A redirect reuses the requestId, so it stays a single request
+                case "Network.requestWillBeSent" -> {
+                    String url = params.path("request").path("url").asText();
+                    yield tracks(url) && inflight.put(requestId, new Request(url, params.path("loaderId").asText()))
+                            == null;
+                }
+                case "Network.loadingFinished", "Network.loadingFailed" -> inflight.remove(requestId) != null;
+                case "Page.frameNavigated" -> {
+                    JsonNode frame = params.path("frame");
+                    String loaderId = frame.path("loaderId").asText();
+                    // The navigation's own document request carries the new loader and stays
+                    yield !frame.has("parentId")
+                            && inflight.values().removeIf(request -> !request.loaderId().equals(loaderId));
+                }
+                default -> false;
+            };
+            if (changed) {
+                lastChange = System.nanoTime();
+                lock.notifyAll();
+            }
+            idle = changed && inflight.isEmpty();
+        }
+        if (idle) {
+            idleListeners.forEach(Runnable::run);
+        }
+    }
+
+    private boolean tracks(String url) {
+        for (String exclude : excludes) {
+            if (url.contains(exclude)) {
+                return false;
+            }
+        }
+        if (includes.isEmpty()) {
+            return true;
+        }
+        for (String include : includes) {
+            if (url.contains(include)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
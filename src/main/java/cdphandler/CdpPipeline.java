@@ -0,0 +1,182 @@
+package cdphandler;
+
+import cdphandler.protocol.Input;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.UnaryOperator;
+
+/**
+ * Batch of independent CDP commands that are sent back-to-back and awaited
+ * together, so N commands cost roughly one round trip instead of N.
+ * <p>
+ * Obtain one from {@link CdpUtility#pipeline()}. Commands are only sent when
+ * {@link #execute()} is called; results are returned in the order the commands
+ * were added. Only batch commands that do not depend on each other's results.
+ *
+ * <pre>
+ * cdp.pipeline()
+ *         .inputDispatchMouseEvent(MouseEvent.MOVED, x, y, 0, "none", 0)
+ *         .inputDispatchMouseEvent(MouseEvent.PRESSED, x, y, 0, "left", 1)
+ *         .inputDispatchMouseEvent(MouseEvent.RELEASED, x, y, 0, "left", 1)
+ *         .execute();
+ * </pre>
+ */
+public final class CdpPipeline {
+    /**
+     * A queued command: either {@code typed} or {@code method} with {@code params}.
+     */
+    private record Command(String method, Map<String, Object> params, CdpCommand<?> typed,
+            UnaryOperator<JsonNode> resultMapper) {
+    }
+
+    private final CdpUtility cdpUtility;
+    private final List<Command> commands = new ArrayList<>();
+
+    CdpPipeline(CdpUtility cdpUtility) {
+        this.cdpUtility = cdpUtility;
+    }
+
+    /**
+     * Adds an arbitrary command to the pipeline.
+     *
+     * @param method CDP method name.
+     * @param params Parameters map (nullable).
+     * @return This pipeline.
+     */
+    public CdpPipeline add(String method, Map<String, Object> params) {
+        commands.add(new Command(method, params, null, UnaryOperator.identity()));
+        return this;
+    }
+
+    /**
+     * Adds a typed command from {@code cdphandler.protocol}; its raw result is
+     * returned.
+     *
+     * @param command The command to send.
+     * @return This pipeline.
+     */
+    public CdpPipeline add(CdpCommand<?> command) {
+        commands.add(new Command(command.method(), null, command, UnaryOperator.identity()));
+        return this;
+    }
+
+    /**
+     * Adds a {@code Runtime.evaluate}; its result is unwrapped the same way as
+     * {@link CdpUtility#runtimeEvaluate(String, boolean)}.
+     */
+    public CdpPipeline runtimeEvaluate(String expression, boolean returnByValue) {
+        commands.add(new Command("Runtime.evaluate", CdpUtility.evaluateParams(expression, returnByValue), null,
+                CdpUtility::unwrapEvaluateResult));
+        return this;
+    }
+
+    /**
+     * Adds an {@code Input.dispatchMouseEvent}.
+     */
+    public CdpPipeline inputDispatchMouseEvent(MouseEvent eventType, int x, int y, int modifiers, String button,
+            int clickCount) {
+        return add(CdpUtility.mouseEvent(eventType, x, y, modifiers, button, clickCount));
+    }
+
+    /**
+     * Adds an {@code Input.dispatchKeyEvent}.
+     */
+    public CdpPipeline inputDispatchKeyEvent(String type, int modifiers, String text, String keyIdentifier,
+            String code, String key, int windowsVirtualKeyCode, int nativeVirtualKeyCode) {
+        return add(CdpUtility.keyEvent(type, modifiers, text, keyIdentifier, code, key, windowsVirtualKeyCode,
+                nativeVirtualKeyCode));
+    }
+
+    /**
+     * Adds an {@code Input.insertText}.
+     */
+    public CdpPipeline inputInsertText(String text) {
+        return add(new Input.InsertText(text));
+    }
+
+    /**
+     * Returns the number of commands queued so far.
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * Sends all commands and waits for every response, bounded by the longest
+     * {@linkplain CdpUtility#timeoutFor(String) per-method timeout} among them.
+     *
+     * @return The results, in the order the commands were added.
+     */
+    public List<JsonNode> execute() {
+        Duration timeout = Duration.ZERO;
+        for (Command command : commands) {
+            Duration commandTimeout = cdpUtility.timeoutFor(command.method());
+            if (commandTimeout.compareTo(timeout) > 0) {
+                timeout = commandTimeout;
+            }
+        }
+        return execute(timeout);
+    }
+
+    /**
+     * Sends all commands back-to-back and waits for every response.
+     *
+     * @param timeout Maximum time to wait for the whole batch.
+     * @return The results, in the order the commands were added.
+     * @throws RuntimeException if any command fails or the batch times out.
+     */
+    public List<JsonNode> execute(Duration timeout) {
+        return await(executeAsync(timeout), timeout);
+    }
+
+    /**
+     * Waits for every future and returns their results in order.
+     *
+     * @throws RuntimeException if any command fails or {@code timeout} elapses.
+     */
+    static List<JsonNode> await(List<CompletableFuture<JsonNode>> futures, Duration timeout) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Pipeline of " + futures.size() + " commands timed out after " + timeout, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        List<JsonNode> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<JsonNode> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * Sends all commands back-to-back without waiting.
+     *
+     * @param timeout Per-command response timeout.
+     * @return One future per command, in the order the commands were added.
+     */
+    public List<CompletableFuture<JsonNode>> executeAsync(Duration timeout) {
+        CdpClient client = cdpUtility.getClient();
+        List<CompletableFuture<JsonNode>> futures = new ArrayList<>(commands.size());
+        for (Command command : commands) {
+            CompletableFuture<JsonNode> future = command.typed() != null
+                    ? client.sendCommandFuture(command.typed(), timeout)
+                    : client.sendCommandFuture(command.method(), command.params(), timeout);
+            futures.add(future.thenApply(command.resultMapper()));
+        }
+        commands.clear();
+        return futures;
+    }
+}
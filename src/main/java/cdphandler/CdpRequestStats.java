@@ -0,0 +1,11 @@
+package cdphandler;
+
+/**
+ * Snapshot of the commands a {@link CdpClient} connection is tracking.
+ *
+ * @param pendingRequests    Commands still awaiting a response.
+ * @param timedOutRequests   Commands expired by their timeout so far.
+ * @param discardedResponses Responses dropped because nobody was waiting for them.
+ */
+public record CdpRequestStats(int pendingRequests, long timedOutRequests, long discardedResponses) {
+}
@@ -0,0 +1,302 @@
+package cdphandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import logger.Log;
+import logger.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Fails requests a functional test does not need (images, fonts, analytics, ads)
+ * before they reach the network, so navigations finish sooner.
+ * <p>
+ * Requests are intercepted with {@code Fetch.enable}, paused only when they match a
+ * {@link CdpBlockProfile} resource type or a custom URL glob, and failed with
+ * {@code BlockedByClient}; other requests are not paused at all.
+ * {@link CdpBlockProfile#BLOCK_THIRD_PARTY} is the exception: it has to see every
+ * request to compare its site with the page's. The page's own document is never
+ * blocked. Drivers start with the profiles in {@code -Dcdp.blockResources} and the
+ * globs in {@code -Dcdp.blockUrls}, both comma-separated.
+ * <p>
+ * URL globs use the {@code Fetch.RequestPattern} syntax: {@code *} matches any
+ * characters and {@code ?} a single one, e.g. {@code *.gif} or
+ * {@code *://*.doubleclick.net/*}.
+ */
+public final class CdpResourceBlocker {
+    private static final Logger log = Log.getLogger(CdpResourceBlocker.class);
+    private static final String BLOCKED_REASON = "BlockedByClient";
+    private static final List<String> DEFAULT_PROFILES = split(System.getProperty("cdp.blockResources", ""));
+    private static final List<String> DEFAULT_URLS = split(System.getProperty("cdp.blockUrls", ""));
+
+    private final CdpUtility cdpUtility;
+    private final CdpLifecycle lifecycle;
+    private final Set<CdpBlockProfile> profiles = EnumSet.noneOf(CdpBlockProfile.class);
+    private final List<String> urlGlobs = new ArrayList<>();
+    private final AtomicInteger blocked = new AtomicInteger();
+    private volatile Rules rules = Rules.of(Set.of(), List.of());
+    /** Site of the page's document, see {@link #site(String)}. */
+    private volatile String firstPartySite;
+    private boolean subscribed;
+    private boolean intercepting;
+
+    CdpResourceBlocker(CdpUtility cdpUtility, CdpLifecycle lifecycle) {
+        this.cdpUtility = cdpUtility;
+        this.lifecycle = lifecycle;
+    }
+
+    /**
+     * Adds the profiles and globs from {@code -Dcdp.blockResources} and
+     * {@code -Dcdp.blockUrls}, if any.
+     */
+    synchronized void applyDefaults() {
+        if (DEFAULT_PROFILES.isEmpty() && DEFAULT_URLS.isEmpty()) {
+            return;
+        }
+        DEFAULT_PROFILES.forEach(name -> profiles.add(CdpBlockProfile.parse(name)));
+        urlGlobs.addAll(DEFAULT_URLS);
+        apply();
+    }
+
+    /**
+     * Starts blocking the requests of {@code profiles}, in addition to those
+     * already blocked.
+     */
+    public synchronized void block(CdpBlockProfile... profiles) {
+        this.profiles.addAll(Arrays.asList(profiles));
+        apply();
+    }
+
+    /**
+     * Starts blocking requests whose URL matches one of {@code globs}, in addition
+     * to those already blocked.
+     */
+    public synchronized void blockUrls(String... globs) {
+        urlGlobs.addAll(Arrays.asList(globs));
+        apply();
+    }
+
+    /**
+     * Stops blocking and turns request interception off.
+     */
+    public synchronized void clear() {
+        profiles.clear();
+        urlGlobs.clear();
+        apply();
+    }
+
+    public synchronized Set<CdpBlockProfile> getProfiles() {
+        return profiles.isEmpty() ? Set.of() : EnumSet.copyOf(profiles);
+    }
+
+    public synchronized List<String> getBlockedUrls() {
+        return List.copyOf(urlGlobs);
+    }
+
+    /**
+     * Returns {@code true} if any profile or URL glob is active.
+     */
+    public boolean isActive() {
+        return !rules.isEmpty();
+    }
+
+    /**
+     * Returns the number of requests blocked since the driver started its last
+     * navigation ({@code get}, {@code back}, {@code forward}, {@code refresh}).
+     */
+    public int getBlockedCount() {
+        return blocked.get();
+    }
+
+    void startNavigation() {
+        blocked.set(0);
+    }
+
+    private void apply() {
+        rules = Rules.of(profiles, urlGlobs);
+        if (rules.isEmpty()) {
+            if (intercepting) {
+                cdpUtility.fetchDisable();
+                intercepting = false;
+            }
+            return;
+        }
+        if (!subscribed) {
+            // A dropped event would leave its request paused until the navigation times out.
+            // The handler only sends async commands, so it may hold the reader.
+            cdpUtility.getClient().on("Fetch.requestPaused", this::onRequestPaused, CdpEventPolicy.BLOCK,
+                    CdpEventDispatcher.DEFAULT_CAPACITY);
+            subscribed = true;
+        }
+        if (rules.thirdParty()) {
+            lifecycle.enable();
+            if (firstPartySite == null) {
+                firstPartySite = site(cdpUtility.pageGetFrameTree().path("frameTree").path("frame").path("url")
+                        .asText());
+            }
+        }
+        cdpUtility.fetchEnable(rules.patterns());
+        intercepting = true;
+        log.info("Blocking resources: profiles {}, URLs {}", profiles, urlGlobs);
+    }
+
+    private void onRequestPaused(JsonNode event) {
+        JsonNode params = event.path("params");
+        String requestId = params.path("requestId").asText();
+        if (blocks(rules, params)) {
+            blocked.incrementAndGet();
+            cdpUtility.fetchFailRequestAsync(requestId, BLOCKED_REASON);
+        } else {
+            cdpUtility.fetchContinueRequestAsync(requestId);
+        }
+    }
+
+    /**
+     * Decides a paused request; a main-frame document also becomes the first party
+     * for {@link CdpBlockProfile#BLOCK_THIRD_PARTY}.
+     *
+     * @param params {@code Fetch.requestPaused} params.
+     */
+    boolean blocks(Rules rules, JsonNode params) {
+        String url = params.path("request").path("url").asText();
+        String resourceType = params.path("resourceType").asText();
+        if ("Document".equals(resourceType)) {
+            String mainFrameId = lifecycle.mainFrameId();
+            if (mainFrameId == null || mainFrameId.equals(params.path("frameId").asText())) {
+                firstPartySite = site(url);
+                return false;
+            }
+        }
+        if (rules.resourceTypes().contains(resourceType)) {
+            return true;
+        }
+        for (Pattern pattern : rules.urls()) {
+            if (pattern.matcher(url).matches()) {
+                return true;
+            }
+        }
+        if (rules.thirdParty()) {
+            String page = firstPartySite;
+            String site = site(url);
+            return page != null && site != null && !page.equals(site);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the host of {@code url} reduced to its last two labels, e.g.
+     * {@code example.com} for {@code https://cdn.example.com/a.js}, or the whole
+     * host for IP addresses. Hosts under multi-label suffixes such as
+     * {@code co.uk} all count as one site, so such pages block less than they
+     * could. Returns {@code null} for URLs without a host ({@code data:},
+     * {@code blob:}).
+     */
+    static String site(String url) {
+        int start = url.indexOf("://");
+        if (start < 0) {
+            return null;
+        }
+        start += 3;
+        int end = start;
+        while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        int at = url.lastIndexOf('@', end - 1);
+        if (at >= start) {
+            start = at + 1;
+        }
+        String host = url.substring(start, end).toLowerCase();
+        if (host.startsWith("[")) {
+            return host.substring(0, host.indexOf(']') + 1);
+        }
+        int port = host.indexOf(':');
+        if (port >= 0) {
+            host = host.substring(0, port);
+        }
+        if (host.isEmpty()) {
+            return null;
+        }
+        if (host.chars().allMatch(c -> c == '.' || Character.isDigit(c))) {
+            return host;
+        }
+        int last = host.lastIndexOf('.');
+        int second = last > 0 ? host.lastIndexOf('.', last - 1) : -1;
+        return second < 0 ? host : host.substring(second + 1);
+    }
+
+    private static List<String> split(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.isBlank()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * What is blocked, fixed when the configuration changes so the event listener
+     * reads it without locking.
+     */
+    record Rules(Set<String> resourceTypes, List<String> globs, List<Pattern> urls, boolean thirdParty) {
+        static Rules of(Collection<CdpBlockProfile> profiles, List<String> globs) {
+            Set<String> resourceTypes = new HashSet<>();
+            for (CdpBlockProfile profile : profiles) {
+                resourceTypes.addAll(profile.resourceTypes());
+            }
+            List<Pattern> urls = new ArrayList<>(globs.size());
+            for (String glob : globs) {
+                urls.add(globToPattern(glob));
+            }
+            return new Rules(Set.copyOf(resourceTypes), List.copyOf(globs), List.copyOf(urls),
+                    profiles.contains(CdpBlockProfile.BLOCK_THIRD_PARTY));
+        }
+
+        boolean isEmpty() {
+            return resourceTypes.isEmpty() && urls.isEmpty() && !thirdParty;
+        }
+
+        /**
+         * Returns the {@code Fetch.enable} patterns: one per resource type and glob,
+         * or a single catch-all when third-party requests are blocked.
+         */
+        List<Map<String, Object>> patterns() {
+            if (thirdParty) {
+                return List.of(Map.of("urlPattern", "*"));
+            }
+            List<Map<String, Object>> patterns = new ArrayList<>();
+            for (String resourceType : resourceTypes) {
+                patterns.add(Map.of("urlPattern", "*", "resourceType", resourceType));
+            }
+            for (String glob : globs) {
+                patterns.add(Map.of("urlPattern", glob));
+            }
+            return patterns;
+        }
+
+        private static Pattern globToPattern(String glob) {
+            StringBuilder regex = new StringBuilder();
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+                if (c == '\\' && i + 1 < glob.length()) {
+                    regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                } else if (c == '*') {
+                    regex.append(".*");
+                } else if (c == '?') {
+                    regex.append('.');
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            return Pattern.compile(regex.toString(), Pattern.DOTALL);
+        }
+    }
+}
@@ -1,30 +1,328 @@
 package cdphandler;
 
 public class CdpScripts {
-    protected static final String CDP_ELEMENTS_CLEANUP_SCRIPT = """
-            document.cdpElements = null;
-            document.cdpElementIds = null;
-            async function cdpElementsCleanup() {
-                var counter = 0;
-                var listToBeDeleted = [];
-                for(let cdpElement of document.cdpElements) {
-                    if(!cdpElement[1].isConnected || cdpElement[1] === undefined || cdpElement[1] === 'undefined')
-                        listToBeDeleted.push(cdpElement[0]);
-                }
-                for(let i = 0; i < listToBeDeleted.length; i++) {
-                    document.cdpElements.delete(listToBeDeleted[i]);
-                    counter++;
-                }
-            }
-            if(!document.cdpElements) {
-                console.log('CDP Driver elements cleanup script registered...');
-                document.cdpElementsScheduler = setInterval(cdpElementsCleanup, 3000);
-            }""";
+    // Helper library installed once per document by CdpHelperRuntime. Element and
+    // locator calls then evaluate a short "__cdp.fn(args)" instead of shipping a
+    // whole script. __cdp.node holds the same helpers taking the element itself,
+    // for Runtime.callFunctionOn on an objectId; the id-based helpers keep elements
+    // in the cdpElements registry and only start its cleanup interval once that
+    // registry is used. __cdp.generation(id) starts a MutationObserver on first use
+    // and returns the DOM generation for CdpLocatorCache, or null when the element
+    // is in a shadow root or a frame the observer does not see. Piercing locators search
+    // an index of open shadow roots and same-origin frames instead of walking every
+    // element on each call.
+    // __cdp.batch(name, ids, args) runs one element read over many elements.
+    // __cdp.watch(id, key, strategy, locator) keeps a MutationObserver on the
+    // locator and calls the __cdpWatch binding with the key whenever the number of
+    // matches or of visible matches changes; __cdp.unwatch(key) stops it.
+    protected static final String HELPER_RUNTIME_SCRIPT = """
+            (function() {
+                if (window.__cdp) return;
+                function cleanup() {
+                    for (let entry of document.cdpElements) {
+                        if (entry[1] === undefined || !entry[1].isConnected) document.cdpElements.delete(entry[0]);
+                    }
+                }
+                function registry() {
+                    if (!document.cdpElements) document.cdpElements = new Map();
+                    if (!document.cdpElementIds) document.cdpElementIds = new WeakMap();
+                    if (!document.cdpElementsScheduler) document.cdpElementsScheduler = setInterval(cleanup, 3000);
+                    return document.cdpElements;
+                }
+                function register(element) {
+                    var id = document.cdpElementIds.get(element);
+                    if (!id) {
+                        id = (new Date().getTime()) + `_` + Math.random().toString(36).substring(2);
+                        document.cdpElements.set(id, element);
+                        document.cdpElementIds.set(element, id);
+                    }
+                    return id;
+                }
+                // Open shadow roots and frames of this document, indexed on the first piercing
+                // search and kept current by a MutationObserver plus the attachShadow hook below.
+                var shadowRoots = null;
+                var frames = null;
+                var indexObserver = null;
+                var attachShadow = Element.prototype.attachShadow;
+                Element.prototype.attachShadow = function() {
+                    var root = attachShadow.apply(this, arguments);
+                    if (shadowRoots && root.mode === 'open') indexRoot(root);
+                    return root;
+                };
+                function indexRoot(root) {
+                    if (shadowRoots.has(root)) return;
+                    shadowRoots.add(root);
+                    indexObserver.observe(root, {childList: true, subtree: true});
+                    indexTree(root);
+                }
+                function indexTree(top) {
+                    if (top.shadowRoot) indexRoot(top.shadowRoot);
+                    if (top.tagName === 'IFRAME' || top.tagName === 'FRAME') frames.add(top);
+                    var walker = document.createTreeWalker(top, NodeFilter.SHOW_ELEMENT);
+                    for (var e = walker.nextNode(); e; e = walker.nextNode()) {
+                        if (e.shadowRoot) indexRoot(e.shadowRoot);
+                        if (e.tagName === 'IFRAME' || e.tagName === 'FRAME') frames.add(e);
+                    }
+                }
+                function indexRecords(records) {
+                    records.forEach(function(record) {
+                        record.addedNodes.forEach(function(added) { if (added.nodeType === 1) indexTree(added); });
+                    });
+                }
+                function index() {
+                    if (!shadowRoots) {
+                        shadowRoots = new Set();
+                        frames = new Set();
+                        indexObserver = new MutationObserver(indexRecords);
+                        indexObserver.observe(document, {childList: true, subtree: true});
+                        indexTree(document);
+                    }
+                    indexRecords(indexObserver.takeRecords());
+                    // Hosts that left the document are indexed again if they come back
+                    shadowRoots.forEach(function(root) { if (!root.host.isConnected) shadowRoots.delete(root); });
+                    frames.forEach(function(frame) { if (!frame.isConnected) frames.delete(frame); });
+                }
+                function within(root, element) {
+                    if (root === document) return element.isConnected;
+                    for (var n = element; n; n = n.parentNode || n.host) {
+                        if (n === root) return true;
+                    }
+                    return false;
+                }
+                function query(scope, strategy, locator, elements) {
+                    if (strategy === 'css') {
+                        scope.querySelectorAll(locator).forEach(function(e) { elements.push(e); });
+                    } else {
+                        // A shadow root cannot be an XPath context node; its top-level elements can
+                        var doc = scope.ownerDocument || scope;
+                        var contexts = scope.nodeType === 11 ? Array.from(scope.children) : [scope];
+                        contexts.forEach(function(context) {
+                            var res = doc.evaluate(locator, context, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+                            for (var i = 0; i < res.snapshotLength; i++) elements.push(res.snapshotItem(i));
+                        });
+                    }
+                }
+                // Searches root, then every indexed shadow root below it, then same-origin
+                // frames below it through their own helper library. Results are in document
+                // order except for shadow roots attached after the index was built, which
+                // come last. Cross-origin frames are skipped.
+                function pierce(root, strategy, locator) {
+                    index();
+                    var elements = [];
+                    query(root, strategy, locator, elements);
+                    shadowRoots.forEach(function(shadowRoot) {
+                        if (within(root, shadowRoot.host)) query(shadowRoot, strategy, locator, elements);
+                    });
+                    frames.forEach(function(frame) {
+                        if (!within(root, frame)) return;
+                        var doc;
+                        try { doc = frame.contentDocument; } catch (e) { doc = null; }
+                        if (!doc || !doc.documentElement) return;
+                        var helper = frame.contentWindow.__cdp;
+                        if (helper) {
+                            helper.node.pierce(doc, strategy, locator).forEach(function(e) { elements.push(e); });
+                        } else {
+                            query(doc, strategy, locator, elements);
+                        }
+                    });
+                    return Array.from(new Set(elements));
+                }
+                // Offset of the element's frame within this document's viewport, so that
+                // rects and click points of elements found in same-origin frames are in
+                // top-level coordinates.
+                function frameOffset(element) {
+                    var x = 0, y = 0;
+                    for (var view = element.ownerDocument.defaultView; view && view !== window && view.frameElement;
+                            view = view.frameElement.ownerDocument.defaultView) {
+                        var r = view.frameElement.getBoundingClientRect();
+                        x += r.x + view.frameElement.clientLeft;
+                        y += r.y + view.frameElement.clientTop;
+                    }
+                    return {x: x, y: y};
+                }
+                function displayed(element, rect) {
+                    var view = element.ownerDocument.defaultView;
+                    var style = view.getComputedStyle(element);
+                    if (style.display === 'none' || style.visibility === 'hidden' || style.opacity === '0') return false;
+                    return rect.width > 0 && rect.height > 0 && rect.x < view.innerWidth && rect.y < view.innerHeight
+                            && rect.x + rect.width > 0 && rect.y + rect.height > 0;
+                }
+                function enabled(element) {
+                    return element.disabled === undefined || element.disabled === false;
+                }
+                function localCenter(element) {
+                    var view = element.ownerDocument.defaultView;
+                    var rect = element.getClientRects()[0] || element.getBoundingClientRect();
+                    var left   = Math.max(0, Math.min(rect.x, rect.x + rect.width));
+                    var right  = Math.min(view.innerWidth, Math.max(rect.x, rect.x + rect.width));
+                    var top    = Math.max(0, Math.min(rect.y, rect.y + rect.height));
+                    var bottom = Math.min(view.innerHeight, Math.max(rect.y, rect.y + rect.height));
+                    return {x: 0.5 * (left + right), y: 0.5 * (top + bottom)};
+                }
+                function center(element) {
+                    var c = localCenter(element);
+                    var offset = frameOffset(element);
+                    return {x: c.x + offset.x, y: c.y + offset.y};
+                }
+                function obscured(element, x, y) {
+                    var offset = frameOffset(element);
+                    var elementAtPoint = element.ownerDocument.elementFromPoint(x - offset.x, y - offset.y);
+                    return !(element === elementAtPoint || element.contains(elementAtPoint));
+                }
+                function rect(element) {
+                    var r = element.getBoundingClientRect();
+                    var offset = frameOffset(element);
+                    return {x: r.x + offset.x, y: r.y + offset.y, width: r.width, height: r.height};
+                }
+                var watchers = new Map();
+                var watchObserver = null;
+                function watchState(watcher) {
+                    try {
+                        var elements = node.find(watcher.root, watcher.strategy, watcher.locator);
+                        var visible = elements.filter(function(e) { return displayed(e, e.getBoundingClientRect()); });
+                        return elements.length + `/` + visible.length;
+                    } catch (e) {
+                        return `0/0`;
+                    }
+                }
+                function checkWatchers() {
+                    watchers.forEach(function(watcher, key) {
+                        var state = watchState(watcher);
+                        if (state === watcher.state) return;
+                        watcher.state = state;
+                        if (typeof window.__cdpWatch === 'function') window.__cdpWatch(key);
+                    });
+                }
+                function watch(root, key, strategy, locator) {
+                    if (watchers.has(key)) return true;
+                    watchers.set(key, {root: root, strategy: strategy, locator: locator, state: `0/0`});
+                    if (!watchObserver) {
+                        watchObserver = new MutationObserver(checkWatchers);
+                        watchObserver.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});
+                    }
+                    // Report matches that appeared since the caller last looked
+                    checkWatchers();
+                    return true;
+                }
+                function reads(name, elements, args) {
+                    if (!node[name] || name === 'find' || name === 'findFirst' || name === 'pierce' || name === 'batch' || name === 'watch'
+                            || name === 'generation') {
+                        throw new Error('Not an element read: ' + name);
+                    }
+                    return elements.map(function(element) {
+                        if (!element) return null;
+                        try {
+                            return node[name](element, ...args);
+                        } catch (e) {
+                            return null;
+                        }
+                    });
+                }
+                var node = {
+                    find: function(root, strategy, locator) {
+                        var elements = [];
+                        if (strategy === 'id') {
+                            var byId = document.getElementById(locator);
+                            if (byId) elements.push(byId);
+                        } else if (strategy === 'css') {
+                            root.querySelectorAll(locator).forEach(function(e) { elements.push(e); });
+                        } else if (strategy === 'xpath') {
+                            var res = document.evaluate(locator, root, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+                            for (var i = 0; i < res.snapshotLength; i++) elements.push(res.snapshotItem(i));
+                        } else if (strategy === 'piercingCss') {
+                            elements = pierce(root, 'css', locator);
+                        } else if (strategy === 'piercingXpath') {
+                            elements = pierce(root, 'xpath', locator);
+                        } else {
+                            throw new Error('Unknown locator strategy: ' + strategy);
+                        }
+                        return elements;
+                    },
+                    findFirst: function(root, queries) {
+                        return queries.map(function(query) {
+                            try {
+                                return node.find(root, query[0], query[1])[0] || null;
+                            } catch (e) {
+                                return null;
+                            }
+                        });
+                    },
+                    pierce: pierce,
+                    watch: watch,
+                    generation: generation,
+                    batch: function(name, args, ...elements) { return reads(name, elements, args); },
+                    attribute: function(element, name) { return element.getAttribute(name); },
+                    center: center,
+                    clear: function(element) { element.value = ''; },
+                    cssValue: function(element, name) {
+                        return element.ownerDocument.defaultView.getComputedStyle(element).getPropertyValue(name);
+                    },
+                    displayed: function(element) { return displayed(element, element.getBoundingClientRect()); },
+                    enabled: enabled,
+                    focus: function(element) { element.focus(); element.click(); },
+                    obscured: obscured,
+                    property: function(element, name) { return element[name]; },
+                    rect: rect,
+                    scrollBy: function(element, x, y) { element.scrollBy(x, y); },
+                    scrollIntoView: function(element) { element.scrollIntoViewIfNeeded(true); },
+                    selected: function(element) { return element.selected || element.checked || element.enabled; },
+                    snapshot: function(element, scroll) {
+                        if (scroll) element.scrollIntoViewIfNeeded(true);
+                        var local = element.getBoundingClientRect();
+                        var r = rect(element);
+                        var c = center(element);
+                        return {displayed: displayed(element, local), enabled: enabled(element), obscured: obscured(element, c.x, c.y),
+                                x: r.x, y: r.y, width: r.width, height: r.height, centerX: c.x, centerY: c.y};
+                    }
+                };
+                var documentToken = (new Date().getTime()) + `_` + Math.random().toString(36).substring(2);
+                var mutations = 0;
+                var observer = null;
+                // Only this document is observed, so there is no generation for roots in a
+                // shadow root or another document
+                function generation(root) {
+                    if (root !== document && root.getRootNode() !== document) return null;
+                    if (!observer) {
+                        observer = new MutationObserver(function() { mutations++; });
+                        observer.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});
+                    } else if (observer.takeRecords().length) {
+                        mutations++;
+                    }
+                    return documentToken + `:` + mutations;
+                }
+                var helpers = {node: node};
+                var finders = {find: true, findFirst: true};
+                Object.keys(node).forEach(function(name) {
+                    helpers[name] = function(id, ...args) {
+                        var element = registry().get(id) || (finders[name] && id === `` ? document : null);
+                        if (!element) return finders[name] ? [] : null;
+                        var result = node[name](element, ...args);
+                        return finders[name] ? result.map(function(e) { return e ? register(e) : null; }) : result;
+                    };
+                });
+                helpers.batch = function(name, ids, args) {
+                    var elements = registry();
+                    return reads(name, ids.map(function(id) { return elements.get(id); }), args);
+                };
+                helpers.watch = function(id, key, strategy, locator) {
+                    var root = id === `` ? document : registry().get(id);
+                    return root ? watch(root, key, strategy, locator) : false;
+                };
+                helpers.unwatch = function(key) {
+                    watchers.delete(key);
+                    if (watchers.size === 0 && watchObserver) {
+                        watchObserver.disconnect();
+                        watchObserver = null;
+                    }
+                };
+                helpers.generation = function(id) {
+                    var root = id === `` ? document : registry().get(id);
+                    return root ? generation(root) : null;
+                };
+                window.__cdp = helpers;
+            })();""";
     protected static final String WRAPPER_PRE_SCRIPT = "(function() {";
     protected static final String WRAPPER_POST_SCRIPT = "})();";
-    protected static final String FETCH_ELEMENT = """
-            var element = document.cdpElements.get(`%s`);
-            if(!element) return null;""";
 
     protected static final String BACK_SCRIPT = "window.history.back();";
     protected static final String FORWARD_SCRIPT = "window.history.forward();";
@@ -33,90 +331,4 @@ public class CdpScripts {
     protected static final String GET_TITLE_SCRIPT = "(function() {return document.title;})();";
     protected static final String WAIT_UNTIL_DOCUMENT_READY = "(function() {return document.readyState === 'complete';})();";
     protected static final String WAIT_UNTIL_DOCUMENT_READY_OR_INTERACTIVE = "(function() {var s = document.readyState; return s === 'complete' || s === 'interactive';})();";
-
-    protected static final String ID_LOCATOR_SCRIPT    = "var el = document.getElementById(`%s`); if(el) elements.push(el);";
-    protected static final String CSS_LOCATOR_SCRIPT   = "var nodes = referenceElement.querySelectorAll(`%s`); for(var i=0; i<nodes.length; i++) elements.push(nodes[i]);";
-    protected static final String XPATH_LOCATOR_SCRIPT = "var res = document.evaluate(`%s`, referenceElement, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null); for(var i=0; i<res.snapshotLength; i++) elements.push(res.snapshotItem(i));";
-    protected static final String PIERCING_CSS_LOCATOR_SCRIPT = """
-            (function pierceAll(root, sel) {
-                root.querySelectorAll(sel).forEach(function(el) { elements.push(el); });
-                root.querySelectorAll('*').forEach(function(el) {
-                    if (el.shadowRoot) pierceAll(el.shadowRoot, sel);
-                });
-                if (root instanceof Element && root.shadowRoot) pierceAll(root.shadowRoot, sel);
-            })(referenceElement === document ? document.documentElement : referenceElement, `%s`);""";
-    protected static final String FIND_ELEMENT_SCRIPT = """
-            (function() {
-                if (!document.cdpElements) document.cdpElements = new Map();
-                if (!document.cdpElementIds) document.cdpElementIds = new WeakMap();
-                var elements = [];
-                var referenceId = `%s`;
-                var referenceElement = document;
-                if(referenceId !== ``)
-                    referenceElement = document.cdpElements.get(referenceId);
-                <locatorScript>
-                var ids = [];
-                for(var i=0; i<elements.length; i++) {
-                    var el = elements[i];
-                    var id = document.cdpElementIds.get(el);
-                    if (!id) {
-                        id = (new Date().getTime()) + `_` + Math.random().toString(36).substring(2);
-                        document.cdpElements.set(id, el);
-                        document.cdpElementIds.set(el, id);
-                    }
-                    ids.push(id);
-                }
-                return ids;
-            })();""";
-    protected static final String CLEAR_ELEMENT_SCRIPT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            element.value = '';""" + WRAPPER_POST_SCRIPT;
-    protected static final String GET_ATTRIBUTE_SCRIPT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            return element.getAttribute(`%s`);""" + WRAPPER_POST_SCRIPT;
-    protected static final String IN_VIEW_CENTER_POINT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            var rect    = element.getClientRects()[0];
-            var _left   = (Math.max(0, Math.min(rect.x, rect.x + rect.width)));
-            var _right  = (Math.min(window.innerWidth, Math.max(rect.x, rect.x + rect.width)));
-            var _top    = (Math.max(0, Math.min(rect.y, rect.y + rect.height)));
-            var _bottom = (Math.min(window.innerHeight, Math.max(rect.y, rect.y + rect.height)));
-            var x = (0.5 * (_left + _right));
-            var y = (0.5 * (_top + _bottom));
-            return JSON.stringify({"x":x,"y":y});""" + WRAPPER_POST_SCRIPT;
-    protected static final String GET_CSS_VALUE_SCRIPT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            return window.getComputedStyle(element).getPropertyValue(`%s`);""" + WRAPPER_POST_SCRIPT;
-    protected static final String GET_RECT_SCRIPT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            var rect = element.getBoundingClientRect();
-            return JSON.stringify({x: rect.x, y: rect.y, width: rect.width, height: rect.height});"""
-            + WRAPPER_POST_SCRIPT;
-    protected static final String GET_SCROLL_HEIGHT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            return element.scrollHeight;""" + WRAPPER_POST_SCRIPT;
-    protected static final String GET_SCROLL_LEFT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            return element.scrollLeft;""" + WRAPPER_POST_SCRIPT;
-    protected static final String GET_SCROLL_TOP = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            return element.scrollTop;""" + WRAPPER_POST_SCRIPT;
-    protected static final String GET_INNER_TEXT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            return element.innerText;""" + WRAPPER_POST_SCRIPT;
-    protected static final String IS_DISPLAYED_SCRIPT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT
-            + """
-                        var style = window.getComputedStyle(element);
-                        if(style.display === 'none' || style.visibility === 'hidden' || style.opacity === '0') return false;
-                        var rect = element.getBoundingClientRect();
-                        return rect.width > 0 && rect.height > 0 && rect.x < window.innerWidth && rect.y < window.innerHeight && rect.x + rect.width > 0 && rect.y + rect.height > 0;
-                    """
-            + WRAPPER_POST_SCRIPT;
-    protected static final String IS_ELEMENT_OBSCURED_SCRIPT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            var elementAtPoint = document.elementFromPoint(%s, %s);
-            return !(element === elementAtPoint || element.contains(elementAtPoint));""" + WRAPPER_POST_SCRIPT;
-    protected static final String IS_ENABLED_SCRIPT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            return element.disabled === undefined || element.disabled === false;""" + WRAPPER_POST_SCRIPT;
-    protected static final String IS_SELECTED_SCRIPT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            return element.selected || element.checked || element.enabled;""" + WRAPPER_POST_SCRIPT;
-    protected static final String SCROLL_BY_SCRIPT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            element.scrollBy(%s, %s);""" + WRAPPER_POST_SCRIPT;
-    protected static final String SCROLL_INTO_VIEW_SCRIPT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            element.scrollIntoViewIfNeeded(true);""" + WRAPPER_POST_SCRIPT;
-    protected static final String FOCUS_ELEMENT_SCRIPT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            element.focus();
-            element.click();""" + WRAPPER_POST_SCRIPT;
-    protected static final String SET_ELEMENT_VALUE_SCRIPT = WRAPPER_PRE_SCRIPT + FETCH_ELEMENT + """
-            element.value = element.value + `%s`;""" + WRAPPER_POST_SCRIPT;
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package cdphandler;
+
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Multi-producer, single-writer send pipeline for a {@link WebSocket}.
+ * <p>
+ * {@code java.net.http.WebSocket} forbids starting a text send while a previous
+ * one is still in flight. Instead of serializing producers on a lock and joining
+ * on every {@code sendText}, producers append frames to a lock-free queue and
+ * whichever thread finds the writer idle claims it and drains the queue. Each
+ * {@code sendText} completion chains the next frame, so no producer ever blocks
+ * on another producer's send.
+ */
+final class CdpSendQueue {
+    private record Frame(String payload, CompletableFuture<Void> sent, long enqueuedAt) {
+    }
+
+    private final WebSocket webSocket;
+    private final ConcurrentLinkedQueue<Frame> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    CdpSendQueue(WebSocket webSocket) {
+        this.webSocket = webSocket;
+    }
+
+    /**
+     * Queues a complete text frame for sending.
+     *
+     * @param payload The frame to send.
+     * @return A future completed once the frame has been handed to the socket,
+     *         or completed exceptionally if the send failed.
+     */
+    CompletableFuture<Void> send(String payload) {
+        Frame frame = new Frame(payload, new CompletableFuture<>(), System.nanoTime());
+        queue.offer(frame);
+        depth.incrementAndGet();
+        drain();
+        return frame.sent();
+    }
+
+    /**
+     * Returns a snapshot of the queue depth and send latency counters.
+     */
+    CdpSendStats stats() {
+        long sent = framesSent.sum();
+        long average = sent == 0 ? 0 : totalLatencyNanos.sum() / sent;
+        return new CdpSendStats(sent, depth.get(), Duration.ofNanos(average), Duration.ofNanos(maxLatencyNanos.get()));
+    }
+
+    private void drain() {
+        // Whoever wins the CAS becomes the writer until the queue is empty or a
+        // send is still in flight; the completion callback then resumes draining.
+        while (writing.compareAndSet(false, true)) {
+            Frame frame;
+            while ((frame = queue.poll()) != null) {
+                depth.decrementAndGet();
+                CompletableFuture<WebSocket> sending = start(frame);
+                Frame inFlight = frame;
+                if (!sending.isDone()) {
+                    sending.whenComplete((ws, error) -> {
+                        finish(inFlight, error);
+                        writing.set(false);
+                        drain();
+                    });
+                    return;
+                }
+                sending.whenComplete((ws, error) -> finish(inFlight, error));
+            }
+            writing.set(false);
+            // A producer may have enqueued after our last poll but before we released
+            // the writer role; loop to pick it up rather than leaving it stranded.
+            if (queue.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    private CompletableFuture<WebSocket> start(Frame frame) {
+        try {
+            return webSocket.sendText(frame.payload(), true);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void finish(Frame frame, Throwable error) {
+        if (error != null) {
+            frame.sent().completeExceptionally(error);
+            return;
+        }
+        long latency = System.nanoTime() - frame.enqueuedAt();
+        framesSent.increment();
+        totalLatencyNanos.add(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        frame.sent().complete(null);
+    }
+}
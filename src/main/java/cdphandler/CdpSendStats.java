@@ -0,0 +1,14 @@
+package cdphandler;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of a {@link CdpClient} send pipeline.
+ *
+ * @param framesSent     Frames handed to the WebSocket so far.
+ * @param queueDepth     Frames currently waiting for the writer.
+ * @param averageLatency Mean time from enqueue to send completion.
+ * @param maxLatency     Worst time from enqueue to send completion.
+ */
+public record CdpSendStats(long framesSent, int queueDepth, Duration averageLatency, Duration maxLatency) {
+}
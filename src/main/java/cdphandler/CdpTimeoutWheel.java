@@ -0,0 +1,125 @@
+package cdphandler;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timer wheel that expires pending CDP commands.
+ * <p>
+ * Every command needs a timeout but almost none of them fire. Scheduling is a
+ * lock-free enqueue and cancelling is a flag write; a single daemon thread moves
+ * new timeouts into buckets and, once per tick, expires the bucket under the
+ * hand in bulk. Precision is one tick, which is plenty for command timeouts
+ * measured in seconds. One wheel is shared by every {@link CdpClient}.
+ */
+final class CdpTimeoutWheel {
+    private static final CdpTimeoutWheel SHARED = new CdpTimeoutWheel(Duration.ofMillis(100), 512);
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<ArrayDeque<Timeout>> buckets;
+    private final ConcurrentLinkedQueue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final long startedAt = System.nanoTime();
+    /** Only touched by the worker thread. */
+    private long tick;
+
+    /**
+     * A scheduled expiry. {@link #cancel()} it once the command has completed.
+     */
+    static final class Timeout {
+        private final long deadline;
+        private final Runnable task;
+        private volatile boolean cancelled;
+        private long rounds;
+
+        private Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+
+    CdpTimeoutWheel(Duration tick, int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of two: " + wheelSize);
+        }
+        this.tickNanos = tick.toNanos();
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        Thread worker = new Thread(this::run, "cdp-timeouts");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    static CdpTimeoutWheel shared() {
+        return SHARED;
+    }
+
+    /**
+     * Runs {@code task} on the wheel thread once {@code delay} has elapsed, unless
+     * cancelled first. The task must be quick; it runs inline on the tick.
+     */
+    Timeout schedule(Duration delay, Runnable task) {
+        Timeout timeout = new Timeout(System.nanoTime() + delay.toNanos(), task);
+        incoming.offer(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (true) {
+            long nextTick = startedAt + (tick + 1) * tickNanos;
+            long sleep = nextTick - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+            transferIncoming();
+            expire(buckets.get((int) (tick & mask)), System.nanoTime());
+            tick++;
+        }
+    }
+
+    private void transferIncoming() {
+        Timeout timeout;
+        while ((timeout = incoming.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long dueTick = Math.max((timeout.deadline - startedAt) / tickNanos, tick);
+            timeout.rounds = (dueTick - tick) / buckets.size();
+            buckets.get((int) (dueTick & mask)).add(timeout);
+        }
+    }
+
+    private static void expire(ArrayDeque<Timeout> bucket, long now) {
+        Iterator<Timeout> it = bucket.iterator();
+        while (it.hasNext()) {
+            Timeout timeout = it.next();
+            if (timeout.cancelled) {
+                it.remove();
+            } else if (timeout.rounds > 0) {
+                timeout.rounds--;
+            } else if (timeout.deadline <= now) {
+                // Buckets are processed after their tick has ended, so a timeout
+                // with no rounds left is always due here.
+                it.remove();
+                try {
+                    timeout.task.run();
+                } catch (Exception ignored) {
+                    // an expiry task must never kill the wheel thread
+                }
+            }
+        }
+    }
+}
@@ -27,6 +27,10 @@ public class CdpTraceCollector {
     private final ConcurrentLinkedQueue<Map<String, Object>> networkRequests = new ConcurrentLinkedQueue<>();
     private final ConcurrentHashMap<String, Map<String, Object>> pendingRequests = new ConcurrentHashMap<>();
 
+    /** CDP events the collector subscribes to while recording. */
+    private static final List<String> TRACED_EVENTS = List.of("Runtime.consoleAPICalled",
+            "Network.requestWillBeSent", "Network.responseReceived", "Network.loadingFinished");
+
     private boolean isRecording = false;
     private long startTime;
     private Consumer<JsonNode> cdpEventListener;
@@ -82,7 +86,9 @@ public class CdpTraceCollector {
                             // Suppress exceptions in listener callback
                         }
                     };
-                    client.addEventListener(cdpEventListener);
+                    for (String method : TRACED_EVENTS) {
+                        client.on(method, cdpEventListener);
+                    }
 
                     // Enable domains
                     try {
@@ -110,7 +116,9 @@ public class CdpTraceCollector {
             try {
                 CdpClient client = cdp.getClient();
                 if (client != null) {
-                    client.removeEventListener(cdpEventListener);
+                    for (String method : TRACED_EVENTS) {
+                        client.off(method, cdpEventListener);
+                    }
                     client.sendCommand("Runtime.disable", Duration.ofSeconds(5));
                     client.sendCommand("Console.disable", Duration.ofSeconds(5));
                     client.sendCommand("Network.disable", Duration.ofSeconds(5));
@@ -196,21 +204,48 @@ public class CdpTraceCollector {
         "cdphandler.ApiResponse",
         "cdphandler.BrowserContext",
         "cdphandler.BrowserLauncher",
+        "cdphandler.CdpActions",
+        "cdphandler.CdpBinaryDecoder",
+        "cdphandler.CdpBlockProfile",
         "cdphandler.CdpBy",
         "cdphandler.CdpClient",
+        "cdphandler.CdpCommand",
         "cdphandler.CdpDimension",
+        "cdphandler.CdpDispatchStats",
         "cdphandler.CdpDriver",
+        "cdphandler.CdpDriverDecorator",
         "cdphandler.CdpDriverProxy",
         "cdphandler.CdpElement",
+        "cdphandler.CdpElementDecorator",
         "cdphandler.CdpElementProxy",
+        "cdphandler.CdpElements",
+        "cdphandler.CdpEventDispatcher",
+        "cdphandler.CdpEventPolicy",
+        "cdphandler.CdpFlightRecorder",
         "cdphandler.CdpHandler",
+        "cdphandler.CdpHelperRuntime",
+        "cdphandler.CdpJfrEvents",
         "cdphandler.CdpKey",
+        "cdphandler.CdpKeyboard",
+        "cdphandler.CdpLifecycle",
+        "cdphandler.CdpLoadState",
+        "cdphandler.CdpLocatorCache",
+        "cdphandler.CdpLocatorCacheStats",
         "cdphandler.CdpLocatorType",
+        "cdphandler.CdpNetworkTracker",
+        "cdphandler.CdpPipeline",
         "cdphandler.CdpPoint",
         "cdphandler.CdpRect",
+        "cdphandler.CdpRequestStats",
+        "cdphandler.CdpResourceBlocker",
         "cdphandler.CdpScripts",
+        "cdphandler.CdpSendQueue",
+        "cdphandler.CdpSendStats",
+        "cdphandler.CdpTimeoutWheel",
         "cdphandler.CdpTraceCollector",
+        "cdphandler.CdpTypingMode",
         "cdphandler.CdpUtility",
+        "cdphandler.CdpWait",
         "cdphandler.ICdpDriver",
         "cdphandler.ICdpElement",
         "cdphandler.MouseEvent",
@@ -348,8 +383,11 @@ public class CdpTraceCollector {
 
         boolean isModifying = isStateModifying(name);
         if (isModifying) {
+            CdpJfrEvents.TraceCapture capture = new CdpJfrEvents.TraceCapture();
+            capture.begin();
             traceAction.put("screenshotBefore", captureScreenshot(actionId + "_before"));
             traceAction.put("pageSourceBefore", capturePageSource());
+            commitCapture(capture, name, "before");
         }
 
         T result;
@@ -366,8 +404,11 @@ public class CdpTraceCollector {
             traceAction.put("duration", endTime - ((Long) traceAction.get("startTime")));
 
             if (isModifying || "failed".equals(traceAction.get("status"))) {
+                CdpJfrEvents.TraceCapture capture = new CdpJfrEvents.TraceCapture();
+                capture.begin();
                 traceAction.put("screenshotAfter", captureScreenshot(actionId + "_after"));
                 traceAction.put("pageSourceAfter", capturePageSource());
+                commitCapture(capture, name, "after");
             }
 
             actions.add(traceAction);
@@ -382,6 +423,15 @@ public class CdpTraceCollector {
         });
     }
 
+    private static void commitCapture(CdpJfrEvents.TraceCapture capture, String action, String phase) {
+        capture.end();
+        if (capture.shouldCommit()) {
+            capture.action = action;
+            capture.phase = phase;
+            capture.commit();
+        }
+    }
+
     private boolean isStateModifying(String actionName) {
         return List.of("get", "back", "forward", "refresh", "click", "doubleClick", "dragDrop", "clear", "sendKeys",
                 "keyPress", "keyDown", "keyUp", "scrollBy").contains(actionName);
@@ -389,10 +439,9 @@ public class CdpTraceCollector {
 
     private String captureScreenshot(String filename) {
         try {
-            String base64 = driver.captureScreenshot();
-            if (base64 == null || base64.isEmpty())
+            byte[] bytes = driver.captureScreenshotBytes();
+            if (bytes == null || bytes.length == 0)
                 return null;
-            byte[] bytes = Base64.getDecoder().decode(base64);
             File file = new File(tempDir, "screenshots/" + filename + ".png");
             Files.write(file.toPath(), bytes);
             return "screenshots/" + filename + ".png";
@@ -0,0 +1,32 @@
+package cdphandler;
+
+/**
+ * How {@link ICdpDriver#sendKeys(String)} and {@link ICdpElement#sendKeys(String)}
+ * enter text. See {@link ICdpDriver#setTypingMode(CdpTypingMode)}; the default is
+ * read from {@code -Dcdp.typingMode} and falls back to {@link #KEYSTROKES}.
+ */
+public enum CdpTypingMode {
+    /**
+     * A {@code keyDown} and {@code keyUp} per character, each awaited, with the
+     * driver's polling interval between them for driver-level typing. Slowest, but
+     * closest to a person typing.
+     */
+    KEYSTROKES,
+    /**
+     * The same key events as {@link #KEYSTROKES}, sent back-to-back as a
+     * {@link CdpPipeline} without pauses, so the whole text costs about one round
+     * trip. Pages still see every key event.
+     */
+    PIPELINED,
+    /**
+     * The whole text in one {@code Input.insertText}. The page sees
+     * {@code beforeinput}/{@code input} events but no key events, so key handlers
+     * (e.g. autocomplete on {@code keyup}) do not fire.
+     */
+    INSERT_TEXT,
+    /**
+     * Runs of ordinary text through {@code Input.insertText} and special keys
+     * (Enter, Tab, Backspace, Escape) as key events, all in one pipeline.
+     */
+    HYBRID
+}
@@ -1,28 +1,82 @@
 package cdphandler;
 
+import cdphandler.protocol.Input;
 import com.fasterxml.jackson.databind.JsonNode;
 import logger.Log;
 import logger.Logger;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 /**
  * Utility class for interacting with the Chrome DevTools Protocol (CDP).
  * Provides methods to execute various CDP commands across different domains
- * such as Browser, DOM, Input, Log, Network, Overlay, Page, Performance,
+ * such as Browser, DOM, Fetch, Input, Log, Network, Overlay, Page, Performance,
  * Runtime, and SystemInfo.
+ * <p>
+ * Commands on interaction hot paths also have {@code *Async} variants returning
+ * {@link CompletableFuture}, and {@link #pipeline()} batches independent
+ * commands so their round trips overlap instead of running one after another.
  */
 public class CdpUtility {
     private static final Logger log = Log.getLogger(CdpUtility.class);
+    /**
+     * Logs every incoming CDP event when the system property {@code cdp.logEvents}
+     * is {@code true}. Off by default: a catch-all listener forces every event on a
+     * busy page to be parsed and formatted.
+     */
+    private static final boolean LOG_EVENTS = Boolean.parseBoolean(System.getProperty("cdp.logEvents", "false"));
+    /**
+     * Events that may settle a pending wait; only the latest of each needs to reach the listener.
+     * Network activity is signalled by the {@link CdpNetworkTracker} going idle rather than per
+     * request, which on a busy page would keep resetting the wait's backoff.
+     */
+    private static final List<String> WAIT_SIGNAL_EVENTS = List.of("Page.lifecycleEvent", "Page.loadEventFired",
+            "Page.domContentEventFired");
+    /**
+     * Logs each command with its params and (truncated) response. On by default;
+     * set {@code -Dcdp.logCommands=false} to rely on the {@link CdpFlightRecorder}
+     * instead.
+     */
+    private static final boolean LOG_COMMANDS = Boolean.parseBoolean(System.getProperty("cdp.logCommands", "true"));
+    private static final int MAX_LOGGED_RESPONSE_CHARS = 2000;
     private final CdpClient client;
     private final ApiInterceptor apiInterceptor;
+    private final CdpHelperRuntime helperRuntime;
+    private final CdpWait wait = new CdpWait();
+    private final CdpLifecycle lifecycle;
+    private final CdpResourceBlocker resourceBlocker;
     /**
-     * Default duration for command execution timeout.
+     * Default duration for command execution timeout, used for methods without an
+     * entry in the per-method timeouts.
      */
     public Duration defaultDuration = Duration.ofMinutes(2);
 
+    /**
+     * Built-in timeouts by method or domain. Commands that should answer
+     * promptly get short limits so a hung target cannot pile up pending requests
+     * for the full {@link #defaultDuration}; script evaluation keeps the default.
+     */
+    private static final Map<String, Duration> DEFAULT_METHOD_TIMEOUTS = Map.of(
+            "Input", Duration.ofSeconds(10),
+            "DOM", Duration.ofSeconds(30),
+            "Emulation", Duration.ofSeconds(10),
+            "Network.getResponseBody", Duration.ofSeconds(10),
+            "Page.captureScreenshot", Duration.ofSeconds(30),
+            "Page.navigate", Duration.ofSeconds(60),
+            "Page.screencastFrameAck", Duration.ofSeconds(5),
+            "Target", Duration.ofSeconds(30));
+
+    private final Map<String, Duration> methodTimeouts = new ConcurrentHashMap<>(DEFAULT_METHOD_TIMEOUTS);
+
     /**
      * Constructs a new CdpUtility instance connected to a page-level target.
      * Network interception is enabled automatically.
@@ -44,9 +98,34 @@ public class CdpUtility {
      *                                 connections where Network is unavailable).
      */
     public CdpUtility(String websocketDebuggerAddress, boolean enableNetwork) {
-        this.client = new CdpClient(websocketDebuggerAddress);
+        this(new CdpClient(websocketDebuggerAddress), enableNetwork);
+    }
+
+    /**
+     * Constructs a new CdpUtility instance on top of an existing client, e.g. a
+     * session-bound client obtained from {@link CdpClient#attachToTarget(String)}.
+     *
+     * @param client        The connected CDP client to issue commands through.
+     * @param enableNetwork Whether to enable the Network domain.
+     */
+    // The helper runtime, lifecycle and resource blocker only store the reference here
+    @SuppressWarnings("this-escape")
+    public CdpUtility(CdpClient client, boolean enableNetwork) {
+        this.client = client;
         this.apiInterceptor = enableNetwork ? new ApiInterceptor(client) : null;
-        client.addEventListener(evt -> log.info("Event: " + evt.toString()));
+        this.helperRuntime = new CdpHelperRuntime(this);
+        this.lifecycle = new CdpLifecycle(this);
+        this.resourceBlocker = new CdpResourceBlocker(this, lifecycle);
+        if (LOG_EVENTS) {
+            client.addEventListener(evt -> log.info("Event: " + evt.toString()));
+        }
+        Consumer<JsonNode> signal = event -> wait.signal();
+        for (String event : WAIT_SIGNAL_EVENTS) {
+            client.on(event, signal, CdpEventPolicy.COALESCE, WAIT_SIGNAL_EVENTS.size());
+        }
+        if (apiInterceptor != null) {
+            apiInterceptor.getNetworkTracker().onIdle(wait::signal);
+        }
     }
 
     /**
@@ -57,7 +136,34 @@ public class CdpUtility {
     }
 
     private JsonNode executeCdpCommand(String command, Map<String, Object> map) {
-        return executeCdpCommand(command, map, defaultDuration);
+        return executeCdpCommand(command, map, timeoutFor(command));
+    }
+
+    /**
+     * Returns the timeout used for {@code method}: its own entry, else its domain's
+     * entry, else {@link #defaultDuration}.
+     *
+     * @param method CDP method name, e.g. {@code "Input.dispatchKeyEvent"}.
+     * @return The timeout to apply.
+     */
+    public Duration timeoutFor(String method) {
+        Duration timeout = methodTimeouts.get(method);
+        if (timeout == null) {
+            int dot = method.indexOf('.');
+            timeout = dot > 0 ? methodTimeouts.get(method.substring(0, dot)) : null;
+        }
+        return timeout != null ? timeout : defaultDuration;
+    }
+
+    /**
+     * Overrides the timeout for a method (e.g. {@code "Page.navigate"}) or a whole
+     * domain (e.g. {@code "DOM"}).
+     *
+     * @param methodOrDomain Method or domain name.
+     * @param timeout        The timeout to apply.
+     */
+    public void setMethodTimeout(String methodOrDomain, Duration timeout) {
+        methodTimeouts.put(methodOrDomain, timeout);
     }
 
     private JsonNode executeCdpCommand(String command, Map<String, Object> map, Duration timeout) {
@@ -65,7 +171,7 @@ public class CdpUtility {
             // sendCommand already unwraps the "result" node from the CDP response
             // and throws on CDP errors, so we return the response directly.
             JsonNode response = client.sendCommand(command, map, timeout);
-            log.info(command + " invoked: \nmap: " + map + "; \nresponse: " + response);
+            logCommand(command, map, response);
             if (response == null) {
                 log.error("CDP command " + command + " failed: Response was null");
                 return null;
@@ -76,13 +182,125 @@ public class CdpUtility {
         }
     }
 
+    private JsonNode executeCdpCommand(CdpCommand<?> command) {
+        try {
+            JsonNode response = client.sendCommandFuture(command, timeoutFor(command.method())).get();
+            logCommand(command.method(), command, response);
+            return response;
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private CompletableFuture<JsonNode> executeCdpCommandAsync(CdpCommand<?> command) {
+        return client.sendCommandFuture(command, timeoutFor(command.method()))
+                .thenApply(response -> {
+                    logCommand(command.method(), command, response);
+                    return response;
+                });
+    }
+
+    private CompletableFuture<JsonNode> executeCdpCommandAsync(String command, Map<String, Object> map) {
+        return client.sendCommandFuture(command, map, timeoutFor(command))
+                .thenApply(response -> {
+                    logCommand(command, map, response);
+                    return response;
+                });
+    }
+
+    private static void logCommand(String command, Object map, JsonNode response) {
+        if (!LOG_COMMANDS) {
+            return;
+        }
+        String text = String.valueOf(response);
+        if (text.length() > MAX_LOGGED_RESPONSE_CHARS) {
+            text = text.substring(0, MAX_LOGGED_RESPONSE_CHARS) + "... (" + text.length() + " chars)";
+        }
+        log.info(command + " invoked: \nmap: " + map + "; \nresponse: " + text);
+    }
+
+    private byte[] executeCdpCommandBytes(String command, Map<String, Object> map) {
+        try {
+            byte[] data = client.sendCommandBytes(command, map, timeoutFor(command)).get();
+            if (LOG_COMMANDS) {
+                log.info(command + " invoked: \nmap: " + map + "; \nresponse: " + data.length + " bytes");
+            }
+            return data;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Sends an arbitrary CDP command without waiting for its response.
+     *
+     * @param command CDP method name.
+     * @param map     Parameters map (nullable).
+     * @return A future completed with the command result.
+     */
+    public CompletableFuture<JsonNode> executeAsync(String command, Map<String, Object> map) {
+        return executeCdpCommandAsync(command, map);
+    }
+
+    /**
+     * Sends a typed command from {@code cdphandler.protocol} and waits for its parsed
+     * result, using the command's {@linkplain #timeoutFor(String) per-method timeout}.
+     *
+     * <pre>
+     * Page.NavigateResult result = cdp.execute(new Page.Navigate(url).withReferrer(referrer));
+     * </pre>
+     *
+     * @param command The command to send.
+     * @return The parsed result, {@code null} for commands without one.
+     */
+    public <R> R execute(CdpCommand<R> command) {
+        return command.parseResult(executeCdpCommand(command));
+    }
+
+    /**
+     * Asynchronous variant of {@link #execute(CdpCommand)}.
+     */
+    public <R> CompletableFuture<R> executeAsync(CdpCommand<R> command) {
+        return executeCdpCommandAsync(command).thenApply(command::parseResult);
+    }
+
+    /**
+     * Starts a pipeline of independent commands that are sent back-to-back and
+     * awaited together.
+     *
+     * <pre>
+     * List&lt;JsonNode&gt; results = cdp.pipeline()
+     *         .runtimeEvaluate("document.title", true)
+     *         .runtimeEvaluate("document.URL", true)
+     *         .execute();
+     * </pre>
+     *
+     * @return A new, empty pipeline bound to this utility.
+     */
+    public CdpPipeline pipeline() {
+        return new CdpPipeline(this);
+    }
+
+    /**
+     * Starts a pointer and key gesture that is sent back-to-back by
+     * {@link CdpActions#perform()}.
+     *
+     * @return A new, empty gesture with no modifier keys held.
+     */
+    public CdpActions actions() {
+        return new CdpActions(this, 0);
+    }
+
     /**
      * Returns version information.
      *
      * @return The version information.
      */
     public JsonNode browserGetVersion() {
-        return executeCdpCommand("Browser.getVersion", Map.of(), defaultDuration);
+        return executeCdpCommand("Browser.getVersion", Map.of());
     }
 
     /**
@@ -91,13 +309,13 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode browserClose() {
-        return executeCdpCommand("Browser.close", Map.of(), defaultDuration);
+        return executeCdpCommand("Browser.close", Map.of());
     }
 
     public JsonNode browserGetWindowForTarget(String targetId) {
         Map<String, Object> map = new HashMap<>();
         map.put("targetId", targetId);
-        return executeCdpCommand("Browser.getWindowForTarget", map, defaultDuration);
+        return executeCdpCommand("Browser.getWindowForTarget", map);
     }
 
     public JsonNode browserSetWindowBounds(int windowId, int x, int y, int width, int height, String windowState) {
@@ -116,7 +334,7 @@ public class CdpUtility {
         Map<String, Object> map = new HashMap<>();
         map.put("windowId", windowId);
         map.put("bounds", bounds);
-        return executeCdpCommand("Browser.setWindowBounds", map, defaultDuration);
+        return executeCdpCommand("Browser.setWindowBounds", map);
     }
 
     /**
@@ -128,7 +346,7 @@ public class CdpUtility {
     public JsonNode domDescribeNode(int backendNodeId) {
         Map<String, Object> map = new HashMap<>();
         map.put("backendNodeId", backendNodeId);
-        return executeCdpCommand("DOM.describeNode", map, defaultDuration);
+        return executeCdpCommand("DOM.describeNode", map);
     }
 
     /**
@@ -137,7 +355,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode domDisable() {
-        return executeCdpCommand("DOM.disable", Map.of(), defaultDuration);
+        return executeCdpCommand("DOM.disable", Map.of());
     }
 
     /**
@@ -146,7 +364,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode domEnable() {
-        return executeCdpCommand("DOM.enable", Map.of(), defaultDuration);
+        return executeCdpCommand("DOM.enable", Map.of());
     }
 
     /**
@@ -158,7 +376,7 @@ public class CdpUtility {
     public JsonNode domFocus(int backendNodeId) {
         Map<String, Object> map = new HashMap<>();
         map.put("backendNodeId", backendNodeId);
-        return executeCdpCommand("DOM.focus", map, defaultDuration);
+        return executeCdpCommand("DOM.focus", map);
     }
 
     /**
@@ -170,7 +388,7 @@ public class CdpUtility {
     public JsonNode domGetAttributes(int nodeId) {
         Map<String, Object> map = new HashMap<>();
         map.put("nodeId", nodeId);
-        return executeCdpCommand("DOM.getAttributes", map, defaultDuration);
+        return executeCdpCommand("DOM.getAttributes", map);
     }
 
     /**
@@ -182,7 +400,16 @@ public class CdpUtility {
     public JsonNode domGetBoxModel(int backendNodeId) {
         Map<String, Object> map = new HashMap<>();
         map.put("backendNodeId", backendNodeId);
-        return executeCdpCommand("DOM.getBoxModel", map, defaultDuration);
+        return executeCdpCommand("DOM.getBoxModel", map);
+    }
+
+    /**
+     * Asynchronous variant of {@link #domGetBoxModel(int)}.
+     */
+    public CompletableFuture<JsonNode> domGetBoxModelAsync(int backendNodeId) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("backendNodeId", backendNodeId);
+        return executeCdpCommandAsync("DOM.getBoxModel", map);
     }
 
     /**
@@ -191,7 +418,7 @@ public class CdpUtility {
      * @return The document root.
      */
     public JsonNode domGetDocument() {
-        return executeCdpCommand("DOM.getDocument", Map.of(), defaultDuration);
+        return executeCdpCommand("DOM.getDocument", Map.of());
     }
 
     /**
@@ -205,7 +432,7 @@ public class CdpUtility {
         Map<String, Object> map = new HashMap<>();
         map.put("x", x);
         map.put("y", y);
-        return executeCdpCommand("DOM.getNodeForLocation", map, defaultDuration);
+        return executeCdpCommand("DOM.getNodeForLocation", map);
     }
 
     /**
@@ -215,7 +442,7 @@ public class CdpUtility {
      * @return The outer HTML.
      */
     public JsonNode domGetOuterHtml(int nodeId) {
-        return domGetOuterHtml(nodeId, defaultDuration);
+        return domGetOuterHtml(nodeId, timeoutFor("DOM.getOuterHTML"));
     }
 
     public JsonNode domGetOuterHtml(int nodeId, Duration timeout) {
@@ -235,7 +462,7 @@ public class CdpUtility {
         Map<String, Object> map = new HashMap<>();
         map.put("nodeId", nodeId);
         map.put("selector", selector);
-        return executeCdpCommand("DOM.querySelector", map, defaultDuration);
+        return executeCdpCommand("DOM.querySelector", map);
     }
 
     /**
@@ -249,7 +476,50 @@ public class CdpUtility {
         Map<String, Object> map = new HashMap<>();
         map.put("nodeId", nodeId);
         map.put("selector", selector);
-        return executeCdpCommand("DOM.querySelectorAll", map, defaultDuration);
+        return executeCdpCommand("DOM.querySelectorAll", map);
+    }
+
+    /**
+     * Fire-and-forget {@code Fetch.continueRequest}: lets a paused request proceed
+     * unchanged. Safe to call from within a CDP event listener callback.
+     *
+     * @param requestId Identifier from {@code Fetch.requestPaused}.
+     */
+    public void fetchContinueRequestAsync(String requestId) {
+        client.sendCommandAsync("Fetch.continueRequest", Map.of("requestId", requestId));
+    }
+
+    /**
+     * Disables request interception.
+     *
+     * @return The command result.
+     */
+    public JsonNode fetchDisable() {
+        return executeCdpCommand("Fetch.disable", Map.of());
+    }
+
+    /**
+     * Pauses requests matching any of {@code patterns} with a
+     * {@code Fetch.requestPaused} event until they are continued or failed.
+     * Calling it again replaces the patterns.
+     *
+     * @param patterns {@code RequestPattern} objects ({@code urlPattern},
+     *                 {@code resourceType}, {@code requestStage}).
+     * @return The command result.
+     */
+    public JsonNode fetchEnable(List<Map<String, Object>> patterns) {
+        return executeCdpCommand("Fetch.enable", Map.of("patterns", patterns));
+    }
+
+    /**
+     * Fire-and-forget {@code Fetch.failRequest}: fails a paused request. Safe to
+     * call from within a CDP event listener callback.
+     *
+     * @param requestId   Identifier from {@code Fetch.requestPaused}.
+     * @param errorReason Network error reported to the page, e.g. {@code "BlockedByClient"}.
+     */
+    public void fetchFailRequestAsync(String requestId, String errorReason) {
+        client.sendCommandAsync("Fetch.failRequest", Map.of("requestId", requestId, "errorReason", errorReason));
     }
 
     /**
@@ -272,19 +542,35 @@ public class CdpUtility {
      */
     public JsonNode inputDispatchKeyEvent(String type, int modifiers, String text, String keyIdentifier, String code,
             String key, int windowsVirtualKeyCode, int nativeVirtualKeyCode) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("type", type);
-        map.put("modifiers", modifiers);
-        map.put("text", text);
-        map.put("keyIdentifier", keyIdentifier);
-        map.put("code", code);
-        map.put("key", key);
-        map.put("windowsVirtualKeyCode", windowsVirtualKeyCode);
-        map.put("nativeVirtualKeyCode", nativeVirtualKeyCode);
-        map.put("autoRepeat", false);
-        map.put("isKeypad", false);
-        map.put("isSystemKey", false);
-        return executeCdpCommand("Input.dispatchKeyEvent", map, defaultDuration);
+        return executeCdpCommand(keyEvent(type, modifiers, text, keyIdentifier, code, key, windowsVirtualKeyCode,
+                nativeVirtualKeyCode));
+    }
+
+    /**
+     * Asynchronous variant of
+     * {@link #inputDispatchKeyEvent(String, int, String, String, String, String, int, int)}.
+     */
+    public CompletableFuture<JsonNode> inputDispatchKeyEventAsync(String type, int modifiers, String text,
+            String keyIdentifier, String code, String key, int windowsVirtualKeyCode, int nativeVirtualKeyCode) {
+        return executeCdpCommandAsync(keyEvent(type, modifiers, text, keyIdentifier, code, key,
+                windowsVirtualKeyCode, nativeVirtualKeyCode));
+    }
+
+    /**
+     * Inserts text into the focused element as if it came from an IME, without
+     * key events.
+     *
+     * @param text The text to insert.
+     * @return The command result.
+     */
+    public JsonNode inputInsertText(String text) {
+        return executeCdpCommand(new Input.InsertText(text));
+    }
+
+    static Input.DispatchKeyEvent keyEvent(String type, int modifiers, String text, String keyIdentifier,
+            String code, String key, int windowsVirtualKeyCode, int nativeVirtualKeyCode) {
+        return new Input.DispatchKeyEvent(type, modifiers, null, text, null, keyIdentifier, code, key,
+                windowsVirtualKeyCode, nativeVirtualKeyCode, false, false, false, null, null);
     }
 
     /**
@@ -302,14 +588,22 @@ public class CdpUtility {
      */
     public JsonNode inputDispatchMouseEvent(MouseEvent eventType, int x, int y, int modifiers, String button,
             int clickCount) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("type", eventType.toString());
-        map.put("x", x);
-        map.put("y", y);
-        map.put("modifiers", modifiers);
-        map.put("button", button);
-        map.put("clickCount", clickCount);
-        return executeCdpCommand("Input.dispatchMouseEvent", map, defaultDuration);
+        return executeCdpCommand(mouseEvent(eventType, x, y, modifiers, button, clickCount));
+    }
+
+    /**
+     * Asynchronous variant of
+     * {@link #inputDispatchMouseEvent(MouseEvent, int, int, int, String, int)}.
+     */
+    public CompletableFuture<JsonNode> inputDispatchMouseEventAsync(MouseEvent eventType, int x, int y,
+            int modifiers, String button, int clickCount) {
+        return executeCdpCommandAsync(mouseEvent(eventType, x, y, modifiers, button, clickCount));
+    }
+
+    static Input.DispatchMouseEvent mouseEvent(MouseEvent eventType, int x, int y, int modifiers, String button,
+            int clickCount) {
+        return new Input.DispatchMouseEvent(eventType.toString(), x, y).withModifiers(modifiers).withButton(button)
+                .withClickCount(clickCount);
     }
 
     /**
@@ -318,7 +612,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode logClear() {
-        return executeCdpCommand("Log.clear", Map.of(), defaultDuration);
+        return executeCdpCommand("Log.clear", Map.of());
     }
 
     /**
@@ -328,7 +622,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode logDisable() {
-        return executeCdpCommand("Log.disable", Map.of(), defaultDuration);
+        return executeCdpCommand("Log.disable", Map.of());
     }
 
     /**
@@ -338,7 +632,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode logEnable() {
-        return executeCdpCommand("Log.enable", Map.of(), defaultDuration);
+        return executeCdpCommand("Log.enable", Map.of());
     }
 
     /**
@@ -347,7 +641,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode networkClearBrowserCache() {
-        return executeCdpCommand("Network.clearBrowserCache", Map.of(), defaultDuration);
+        return executeCdpCommand("Network.clearBrowserCache", Map.of());
     }
 
     /**
@@ -356,7 +650,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode networkClearBrowserCookies() {
-        return executeCdpCommand("Network.clearBrowserCookies", Map.of(), defaultDuration);
+        return executeCdpCommand("Network.clearBrowserCookies", Map.of());
     }
 
     /**
@@ -366,7 +660,18 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode networkDisable() {
-        return executeCdpCommand("Network.disable", Map.of(), defaultDuration);
+        return executeCdpCommand("Network.disable", Map.of());
+    }
+
+    /**
+     * Returns the body of a finished response as raw bytes; base64-encoded bodies
+     * are decoded, text bodies are returned as UTF-8.
+     *
+     * @param requestId Identifier of the network request.
+     * @return The response body.
+     */
+    public byte[] networkGetResponseBodyBytes(String requestId) {
+        return executeCdpCommandBytes("Network.getResponseBody", Map.of("requestId", requestId));
     }
 
     /**
@@ -375,7 +680,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode networkEnable() {
-        return executeCdpCommand("Network.enable", Map.of(), defaultDuration);
+        return executeCdpCommand("Network.enable", Map.of());
     }
 
     /**
@@ -384,7 +689,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode overlayDisable() {
-        return executeCdpCommand("Overlay.disable", Map.of(), defaultDuration);
+        return executeCdpCommand("Overlay.disable", Map.of());
     }
 
     /**
@@ -393,7 +698,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode overlayEnable() {
-        return executeCdpCommand("Overlay.enable", Map.of(), defaultDuration);
+        return executeCdpCommand("Overlay.enable", Map.of());
     }
 
     /**
@@ -402,7 +707,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode overlayHideHighlight() {
-        return executeCdpCommand("Overlay.hideHighlight", Map.of(), defaultDuration);
+        return executeCdpCommand("Overlay.hideHighlight", Map.of());
     }
 
     /**
@@ -426,13 +731,13 @@ public class CdpUtility {
         map.put("width", width);
         map.put("height", height);
         map.put("outlineColor", outlineColor);
-        return executeCdpCommand("Overlay.highlightRect", map, defaultDuration);
+        return executeCdpCommand("Overlay.highlightRect", map);
     }
 
     public JsonNode pageAddScriptToEvaluateOnNewDocument(String script) {
         Map<String, Object> map = new HashMap<>();
         map.put("source", script);
-        return executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", map, defaultDuration);
+        return executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", map);
     }
 
     /**
@@ -441,7 +746,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode pageBringToFront() {
-        return executeCdpCommand("Page.bringToFront", Map.of(), defaultDuration);
+        return executeCdpCommand("Page.bringToFront", Map.of());
     }
 
     /**
@@ -453,7 +758,29 @@ public class CdpUtility {
     public JsonNode pageCaptureScreenshot(String format) {
         Map<String, Object> map = new HashMap<>();
         map.put("format", format);
-        return executeCdpCommand("Page.captureScreenshot", map, defaultDuration);
+        return executeCdpCommand("Page.captureScreenshot", map);
+    }
+
+    /**
+     * Captures page screenshot and returns the decoded image bytes. Skips the JSON
+     * tree and the base64 string the {@link #pageCaptureScreenshot(String)} path builds.
+     *
+     * @param format Image compression format (jpeg or png).
+     * @return The encoded image.
+     */
+    public byte[] pageCaptureScreenshotBytes(String format) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("format", format);
+        return executeCdpCommandBytes("Page.captureScreenshot", map);
+    }
+
+    /**
+     * Asynchronous variant of {@link #pageCaptureScreenshot(String)}.
+     */
+    public CompletableFuture<JsonNode> pageCaptureScreenshotAsync(String format) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("format", format);
+        return executeCdpCommandAsync("Page.captureScreenshot", map);
     }
 
     /**
@@ -478,7 +805,7 @@ public class CdpUtility {
         Map<String, Object> map = new HashMap<>();
         map.put("format", format);
         map.put("clip", clip);
-        return executeCdpCommand("Page.captureScreenshot", map, defaultDuration);
+        return executeCdpCommand("Page.captureScreenshot", map);
     }
 
     /**
@@ -487,7 +814,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode pageClose() {
-        return executeCdpCommand("Page.close", Map.of(), defaultDuration);
+        return executeCdpCommand("Page.close", Map.of());
     }
 
     /**
@@ -496,7 +823,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode pageDisable() {
-        return executeCdpCommand("Page.disable", Map.of(), defaultDuration);
+        return executeCdpCommand("Page.disable", Map.of());
     }
 
     /**
@@ -505,7 +832,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode pageEnable() {
-        return executeCdpCommand("Page.enable", Map.of(), defaultDuration);
+        return executeCdpCommand("Page.enable", Map.of());
     }
 
     /**
@@ -517,7 +844,46 @@ public class CdpUtility {
     public JsonNode pageNavigate(String url) {
         Map<String, Object> map = new HashMap<>();
         map.put("url", url);
-        return executeCdpCommand("Page.navigate", map, defaultDuration);
+        return executeCdpCommand("Page.navigate", map);
+    }
+
+    /**
+     * Asynchronous variant of {@link #pageNavigate(String)}.
+     */
+    public CompletableFuture<JsonNode> pageNavigateAsync(String url) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("url", url);
+        return executeCdpCommandAsync("Page.navigate", map);
+    }
+
+    /**
+     * Returns the navigation history of the current page.
+     *
+     * @return The Page.getNavigationHistory result with {@code currentIndex} and
+     * {@code entries}.
+     */
+    public JsonNode pageGetNavigationHistory() {
+        return executeCdpCommand("Page.getNavigationHistory", Map.of());
+    }
+
+    /**
+     * Navigates the current page to the given history entry.
+     *
+     * @param entryId Id of an entry from {@link #pageGetNavigationHistory()}.
+     * @return The command result.
+     */
+    public JsonNode pageNavigateToHistoryEntry(int entryId) {
+        return executeCdpCommand("Page.navigateToHistoryEntry", Map.of("entryId", entryId));
+    }
+
+    /**
+     * Controls whether page will emit lifecycle events.
+     *
+     * @param enabled If true, starts emitting lifecycle events.
+     * @return The command result.
+     */
+    public JsonNode pageSetLifecycleEventsEnabled(boolean enabled) {
+        return executeCdpCommand("Page.setLifecycleEventsEnabled", Map.of("enabled", enabled));
     }
 
     /**
@@ -526,7 +892,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode pageReload() {
-        return executeCdpCommand("Page.reload", Map.of(), defaultDuration);
+        return executeCdpCommand("Page.reload", Map.of());
     }
 
     /**
@@ -535,7 +901,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode performanceDisable() {
-        return executeCdpCommand("Performance.disable", Map.of(), defaultDuration);
+        return executeCdpCommand("Performance.disable", Map.of());
     }
 
     /**
@@ -544,7 +910,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode performanceEnable() {
-        return executeCdpCommand("Performance.enable", Map.of(), defaultDuration);
+        return executeCdpCommand("Performance.enable", Map.of());
     }
 
     /**
@@ -553,7 +919,7 @@ public class CdpUtility {
      * @return The metrics.
      */
     public JsonNode performanceGetMetrics() {
-        return executeCdpCommand("Performance.getMetrics", Map.of(), defaultDuration);
+        return executeCdpCommand("Performance.getMetrics", Map.of());
     }
 
     /**
@@ -562,7 +928,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode runtimeDisable() {
-        return executeCdpCommand("Runtime.disable", Map.of(), defaultDuration);
+        return executeCdpCommand("Runtime.disable", Map.of());
     }
 
     /**
@@ -572,7 +938,19 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode runtimeEnable() {
-        return executeCdpCommand("Runtime.enable", Map.of(), defaultDuration);
+        return executeCdpCommand("Runtime.enable", Map.of());
+    }
+
+    /**
+     * Adds a binding function on the global object of every current and future
+     * execution context. Each call produces a {@code Runtime.bindingCalled} event
+     * with the string the page passed.
+     *
+     * @param name Name of the global function.
+     * @return The command result.
+     */
+    public JsonNode runtimeAddBinding(String name) {
+        return executeCdpCommand("Runtime.addBinding", Map.of("name", name));
     }
 
     /**
@@ -584,14 +962,30 @@ public class CdpUtility {
      * @return The evaluation result.
      */
     public JsonNode runtimeEvaluate(String expression, boolean returnByValue) {
-        return runtimeEvaluate(expression, returnByValue, defaultDuration);
+        return runtimeEvaluate(expression, returnByValue, timeoutFor("Runtime.evaluate"));
     }
 
     public JsonNode runtimeEvaluate(String expression, boolean returnByValue, Duration timeout) {
+        JsonNode response = executeCdpCommand("Runtime.evaluate", evaluateParams(expression, returnByValue), timeout);
+        return unwrapEvaluateResult(response);
+    }
+
+    /**
+     * Asynchronous variant of {@link #runtimeEvaluate(String, boolean)}.
+     */
+    public CompletableFuture<JsonNode> runtimeEvaluateAsync(String expression, boolean returnByValue) {
+        return executeCdpCommandAsync("Runtime.evaluate", evaluateParams(expression, returnByValue))
+                .thenApply(CdpUtility::unwrapEvaluateResult);
+    }
+
+    static Map<String, Object> evaluateParams(String expression, boolean returnByValue) {
         Map<String, Object> map = new HashMap<>();
         map.put("expression", expression);
         map.put("returnByValue", returnByValue);
-        JsonNode response = executeCdpCommand("Runtime.evaluate", map, timeout);
+        return map;
+    }
+
+    static JsonNode unwrapEvaluateResult(JsonNode response) {
         // Runtime.evaluate wraps the actual evaluation output in a nested "result" object
         return (response != null && response.has("result")) ? response.get("result") : response;
     }
@@ -611,18 +1005,117 @@ public class CdpUtility {
         map.put("expression", expression);
         map.put("returnByValue", returnByValue);
         map.put("contextId", executionContextId);
-        JsonNode response = executeCdpCommand("Runtime.evaluate", map, defaultDuration);
+        JsonNode response = executeCdpCommand("Runtime.evaluate", map);
         // Runtime.evaluate wraps the actual evaluation output in a nested "result" object
         return (response != null && response.has("result")) ? response.get("result") : response;
     }
 
+    /**
+     * Evaluates expression on global object and keeps the result as a remote
+     * object in the given group, to be released with
+     * {@link #runtimeReleaseObjectGroup(String)}.
+     *
+     * @param expression  Expression to evaluate.
+     * @param objectGroup Object group the result belongs to.
+     * @return The evaluation result, carrying an {@code objectId} for objects.
+     */
+    public JsonNode runtimeEvaluateInGroup(String expression, String objectGroup) {
+        Map<String, Object> map = evaluateParams(expression, false);
+        map.put("objectGroup", objectGroup);
+        return unwrapEvaluateResult(executeCdpCommand("Runtime.evaluate", map));
+    }
+
+    /**
+     * Calls a function with {@code this} bound to a remote object.
+     *
+     * @param objectId            The remote object to call the function on.
+     * @param functionDeclaration Source of the function to call.
+     * @param arguments           Argument values, passed by value.
+     * @param returnByValue       Whether the result should be sent by value.
+     * @param objectGroup         Object group of the result, or {@code null} to
+     *                            inherit the group of {@code objectId}.
+     * @return The call result.
+     */
+    public JsonNode runtimeCallFunctionOn(String objectId, String functionDeclaration, List<Object> arguments,
+            boolean returnByValue, String objectGroup) {
+        return runtimeCallFunctionOn(objectId, functionDeclaration, arguments, List.of(), returnByValue, objectGroup);
+    }
+
+    /**
+     * Calls a function with {@code this} bound to a remote object, passing further
+     * remote objects after the value arguments.
+     *
+     * @param objectId            The remote object to call the function on.
+     * @param functionDeclaration Source of the function to call.
+     * @param arguments           Argument values, passed by value.
+     * @param objectArguments     Remote objects passed by reference after
+     *                            {@code arguments}.
+     * @param returnByValue       Whether the result should be sent by value.
+     * @param objectGroup         Object group of the result, or {@code null} to
+     *                            inherit the group of {@code objectId}.
+     * @return The call result.
+     */
+    public JsonNode runtimeCallFunctionOn(String objectId, String functionDeclaration, List<Object> arguments,
+            List<String> objectArguments, boolean returnByValue, String objectGroup) {
+        List<Map<String, Object>> callArguments = new ArrayList<>(arguments.size() + objectArguments.size());
+        for (Object argument : arguments) {
+            callArguments.add(Collections.singletonMap("value", argument));
+        }
+        for (String objectArgument : objectArguments) {
+            callArguments.add(Collections.singletonMap("objectId", objectArgument));
+        }
+        Map<String, Object> map = new HashMap<>();
+        map.put("objectId", objectId);
+        map.put("functionDeclaration", functionDeclaration);
+        map.put("arguments", callArguments);
+        map.put("returnByValue", returnByValue);
+        if (objectGroup != null) {
+            map.put("objectGroup", objectGroup);
+        }
+        // Runtime.callFunctionOn wraps the call output in a nested "result" object
+        return unwrapEvaluateResult(executeCdpCommand("Runtime.callFunctionOn", map));
+    }
+
+    /**
+     * Returns the own properties of a remote object, e.g. the elements of an array.
+     *
+     * @param objectId The remote object.
+     * @return The Runtime.getProperties result.
+     */
+    public JsonNode runtimeGetProperties(String objectId) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("objectId", objectId);
+        map.put("ownProperties", true);
+        return executeCdpCommand("Runtime.getProperties", map);
+    }
+
+    /**
+     * Releases a single remote object without waiting for the browser to confirm.
+     *
+     * @param objectId The remote object.
+     * @return Future completed with the command result.
+     */
+    public CompletableFuture<JsonNode> runtimeReleaseObjectAsync(String objectId) {
+        return executeCdpCommandAsync("Runtime.releaseObject", Map.of("objectId", objectId));
+    }
+
+    /**
+     * Releases every remote object in a group.
+     *
+     * @param objectGroup The object group.
+     * @return The command result.
+     */
+    public JsonNode runtimeReleaseObjectGroup(String objectGroup) {
+        return executeCdpCommand("Runtime.releaseObjectGroup", Map.of("objectGroup", objectGroup));
+    }
+
     /**
      * Returns the frame tree for the current page.
      *
      * @return The Page.getFrameTree result containing the frame hierarchy.
      */
     public JsonNode pageGetFrameTree() {
-        return executeCdpCommand("Page.getFrameTree", Map.of(), defaultDuration);
+        return executeCdpCommand("Page.getFrameTree", Map.of());
     }
 
     /**
@@ -631,11 +1124,11 @@ public class CdpUtility {
      * @return The system info.
      */
     public JsonNode systemInfoGetInfo() {
-        return executeCdpCommand("SystemInfo.getInfo", Map.of(), defaultDuration);
+        return executeCdpCommand("SystemInfo.getInfo", Map.of());
     }
 
     public JsonNode targetGetTargets() {
-        return targetGetTargets(defaultDuration);
+        return targetGetTargets(timeoutFor("Target.getTargets"));
     }
 
     public JsonNode targetGetTargets(Duration timeout) {
@@ -671,13 +1164,13 @@ public class CdpUtility {
     public JsonNode targetActivateTarget(String targetId) {
         Map<String, Object> map = new HashMap<>();
         map.put("targetId", targetId);
-        return executeCdpCommand("Target.activateTarget", map, defaultDuration);
+        return executeCdpCommand("Target.activateTarget", map);
     }
 
     public JsonNode targetCloseTarget(String targetId) {
         Map<String, Object> map = new HashMap<>();
         map.put("targetId", targetId);
-        return executeCdpCommand("Target.closeTarget", map, defaultDuration);
+        return executeCdpCommand("Target.closeTarget", map);
     }
 
     /**
@@ -687,7 +1180,7 @@ public class CdpUtility {
      * @return The browserContextId string.
      */
     public String targetCreateBrowserContext() {
-        JsonNode result = executeCdpCommand("Target.createBrowserContext", Map.of(), defaultDuration);
+        JsonNode result = executeCdpCommand("Target.createBrowserContext", Map.of());
         return result.get("browserContextId").asText();
     }
 
@@ -701,7 +1194,7 @@ public class CdpUtility {
     public void targetDisposeBrowserContext(String browserContextId) {
         Map<String, Object> map = new HashMap<>();
         map.put("browserContextId", browserContextId);
-        executeCdpCommand("Target.disposeBrowserContext", map, defaultDuration);
+        executeCdpCommand("Target.disposeBrowserContext", map);
     }
 
     /**
@@ -716,7 +1209,7 @@ public class CdpUtility {
         Map<String, Object> map = new HashMap<>();
         map.put("url", url);
         map.put("browserContextId", browserContextId);
-        JsonNode result = executeCdpCommand("Target.createTarget", map, defaultDuration);
+        JsonNode result = executeCdpCommand("Target.createTarget", map);
         return result.get("targetId").asText();
     }
 
@@ -739,7 +1232,7 @@ public class CdpUtility {
         map.put("maxWidth", maxWidth);
         map.put("maxHeight", maxHeight);
         map.put("everyNthFrame", everyNthFrame);
-        return executeCdpCommand("Page.startScreencast", map, defaultDuration);
+        return executeCdpCommand("Page.startScreencast", map);
     }
 
     /**
@@ -748,7 +1241,7 @@ public class CdpUtility {
      * @return The command result.
      */
     public JsonNode pageStopScreencast() {
-        return executeCdpCommand("Page.stopScreencast", Map.of(), defaultDuration);
+        return executeCdpCommand("Page.stopScreencast", Map.of());
     }
 
     /**
@@ -760,7 +1253,7 @@ public class CdpUtility {
     public JsonNode pageScreencastFrameAck(int sessionId) {
         Map<String, Object> map = new HashMap<>();
         map.put("sessionId", sessionId);
-        return executeCdpCommand("Page.screencastFrameAck", map, defaultDuration);
+        return executeCdpCommand("Page.screencastFrameAck", map);
     }
 
     /**
@@ -782,10 +1275,82 @@ public class CdpUtility {
         return client;
     }
 
+    /**
+     * Returns the helper library used by element and locator calls on this target.
+     */
+    CdpHelperRuntime getHelperRuntime() {
+        return helperRuntime;
+    }
+
+    /**
+     * Returns the main-frame navigation state used by navigation waits.
+     */
+    CdpLifecycle getLifecycle() {
+        return lifecycle;
+    }
+
+    /**
+     * Returns the blocker of unneeded requests (media, third-party, custom URLs) on
+     * this target.
+     */
+    public CdpResourceBlocker getResourceBlocker() {
+        return resourceBlocker;
+    }
+
+    /**
+     * Returns the wait engine of this target, which page lifecycle and network
+     * events wake early.
+     */
+    public CdpWait getWait() {
+        return wait;
+    }
+
+    /**
+     * Turns the locator cache of this target on or off; turning it off empties it.
+     * See {@link CdpLocatorCache} for which locators are cached.
+     */
+    public void setLocatorCacheEnabled(boolean enabled) {
+        helperRuntime.locatorCache().setEnabled(enabled);
+    }
+
+    /**
+     * Returns hit, miss and invalidation counts of this target's locator cache.
+     */
+    public CdpLocatorCacheStats getLocatorCacheStats() {
+        return helperRuntime.locatorCache().stats();
+    }
+
+    /**
+     * Turns mutation-driven element waits of this target on or off. When on,
+     * {@code findElement}/{@code findElements} waits for a missing element install
+     * a MutationObserver on its locator and wake when matches appear, disappear or
+     * change visibility, instead of polling. Defaults to {@code -Dcdp.mutationWaits}.
+     */
+    public void setMutationWaitsEnabled(boolean enabled) {
+        helperRuntime.setWatchersEnabled(enabled);
+    }
+
+    /**
+     * Releases the element handles of this target when elements are backed by
+     * remote objects ({@code -Dcdp.remoteObjectHandles=true}); elements found
+     * before the call become stale. Also empties the locator cache.
+     */
+    public void releaseElementHandles() {
+        helperRuntime.releaseElements();
+    }
+
     /**
      * Returns the underlying {@link ApiInterceptor} for waiting for network responses.
      */
     public ApiInterceptor getApiInterceptor() {
         return apiInterceptor;
     }
+
+    /**
+     * Returns the tracker of in-flight requests, or {@code null} if the Network
+     * domain is not enabled on this connection.
+     */
+    public CdpNetworkTracker getNetworkTracker() {
+        return apiInterceptor != null ? apiInterceptor.getNetworkTracker() : null;
+    }
 }
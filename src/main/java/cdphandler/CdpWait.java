@@ -0,0 +1,161 @@
+package cdphandler;
+
+import logger.Log;
+import logger.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Waits for a condition with adaptive backoff, waking early on page signals.
+ * <p>
+ * The first retry follows after {@value #FIRST_INTERVAL_MILLIS} ms and each
+ * later interval doubles up to {@value #MAX_INTERVAL_MILLIS} ms. Each {@link CdpUtility} owns one
+ * instance, which it {@linkplain #signal() signals} on events that may change the
+ * outcome (page lifecycle, the page's network going idle, DOM mutations reported
+ * by the helper library). A waiting caller then retries at once instead of sleeping
+ * out its interval, and the backoff starts over.
+ * <p>
+ * Each attempt runs on a virtual thread, so a hung attempt cannot hold the caller
+ * past the timeout and no thread pool is created per wait.
+ */
+public final class CdpWait {
+    private static final Logger log = Log.getLogger(CdpWait.class);
+    static final long FIRST_INTERVAL_MILLIS = 10;
+    static final long MAX_INTERVAL_MILLIS = 250;
+    /** Shortest gap between attempts, so a burst of signals cannot spin the caller. */
+    static final long MIN_INTERVAL_MILLIS = 5;
+    private static final ExecutorService ATTEMPTS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Object lock = new Object();
+    private long signals;
+
+    /**
+     * Waits for {@code condition} without any signal source, backing off between
+     * attempts.
+     *
+     * @return {@code true} if the condition held before {@code timeout}.
+     */
+    public static boolean poll(Callable<Boolean> condition, Duration timeout) {
+        return new CdpWait().until(condition, timeout);
+    }
+
+    /**
+     * Wakes every caller waiting between attempts.
+     */
+    public void signal() {
+        synchronized (lock) {
+            signals++;
+            lock.notifyAll();
+        }
+    }
+
+    long signals() {
+        synchronized (lock) {
+            return signals;
+        }
+    }
+
+    /**
+     * Evaluates {@code condition} until it returns {@code true} or {@code timeout}
+     * elapses. An attempt that throws ends the wait.
+     *
+     * @return {@code true} if the condition held before {@code timeout}.
+     */
+    public boolean until(Callable<Boolean> condition, Duration timeout) {
+        return until(condition, timeout, Duration.ofMillis(FIRST_INTERVAL_MILLIS),
+                Duration.ofMillis(MAX_INTERVAL_MILLIS));
+    }
+
+    /**
+     * Like {@link #until(Callable, Duration)}, with the backoff starting at
+     * {@code firstInterval} and doubling up to {@code maxInterval}. Waits that
+     * expect a signal for every relevant change pass a long, flat interval.
+     */
+    boolean until(Callable<Boolean> condition, Duration timeout, Duration firstInterval, Duration maxInterval) {
+        if (condition == null)
+            return true;
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        CdpJfrEvents.Wait event = new CdpJfrEvents.Wait();
+        event.begin();
+        boolean satisfied = false;
+        int attempts = 0;
+        long interval = firstInterval.toMillis();
+        try {
+            while (true) {
+                long seen = signals();
+                long started = System.nanoTime();
+                long remaining = deadline - started;
+                if (remaining <= 0)
+                    break;
+                attempts++;
+                Future<Boolean> future = ATTEMPTS.submit(condition);
+                try {
+                    if (Boolean.TRUE.equals(future.get(remaining, TimeUnit.NANOSECONDS))) {
+                        satisfied = true;
+                        return true;
+                    }
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    break;
+                } catch (InterruptedException e) {
+                    future.cancel(true);
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    log.error("Exception while waiting for task: {}", e.getMessage(), e);
+                    break;
+                }
+                interval = awaitSignal(seen, started, interval, deadline)
+                        ? firstInterval.toMillis()
+                        : backoff(interval, maxInterval.toMillis());
+            }
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.attempts = attempts;
+                event.satisfied = satisfied;
+                event.commit();
+            }
+        }
+        return false;
+    }
+
+    /** The interval after an attempt that failed without a signal. */
+    static long backoff(long interval, long maxInterval) {
+        return Math.min(interval * 2, maxInterval);
+    }
+
+    /**
+     * Sleeps until {@code interval} ms after {@code started}, the deadline, or a
+     * signal newer than {@code seen}, whichever comes first, but at least
+     * {@link #MIN_INTERVAL_MILLIS} after {@code started}.
+     *
+     * @return {@code true} if a signal ended the sleep.
+     */
+    private boolean awaitSignal(long seen, long started, long interval, long deadline) {
+        long minimum = started + TimeUnit.MILLISECONDS.toNanos(MIN_INTERVAL_MILLIS);
+        long until = Math.min(started + TimeUnit.MILLISECONDS.toNanos(interval), deadline);
+        try {
+            synchronized (lock) {
+                while (true) {
+                    long now = System.nanoTime();
+                    boolean signalled = signals != seen;
+                    if (now >= until || (signalled && now >= minimum))
+                        return signalled;
+                    long wake = signalled ? Math.min(minimum, until) : until;
+                    TimeUnit.NANOSECONDS.timedWait(lock, Math.max(1, wake - now));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
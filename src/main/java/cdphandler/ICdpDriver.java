@@ -1,13 +1,22 @@
 package cdphandler;
 
 import java.time.Duration;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 
 public interface ICdpDriver extends AutoCloseable {
     void back();
 
     String captureScreenshot();
 
+    /**
+     * Returns the screenshot as PNG bytes rather than base64 text.
+     */
+    default byte[] captureScreenshotBytes() {
+        return Base64.getDecoder().decode(captureScreenshot());
+    }
+
     void close();
 
     void closeBrowser();
@@ -24,12 +33,23 @@ public interface ICdpDriver extends AutoCloseable {
 
     List<ICdpElement> findElements(CdpBy by, Duration duration);
 
+    /**
+     * Resolves several locators at once and returns the first match of each, keyed
+     * by the names of {@code locators}. All locators are looked up in one call;
+     * only the ones still missing are looked up again.
+     */
+    Map<String, ICdpElement> findAll(Map<String, CdpBy> locators);
+
+    Map<String, ICdpElement> findAll(Map<String, CdpBy> locators, Duration duration);
+
     void forward();
 
     void fullScreenWindow();
 
     void get(String url);
 
+    void get(String url, CdpLoadState loadState);
+
     CdpUtility getCdpUtility();
 
     int getCurrentModifierValue();
@@ -38,14 +58,29 @@ public interface ICdpDriver extends AutoCloseable {
 
     Duration getDefaultTimeout();
 
+    CdpLoadState getLoadState();
+
+    /**
+     * Returns the tracker of this page's in-flight requests, with its URL filters.
+     */
+    CdpNetworkTracker getNetworkTracker();
+
     Duration getPageLoadTimeout();
 
     String getPageSource();
 
+    /**
+     * Returns the blocker of requests the page does not need, e.g. to
+     * {@linkplain CdpResourceBlocker#block(CdpBlockProfile...) block media}.
+     */
+    CdpResourceBlocker getResourceBlocker();
+
     Duration getPollingInterval();
 
     String getTitle();
 
+    CdpTypingMode getTypingMode();
+
     String getWindowHandle();
 
     List<String> getWindowHandles();
@@ -70,16 +105,32 @@ public interface ICdpDriver extends AutoCloseable {
 
     void setDefaultTimeout(Duration DEFAULT_TIMEOUT);
 
+    void setLoadState(CdpLoadState loadState);
+
     void setPageLoadTimeout(Duration PAGE_LOAD_TIMEOUT);
 
     void setPollingInterval(Duration POLLING_INTERVAL);
 
+    /**
+     * Sets how {@link #sendKeys(String)} and {@link ICdpElement#sendKeys(String)} enter text.
+     */
+    void setTypingMode(CdpTypingMode typingMode);
+
     void setWindowRect(CdpRect windowRect);
 
     void sleep(Duration duration);
 
     void switchToWindow(String windowHandle);
 
+    /**
+     * Waits up to the page load timeout until at most {@code maxInflight} tracked
+     * requests have been open for {@code quietPeriod}.
+     *
+     * @return {@code true} if the network went idle in time.
+     * @see CdpNetworkTracker#waitForNetworkIdle(Duration, int, Duration)
+     */
+    boolean waitForNetworkIdle(Duration quietPeriod, int maxInflight);
+
     default void startTracing(java.io.File zipFile) {}
 
     default void stopTracing() {}
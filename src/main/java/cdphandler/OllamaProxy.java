@@ -2,7 +2,9 @@ package cdphandler;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class OllamaProxy implements InvocationHandler {
@@ -13,17 +15,33 @@ public class OllamaProxy implements InvocationHandler {
         this.cdpDriver = cdpDriver;
     }
 
+    /**
+     * Turns a {@link CdpLocatorType#NATURAL_LANGUAGE} locator into the CSS or XPath
+     * selector Ollama picks for the current page; other locators are returned as is.
+     */
+    static CdpBy resolve(ICdpDriver cdpDriver, CdpBy by) {
+        if (by.type() != CdpLocatorType.NATURAL_LANGUAGE) {
+            return by;
+        }
+        String selector = OllamaUtility.getSelector(cdpDriver.getPageSource(), by.locator());
+        return new CdpBy(by.name(), selector.startsWith("/") ? CdpLocatorType.XPATH : CdpLocatorType.CSS, selector);
+    }
+
+    static Map<String, CdpBy> resolve(ICdpDriver cdpDriver, Map<String, CdpBy> locators) {
+        Map<String, CdpBy> resolved = new LinkedHashMap<>();
+        locators.forEach((name, by) -> resolved.put(name, resolve(cdpDriver, by)));
+        return resolved;
+    }
+
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
         if (method.getName().equals("findElement") || method.getName().equals("findElements")) {
-            CdpBy by = (CdpBy) args[0];
-            if (by.type() == CdpLocatorType.NATURAL_LANGUAGE) {
-                String html = cdpDriver.getPageSource();
-                String selector = OllamaUtility.getSelector(html, by.locator());
-                CdpBy newBy = new CdpBy(by.name(), selector.startsWith("/") ? CdpLocatorType.XPATH : CdpLocatorType.CSS,
-                        selector);
-                args[0] = newBy;
-            }
+            args[0] = resolve(cdpDriver, (CdpBy) args[0]);
+        }
+        if (method.getName().equals("findAll")) {
+            @SuppressWarnings("unchecked")
+            Map<String, CdpBy> locators = (Map<String, CdpBy>) args[0];
+            args[0] = resolve(cdpDriver, locators);
         }
 
         Object result = method.invoke(cdpDriver, args);
@@ -39,6 +57,13 @@ public class OllamaProxy implements InvocationHandler {
                     .collect(Collectors.toList());
         }
 
+        if (result instanceof Map) {
+            Map<Object, Object> elements = new LinkedHashMap<>();
+            ((Map<?, ?>) result).forEach((name, element) -> elements.put(name,
+                    element instanceof CdpElement ? CdpHandler.createElement((CdpElement) element) : element));
+            return elements;
+        }
+
         return result;
     }
 }
@@ -13,8 +13,8 @@ import java.util.List;
 /**
  * Dispatches MCP tools/call requests to the underlying ICdpDriver.
  * Natural-language element descriptions (click, type, get_text) are
- * converted into NATURAL_LANGUAGE CdpBy objects, which the existing
- * OllamaProxy intercepts and resolves via Ollama automatically.
+ * converted into NATURAL_LANGUAGE CdpBy objects, which the driver wrapper
+ * from CdpHandler intercepts and resolves via Ollama automatically.
  */
 public class McpToolDispatcher {
     private static final Logger log = Log.getLogger(McpToolDispatcher.class);
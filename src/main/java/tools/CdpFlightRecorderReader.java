@@ -0,0 +1,40 @@
+package tools;
+
+import cdphandler.CdpFlightRecorder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Prints the frames held in one or more CDP flight recorder ring files.
+ * <p>
+ * Ring files are kept after the connection closes when the JVM runs with
+ * {@code -Dcdp.flightRecorder.keep=true}, and are left behind by JVMs that died
+ * mid-test.
+ *
+ * <pre>
+ * java -cp target/classes tools.CdpFlightRecorderReader /tmp/cdp-flight/cdp-4242-1.ring
+ * </pre>
+ */
+public final class CdpFlightRecorderReader {
+
+    private CdpFlightRecorderReader() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: CdpFlightRecorderReader <ring-file>...");
+            System.exit(1);
+        }
+        for (String arg : args) {
+            Path file = Paths.get(arg);
+            if (args.length > 1) {
+                System.out.println("== " + file);
+            }
+            for (CdpFlightRecorder.Entry entry : CdpFlightRecorder.read(file)) {
+                System.out.println(entry);
+            }
+        }
+    }
+}
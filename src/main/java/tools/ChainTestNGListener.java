@@ -1,5 +1,6 @@
 package tools;
 
+import cdphandler.CdpFlightRecorder;
 import cdphandler.CdpUtility;
 import cdphandler.ICdpDriver;
 import com.aventstack.chaintest.plugins.ChainTestListener;
@@ -37,8 +38,17 @@ public class ChainTestNGListener implements ITestListener {
 
     @Override
     public void onTestStart(ITestResult result) {
-        // Start video recording if a CdpDriver is registered for this thread
         ICdpDriver driver = DriverContext.getCurrentDriver();
+        // Element handles from earlier tests are never reused; release them in bulk
+        if (driver != null) {
+            try {
+                driver.getCdpUtility().releaseElementHandles();
+            } catch (Exception e) {
+                log.warn("Could not release element handles: " + e.getMessage());
+            }
+        }
+
+        // Start video recording if a CdpDriver is registered for this thread
         if (driver != null && ScreenRecorder.isEnabled()) {
             try {
                 String testName = result.getTestClass().getRealClass().getSimpleName()
@@ -61,6 +71,9 @@ public class ChainTestNGListener implements ITestListener {
 
     @Override
     public void onTestFailure(ITestResult result) {
+        CdpFlightRecorder.dumpOnFailure(DriverContext.getCurrentDriver(),
+                result.getTestClass().getRealClass().getSimpleName() + "_" + result.getName());
+
         // Stop recording and attach to the ChainTest report
         File recording = ScreenRecorder.stopRecording();
         if (recording != null && recording.exists() && recording.length() > 0) {
@@ -1,5 +1,6 @@
 package tools;
 
+import cdphandler.CdpFlightRecorder;
 import cdphandler.CdpUtility;
 import cdphandler.ICdpDriver;
 import com.aventstack.extentreports.ExtentTest;
@@ -42,8 +43,17 @@ public class ExtentTestNGListener implements ITestListener, ISuiteListener {
                 + " — " + result.getName();
         ExtentManager.createTest(testName);
 
-        // Start video recording if a CdpDriver is registered for this thread
         ICdpDriver driver = DriverContext.getCurrentDriver();
+        // Element handles from earlier tests are never reused; release them in bulk
+        if (driver != null) {
+            try {
+                driver.getCdpUtility().releaseElementHandles();
+            } catch (Exception e) {
+                log.warn("Could not release element handles: " + e.getMessage());
+            }
+        }
+
+        // Start video recording if a CdpDriver is registered for this thread
         if (driver != null && ScreenRecorder.isEnabled()) {
             try {
                 CdpUtility cdp = driver.getCdpUtility();
@@ -68,6 +78,9 @@ public class ExtentTestNGListener implements ITestListener, ISuiteListener {
 
     @Override
     public void onTestFailure(ITestResult result) {
+        CdpFlightRecorder.dumpOnFailure(DriverContext.getCurrentDriver(),
+                result.getTestClass().getRealClass().getSimpleName() + "_" + result.getName());
+
         ExtentTest test = ExtentManager.getTest();
         if (test != null) {
             test.log(Status.FAIL, result.getThrowable());
@@ -1,5 +1,6 @@
 package tools;
 
+import cdphandler.CdpJfrEvents;
 import cdphandler.CdpUtility;
 import com.fasterxml.jackson.databind.JsonNode;
 import logger.Log;
@@ -14,10 +15,9 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Base64;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.function.Consumer;
+import java.util.function.BiConsumer;
 
 /**
  * CDP-based screen recorder that captures browser frames via
@@ -115,7 +115,7 @@ public class ScreenRecorder {
         private final CdpUtility cdpUtility;
         private final String testName;
         private final List<byte[]> frames = new CopyOnWriteArrayList<>();
-        private Consumer<JsonNode> eventListener;
+        private BiConsumer<JsonNode, byte[]> eventListener;
         private int frameWidth = 0;
         private int frameHeight = 0;
         private long startTimeMs;
@@ -129,41 +129,45 @@ public class ScreenRecorder {
         void start() {
             startTimeMs = System.currentTimeMillis();
 
-            // Register listener for Page.screencastFrame events
-            eventListener = event -> {
-                String method = event.has("method") ? event.get("method").asText() : "";
-                if ("Page.screencastFrame".equals(method)) {
-                    JsonNode params = event.get("params");
-                    if (params != null) {
-                        String data = params.get("data").asText();
-                        int sessionId = params.get("sessionId").asInt();
-
-                        // Capture frame dimensions from metadata
-                        if (params.has("metadata")) {
-                            JsonNode meta = params.get("metadata");
-                            if (meta.has("deviceWidth") && meta.has("deviceHeight")) {
-                                frameWidth = meta.get("deviceWidth").asInt();
-                                frameHeight = meta.get("deviceHeight").asInt();
-                            }
-                        }
-
-                        // Decode and store the JPEG frame (skip if identical to previous)
-                        byte[] jpegBytes = Base64.getDecoder().decode(data);
-                        if (lastFrame == null || !Arrays.equals(jpegBytes, lastFrame)) {
-                            frames.add(jpegBytes);
-                            lastFrame = jpegBytes;
-                        }
-
-                        // Acknowledge the frame (async to avoid deadlocking the listener thread)
-                        try {
-                            cdpUtility.pageScreencastFrameAckAsync(sessionId);
-                        } catch (Exception ignored) {
-                            // Best effort — don't let ACK failure crash recording
-                        }
+            // Register listener for Page.screencastFrame events; the JPEG arrives already decoded
+            eventListener = (params, jpegBytes) -> {
+                CdpJfrEvents.ScreencastFrame event = new CdpJfrEvents.ScreencastFrame();
+                event.begin();
+                int sessionId = params.get("sessionId").asInt();
+
+                // Capture frame dimensions from metadata
+                if (params.has("metadata")) {
+                    JsonNode meta = params.get("metadata");
+                    if (meta.has("deviceWidth") && meta.has("deviceHeight")) {
+                        frameWidth = meta.get("deviceWidth").asInt();
+                        frameHeight = meta.get("deviceHeight").asInt();
                     }
                 }
+
+                // Store the JPEG frame (skip if identical to previous)
+                boolean duplicate = lastFrame != null && Arrays.equals(jpegBytes, lastFrame);
+                if (!duplicate) {
+                    frames.add(jpegBytes);
+                    lastFrame = jpegBytes;
+                }
+
+                // Acknowledge the frame (async to avoid deadlocking the listener thread)
+                try {
+                    cdpUtility.pageScreencastFrameAckAsync(sessionId);
+                } catch (Exception ignored) {
+                    // Best effort — don't let ACK failure crash recording
+                }
+
+                event.end();
+                if (event.shouldCommit()) {
+                    event.bytes = jpegBytes.length;
+                    event.width = frameWidth;
+                    event.height = frameHeight;
+                    event.duplicate = duplicate;
+                    event.commit();
+                }
             };
-            cdpUtility.getClient().addEventListener(eventListener);
+            cdpUtility.getClient().onBytes("Page.screencastFrame", eventListener);
 
             // Fetch the actual browser viewport size
             int maxWidth = 1280;
@@ -195,7 +199,7 @@ public class ScreenRecorder {
 
             // Remove event listener
             if (eventListener != null) {
-                cdpUtility.getClient().removeEventListener(eventListener);
+                cdpUtility.getClient().offBytes("Page.screencastFrame", eventListener);
             }
 
             // Write AVI
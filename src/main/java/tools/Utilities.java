@@ -8,6 +8,9 @@ import java.util.concurrent.*;
 
 public class Utilities {
     private static final Logger log = Log.getLogger(Utilities.class);
+    private static final long FIRST_INTERVAL_MILLIS = 10;
+    private static final long MAX_INTERVAL_MILLIS = 250;
+
     public static void sleep(Duration duration) {
         try {
             Thread.sleep(duration.toMillis());
@@ -19,12 +22,19 @@ public class Utilities {
         return waitUntil(task, Duration.ofMinutes(1));
     }
 
+    /**
+     * Evaluates {@code task} until it returns {@code true} or {@code duration}
+     * elapses. The first retry follows after 10 ms and each later interval doubles
+     * up to 250 ms. Driver code waits through {@code CdpUtility.getWait()} instead,
+     * so page events cut the wait short.
+     */
     public static boolean waitUntil(Callable<Boolean> task, Duration duration) {
         if (task == null)
             return true;
 
         long deadline = System.currentTimeMillis() + duration.toMillis();
-        ExecutorService executor = Executors.newSingleThreadExecutor();
+        long interval = FIRST_INTERVAL_MILLIS;
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
         try {
             while (System.currentTimeMillis() < deadline) {
                 Future<Boolean> future = executor.submit(task);
@@ -37,7 +47,8 @@ public class Utilities {
                     if (status)
                         return true;
 
-                    Utilities.sleep(Duration.ofMillis(250));
+                    Utilities.sleep(Duration.ofMillis(interval));
+                    interval = Math.min(interval * 2, MAX_INTERVAL_MILLIS);
                 } catch (TimeoutException e) {
                     break;
                 } catch (Exception e) {
@@ -46,7 +57,7 @@ public class Utilities {
                 }
             }
         } finally {
-            executor.shutdown();
+            executor.shutdownNow();
         }
         return false;
     }
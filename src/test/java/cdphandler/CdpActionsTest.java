@@ -0,0 +1,138 @@
+package cdphandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Unit tests for the {@code Input.dispatch*} commands {@link CdpActions}
+ * compiles, recorded by a {@link FakeCdpServer}.
+ */
+public class CdpActionsTest {
+
+    private FakeCdpServer server;
+    private CdpUtility cdp;
+
+    @BeforeMethod
+    public void connect() throws IOException {
+        server = new FakeCdpServer();
+        cdp = new CdpUtility(new CdpClient(server.url()), false);
+    }
+
+    @AfterMethod
+    public void disconnect() throws IOException {
+        cdp.close();
+        server.close();
+    }
+
+    @Test
+    public void testPressingTheReleasedButtonAgainContinuesTheClickSequence() {
+        cdp.actions().moveTo(10, 20).doubleClick().press("right").release().moveBy(0, 0).click().perform();
+
+        Assert.assertEquals(events(), List.of(
+                "mouseMoved 10,20 none 0",
+                "mousePressed 10,20 left 1",
+                "mouseReleased 10,20 left 1",
+                "mousePressed 10,20 left 2",
+                "mouseReleased 10,20 left 2",
+                "mousePressed 10,20 right 1",
+                "mouseReleased 10,20 right 1",
+                "mouseMoved 10,20 none 0",
+                "mousePressed 10,20 left 1",
+                "mouseReleased 10,20 left 1"));
+    }
+
+    @Test
+    public void testMoveToInterpolatesFromTheCurrentPosition() {
+        cdp.actions().moveTo(0, 0).moveTo(10, 20, 4).perform();
+
+        Assert.assertEquals(events(), List.of(
+                "mouseMoved 0,0 none 0",
+                "mouseMoved 2,5 none 0",
+                "mouseMoved 5,10 none 0",
+                "mouseMoved 7,15 none 0",
+                "mouseMoved 10,20 none 0"));
+    }
+
+    @Test
+    public void testFirstMoveGoesStraightToTheTarget() {
+        cdp.actions().moveTo(30, 40, 5).perform();
+
+        Assert.assertEquals(events(), List.of("mouseMoved 30,40 none 0"));
+    }
+
+    @Test
+    public void testDragReportsThePressedButtonWhileMoving() {
+        cdp.actions().moveTo(0, 0).dragTo(4, 0, 2).moveBy(1, 0).perform();
+
+        Assert.assertEquals(events(), List.of(
+                "mouseMoved 0,0 none 0",
+                "mousePressed 0,0 left 1",
+                "mouseMoved 2,0 left 0",
+                "mouseMoved 4,0 left 0",
+                "mouseReleased 4,0 left 1",
+                "mouseMoved 5,0 none 0"));
+    }
+
+    @Test
+    public void testModifiersApplyFromKeyDownUntilKeyUp() {
+        cdp.actions().moveTo(1, 1).keyDown(CdpKey.Shift).click().keyUp(CdpKey.Shift).click().perform();
+
+        List<JsonNode> commands = server.commands();
+        Assert.assertEquals(server.methods(), List.of("Input.dispatchMouseEvent", "Input.dispatchKeyEvent",
+                "Input.dispatchMouseEvent", "Input.dispatchMouseEvent", "Input.dispatchKeyEvent",
+                "Input.dispatchMouseEvent", "Input.dispatchMouseEvent"));
+        int[] modifiers = commands.stream().mapToInt(c -> c.path("params").path("modifiers").asInt()).toArray();
+        Assert.assertEquals(modifiers, new int[] { 0, 8, 8, 8, 0, 0, 0 });
+        Assert.assertEquals(commands.get(1).path("params").path("type").asText(), "keyDown");
+        Assert.assertEquals(commands.get(1).path("params").path("key").asText(), CdpKey.Shift.getKey());
+        Assert.assertEquals(commands.get(4).path("params").path("type").asText(), "keyUp");
+    }
+
+    @Test
+    public void testPauseSplitsTheGestureAndWaitsBetweenSegments() {
+        List<Long> received = new CopyOnWriteArrayList<>();
+        server.respond("Input.dispatchMouseEvent", params -> {
+            received.add(System.nanoTime());
+            return null;
+        });
+        CdpActions actions = cdp.actions().moveTo(1, 1).press().pause(Duration.ofMillis(300)).release();
+        Assert.assertEquals(actions.size(), 3);
+
+        List<JsonNode> results = actions.perform();
+
+        Assert.assertEquals(results.size(), 3);
+        Assert.assertEquals(actions.size(), 0);
+        Assert.assertEquals(events(), List.of(
+                "mouseMoved 1,1 none 0",
+                "mousePressed 1,1 left 1",
+                "mouseReleased 1,1 left 1"));
+        Assert.assertTrue(Duration.ofNanos(received.get(2) - received.get(1)).toMillis() >= 250,
+                "Release was not held back by the pause");
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testReleaseWithoutPressIsRejected() {
+        cdp.actions().moveTo(1, 1).release();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testStepsMustBePositive() {
+        cdp.actions().moveTo(1, 1, 0);
+    }
+
+    /** The mouse events received, as {@code "type x,y button clickCount"}. */
+    private List<String> events() {
+        return server.commands("Input.dispatchMouseEvent").stream()
+                .map(p -> p.path("type").asText() + " " + p.path("x").asInt() + "," + p.path("y").asInt() + " "
+                        + p.path("button").asText() + " " + p.path("clickCount").asInt())
+                .toList();
+    }
+}
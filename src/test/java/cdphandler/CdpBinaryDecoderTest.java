@@ -0,0 +1,65 @@
+package cdphandler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Unit tests for {@link CdpBinaryDecoder}.
+ */
+public class CdpBinaryDecoderTest {
+
+    private final CdpBinaryDecoder decoder = new CdpBinaryDecoder(new ObjectMapper());
+
+    @Test
+    public void testScreenshotDataIsDecoded() throws Exception {
+        byte[] png = new byte[200_000];
+        for (int i = 0; i < png.length; i++) {
+            png[i] = (byte) i;
+        }
+        String frame = "{\"id\":7,\"result\":{\"data\":\"" + Base64.getEncoder().encodeToString(png) + "\"}}";
+
+        CdpBinaryDecoder.Decoded decoded = decoder.decode(frame, "Page.captureScreenshot", "result");
+
+        Assert.assertNull(decoded.error());
+        Assert.assertEquals(decoded.data(), png);
+        Assert.assertFalse(decoded.fields().has("data"));
+    }
+
+    @Test
+    public void testScreencastFrameKeepsOtherParams() throws Exception {
+        String frame = "{\"method\":\"Page.screencastFrame\",\"params\":{\"data\":\""
+                + Base64.getEncoder().encodeToString(new byte[]{1, 2, 3})
+                + "\",\"metadata\":{\"deviceWidth\":800,\"deviceHeight\":600},\"sessionId\":3}}";
+
+        CdpBinaryDecoder.Decoded decoded = decoder.decode(frame, "Page.screencastFrame", "params");
+
+        Assert.assertEquals(decoded.data(), new byte[]{1, 2, 3});
+        Assert.assertEquals(decoded.fields().get("sessionId").asInt(), 3);
+        Assert.assertEquals(decoded.fields().path("metadata").path("deviceWidth").asInt(), 800);
+    }
+
+    @Test
+    public void testResponseBodyHonoursBase64EncodedFlag() throws Exception {
+        String text = "{\"id\":1,\"result\":{\"body\":\"aGVsbG8=\",\"base64Encoded\":false}}";
+        String binary = "{\"id\":2,\"result\":{\"body\":\"aGVsbG8=\",\"base64Encoded\":true}}";
+
+        Assert.assertEquals(decoder.decode(text, "Network.getResponseBody", "result").data(),
+                "aGVsbG8=".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(decoder.decode(binary, "Network.getResponseBody", "result").data(),
+                "hello".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testErrorIsReported() throws Exception {
+        String frame = "{\"id\":4,\"error\":{\"code\":-32000,\"message\":\"No resource with given identifier\"}}";
+
+        CdpBinaryDecoder.Decoded decoded = decoder.decode(frame, "Network.getResponseBody", "result");
+
+        Assert.assertEquals(decoded.error().get("code").asInt(), -32000);
+        Assert.assertEquals(decoded.data().length, 0);
+    }
+}
@@ -36,6 +36,13 @@ public class CdpByTest {
         Assert.assertEquals(by.locator(), "//h1[@class='title']");
     }
 
+    @Test
+    public void testByPiercingXPath() {
+        CdpBy by = CdpBy.ByPiercingXPath("save", "descendant-or-self::button[text()='Save']");
+        Assert.assertEquals(by.type(), CdpLocatorType.PIERCING_XPATH);
+        Assert.assertEquals(CdpElement.locatorStrategy(by), "piercingXpath");
+    }
+
     // -----------------------------------------------------------------------
     // Direct constructor tests
     // -----------------------------------------------------------------------
@@ -0,0 +1,56 @@
+package cdphandler;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link CdpDriverDecorator} and {@link CdpElementDecorator}.
+ */
+public class CdpDriverDecoratorTest {
+
+    private static ICdpDriver stubDriver(Object result) {
+        return (ICdpDriver) Proxy.newProxyInstance(ICdpDriver.class.getClassLoader(),
+                new Class<?>[]{ICdpDriver.class}, (proxy, method, args) -> result);
+    }
+
+    @Test
+    public void testFoundElementsAreDecorated() {
+        CdpBy by = CdpBy.ByCssSelector("cells", "td");
+        CdpElement element = new CdpElement(null, by, "1_ab");
+        ICdpElement found = new CdpDriverDecorator(stubDriver(element)).findElement(by);
+
+        Assert.assertTrue(found instanceof CdpElementDecorator);
+        Assert.assertEquals(found.getReferenceId(), "1_ab");
+        ICdpElement other = CdpHandler.createElement(element);
+        Assert.assertEquals(found, other, "Decorators compare by the wrapped element");
+        Assert.assertEquals(other, found);
+        Assert.assertEquals(found.hashCode(), other.hashCode());
+        // Symmetric with the raw element, whose equals only accepts a CdpElement
+        Assert.assertNotEquals(found, element);
+        Assert.assertNotEquals(element, found);
+    }
+
+    @Test
+    public void testListsKeepOnlyElements() {
+        CdpBy by = CdpBy.ByCssSelector("cells", "td");
+        List<Object> results = List.of(new CdpElement(null, by, "1_ab"), new CdpElement(null, by, "2_cd"));
+        List<ICdpElement> found = new CdpDriverDecorator(stubDriver(results)).findElements(by);
+
+        Assert.assertEquals(found.size(), 2);
+        Assert.assertTrue(found.get(1) instanceof CdpElementDecorator);
+        Assert.assertEquals(found.get(1).getReferenceId(), "2_cd");
+    }
+
+    @Test
+    public void testFindAllKeepsNames() {
+        CdpBy by = CdpBy.ByCssSelector("cells", "td");
+        Map<String, Object> results = Map.of("cell", new CdpElement(null, by, "1_ab"));
+        Map<String, ICdpElement> found = new CdpDriverDecorator(stubDriver(results)).findAll(Map.of("cell", by));
+
+        Assert.assertTrue(found.get("cell") instanceof CdpElementDecorator);
+    }
+}
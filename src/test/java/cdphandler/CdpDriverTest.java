@@ -0,0 +1,124 @@
+package cdphandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unit tests for {@link CdpDriver} against a {@link FakeCdpServer}.
+ */
+public class CdpDriverTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String FIND_FIRST = "__cdp.findFirst(\"\",";
+
+    private FakeCdpServer server;
+    private CdpDriver driver;
+    /** Locators the fake page currently matches, mapped to their element reference. */
+    private final Map<String, String> page = new ConcurrentHashMap<>();
+
+    @BeforeMethod
+    public void connect() throws IOException {
+        page.clear();
+        server = new FakeCdpServer();
+        server.respond("Runtime.evaluate", this::evaluate);
+        driver = new CdpDriver(new CdpClient(server.url()));
+    }
+
+    @AfterMethod
+    public void disconnect() throws IOException {
+        driver.close();
+        server.close();
+    }
+
+    @Test
+    public void testFindAllPollsOnlyTheLocatorsStillMissing() {
+        page.put("#user", "1_user");
+        server.respond("Runtime.evaluate", params -> {
+            // The password field appears once the first poll has missed it
+            if (findFirstCalls().size() == 2) {
+                page.put("#password", "2_password");
+            }
+            return evaluate(params);
+        });
+
+        Map<String, ICdpElement> elements = driver.findAll(locators(), Duration.ofSeconds(5));
+
+        Assert.assertEquals(elements.keySet(), Set.of("user", "password"));
+        List<List<String>> polls = findFirstCalls();
+        Assert.assertTrue(polls.size() >= 2, "Expected a re-poll, got " + polls);
+        Assert.assertEquals(polls.get(0), List.of("#user", "#password"));
+        for (List<String> poll : polls.subList(1, polls.size())) {
+            Assert.assertEquals(poll, List.of("#password"));
+        }
+    }
+
+    @Test
+    public void testFindAllThrowsForTheLocatorsNeverFound() {
+        page.put("#user", "1_user");
+
+        NoSuchElementException failure = Assert.expectThrows(NoSuchElementException.class,
+                () -> driver.findAll(locators(), Duration.ofMillis(300)));
+
+        Assert.assertEquals(failure.getMessage(), "Failed to find elements: [password]");
+    }
+
+    private static Map<String, CdpBy> locators() {
+        Map<String, CdpBy> locators = new LinkedHashMap<>();
+        locators.put("user", CdpBy.ByCssSelector("user", "#user"));
+        locators.put("password", CdpBy.ByCssSelector("password", "#password"));
+        return locators;
+    }
+
+    /** Answers findFirst from {@link #page}, anything else with {@code undefined}. */
+    private JsonNode evaluate(JsonNode params) {
+        String expression = params.path("expression").asText();
+        if (!expression.startsWith(FIND_FIRST)) {
+            return server.json("{\"result\":{\"type\":\"undefined\"}}");
+        }
+        ArrayNode values = MAPPER.createArrayNode();
+        for (JsonNode query : queries(expression)) {
+            String reference = page.get(query.get(1).asText());
+            if (reference == null) {
+                values.addNull();
+            } else {
+                values.add(reference);
+            }
+        }
+        JsonNode result = server.json("{\"result\":{\"type\":\"object\"}}");
+        ((ObjectNode) result.get("result")).set("value", values);
+        return result;
+    }
+
+    /** The locators of each findFirst poll, in order. */
+    private List<List<String>> findFirstCalls() {
+        return server.commands("Runtime.evaluate").stream()
+                .map(params -> params.path("expression").asText())
+                .filter(expression -> expression.startsWith(FIND_FIRST))
+                .map(expression -> {
+                    List<String> locators = new ArrayList<>();
+                    queries(expression).forEach(query -> locators.add(query.get(1).asText()));
+                    return locators;
+                })
+                .toList();
+    }
+
+    private JsonNode queries(String expression) {
+        return server.json(expression.substring(FIND_FIRST.length(), expression.length() - 1));
+    }
+}
@@ -0,0 +1,80 @@
+package cdphandler;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link CdpElement} interactions against a {@link FakeCdpServer}
+ * whose page no longer holds the element.
+ */
+public class CdpElementTest {
+
+    private static final String SNAPSHOT = "__cdp.snapshot(";
+
+    private FakeCdpServer server;
+    private CdpDriver driver;
+    private CdpElement element;
+
+    @BeforeMethod
+    public void connect() throws IOException {
+        server = new FakeCdpServer();
+        server.respond("Runtime.evaluate", params -> {
+            if (params.path("expression").asText().startsWith(SNAPSHOT)) {
+                throw new IllegalStateException("Element is not attached to the document");
+            }
+            return server.json("{\"result\":{\"type\":\"undefined\"}}");
+        });
+        driver = new CdpDriver(new CdpClient(server.url()));
+        driver.setDefaultTimeout(Duration.ofMillis(200));
+        element = new CdpElement(driver, CdpBy.ByCssSelector("submit", "#submit"), "1_submit");
+    }
+
+    @AfterMethod
+    public void disconnect() throws IOException {
+        driver.close();
+        server.close();
+    }
+
+    @Test
+    public void testClickOnAStaleElementFailsWithTheLocator() {
+        IllegalStateException failure = Assert.expectThrows(IllegalStateException.class, element::click);
+
+        Assert.assertEquals(failure.getMessage(), "Element is stale or not actionable: " + element);
+        Assert.assertTrue(server.commands("Input.dispatchMouseEvent").isEmpty());
+    }
+
+    @Test
+    public void testMouseMoveOnAStaleElementFails() {
+        Assert.expectThrows(IllegalStateException.class, () -> element.mouseMove());
+
+        Assert.assertTrue(server.commands("Input.dispatchMouseEvent").isEmpty());
+    }
+
+    @Test
+    public void testTracedInteractionTakesTheFailedSnapshotOnce() throws IOException {
+        File zip = Files.createTempFile("cdp-element-trace", ".zip").toFile();
+        driver.startTracing(zip);
+        try {
+            // dragDrop does not poll, so every snapshot command is one prepare
+            Assert.expectThrows(IllegalStateException.class, () -> element.dragDrop(10, 0));
+
+            Assert.assertEquals(snapshots(), 1);
+        } finally {
+            driver.stopTracing();
+            zip.delete();
+        }
+    }
+
+    private long snapshots() {
+        return server.commands("Runtime.evaluate").stream()
+                .filter(params -> params.path("expression").asText().startsWith(SNAPSHOT))
+                .count();
+    }
+}
@@ -0,0 +1,143 @@
+package cdphandler;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link CdpEventDispatcher}.
+ * Each test parks the listener on a latch so events pile up in its queue, then
+ * releases it and checks what was delivered.
+ */
+public class CdpEventDispatcherTest {
+
+    private CdpEventDispatcher dispatcher;
+
+    @BeforeMethod
+    public void setUp() {
+        dispatcher = new CdpEventDispatcher();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testBlockPolicyDeliversEverythingInOrder() throws Exception {
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        Object listener = new Object();
+        CdpEventDispatcher.Mailbox mailbox = dispatcher.acquire(listener, CdpEventPolicy.BLOCK, 4);
+        CountDownLatch done = new CountDownLatch(100);
+
+        for (int i = 0; i < 100; i++) {
+            int n = i;
+            mailbox.offer("Test.event", System.nanoTime(), () -> {
+                seen.add(n);
+                done.countDown();
+            });
+        }
+
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(seen.get(i).intValue(), i);
+        }
+        Assert.assertEquals(dispatcher.stats().eventsDropped(), 0);
+    }
+
+    @Test
+    public void testDropOldestKeepsNewestEvents() throws Exception {
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        CdpEventDispatcher.Mailbox mailbox = dispatcher.acquire(new Object(), CdpEventPolicy.DROP_OLDEST, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        mailbox.offer("Test.event", System.nanoTime(), () -> {
+            started.countDown();
+            await(release);
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+            int n = i;
+            mailbox.offer("Test.event", System.nanoTime(), () -> seen.add(n));
+        }
+        release.countDown();
+
+        waitForEmptyQueue();
+        Assert.assertEquals(seen, List.of(3, 4));
+        Assert.assertEquals(dispatcher.stats().eventsDropped(), 3);
+    }
+
+    @Test
+    public void testDefaultPolicyNeverStallsTheCaller() throws Exception {
+        CdpEventDispatcher.Mailbox mailbox = dispatcher.acquire(new Object(), CdpEventDispatcher.DEFAULT_POLICY, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        mailbox.offer("Test.event", System.nanoTime(), () -> {
+            started.countDown();
+            await(release);
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        long begin = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            mailbox.offer("Test.event", System.nanoTime(), () -> {
+            });
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        release.countDown();
+
+        Assert.assertTrue(elapsedMillis < 1000, "Offering to a full queue took " + elapsedMillis + " ms");
+        waitForEmptyQueue();
+        Assert.assertEquals(dispatcher.stats().eventsDropped(), 48);
+    }
+
+    @Test
+    public void testCoalesceReplacesQueuedEventOfSameMethod() throws Exception {
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        CdpEventDispatcher.Mailbox mailbox = dispatcher.acquire(new Object(), CdpEventPolicy.COALESCE, 16);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        mailbox.offer("Page.frame", System.nanoTime(), () -> {
+            started.countDown();
+            await(release);
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        mailbox.offer("Page.frame", System.nanoTime(), () -> seen.add("frame-1"));
+        mailbox.offer("Page.other", System.nanoTime(), () -> seen.add("other"));
+        mailbox.offer("Page.frame", System.nanoTime(), () -> seen.add("frame-2"));
+        release.countDown();
+
+        waitForEmptyQueue();
+        Assert.assertEquals(seen, List.of("frame-2", "other"));
+    }
+
+    private void waitForEmptyQueue() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            CdpDispatchStats stats = dispatcher.stats();
+            if (stats.queueDepth() == 0) {
+                Thread.sleep(50);
+                return;
+            }
+            Thread.sleep(10);
+        }
+        Assert.fail("Dispatcher queue did not drain");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
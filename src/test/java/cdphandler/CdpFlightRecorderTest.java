@@ -0,0 +1,71 @@
+package cdphandler;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Unit tests for {@link CdpFlightRecorder}.
+ */
+public class CdpFlightRecorderTest {
+
+    @Test
+    public void testRingKeepsNewestRecordsInOrder() throws Exception {
+        Path file = Files.createTempFile("cdp-flight", ".ring");
+        try (CdpFlightRecorder recorder = CdpFlightRecorder.open(file, 8, true)) {
+            for (int i = 0; i < 20; i++) {
+                recorder.record(CdpFlightRecorder.Direction.SENT, i, "Page.navigate", "{\"id\":" + i + "}");
+            }
+
+            List<CdpFlightRecorder.Entry> entries = recorder.snapshot();
+            Assert.assertEquals(entries.size(), 8);
+            for (int i = 0; i < 8; i++) {
+                Assert.assertEquals(entries.get(i).id(), 12 + i);
+                Assert.assertEquals(entries.get(i).method(), "Page.navigate");
+            }
+        }
+        Assert.assertFalse(Files.exists(file), "Ring file should be deleted on close");
+    }
+
+    @Test
+    public void testLargePayloadIsTruncatedAndReadableFromFile() throws Exception {
+        Path file = Files.createTempFile("cdp-flight", ".ring");
+        String screenshot = "{\"id\":3,\"result\":{\"data\":\"" + "A".repeat(100_000) + "\"}}";
+        try (CdpFlightRecorder recorder = CdpFlightRecorder.open(file, 4, false)) {
+            recorder.record(CdpFlightRecorder.Direction.RECEIVED, 3, null, screenshot);
+        }
+
+        List<CdpFlightRecorder.Entry> entries = CdpFlightRecorder.read(file);
+        Files.delete(file);
+
+        Assert.assertEquals(entries.size(), 1);
+        CdpFlightRecorder.Entry entry = entries.get(0);
+        Assert.assertEquals(entry.direction(), CdpFlightRecorder.Direction.RECEIVED);
+        Assert.assertEquals(entry.size(), screenshot.length());
+        Assert.assertEquals(entry.payload().length(), CdpFlightRecorder.MAX_PAYLOAD_BYTES);
+        Assert.assertTrue(screenshot.startsWith(entry.payload()));
+    }
+
+    @Test
+    public void testStaleRingFilesOfExitedProcessesAreDeleted() throws Exception {
+        Path dir = Files.createTempDirectory("cdp-flight");
+        Process exited = new ProcessBuilder(ProcessHandle.current().info().command().orElse("java"), "-version")
+                .start();
+        exited.waitFor();
+        Path stale = Files.createFile(dir.resolve("cdp-" + exited.pid() + "-1.ring"));
+        Path live = Files.createFile(dir.resolve("cdp-" + ProcessHandle.current().pid() + "-1.ring"));
+        Path other = Files.createFile(dir.resolve("notes.ring"));
+
+        CdpFlightRecorder.deleteStaleFiles(dir);
+
+        Assert.assertFalse(Files.exists(stale), "Ring file of an exited process should be deleted");
+        Assert.assertTrue(Files.exists(live), "Ring file of this process should be kept");
+        Assert.assertTrue(Files.exists(other), "Files that are not ring files should be kept");
+        Files.delete(live);
+        Files.delete(other);
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,154 @@
+package cdphandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * CI test of {@link CdpHelperRuntime} and {@link CdpScripts#HELPER_RUNTIME_SCRIPT}
+ * against a real page, in registry mode and in remote object mode
+ * ({@code -Dcdp.remoteObjectHandles=true}).
+ */
+public class CdpHelperRuntimeBrowserTest extends CdpTestBase {
+
+    private static final String LINKS = "<a id='one' href='/one'>One</a><a id='two' href='/two'>Two</a>";
+
+    @DataProvider(name = "modes")
+    public Object[][] modes() {
+        return new Object[][] { { false }, { true } };
+    }
+
+    @Test(dataProvider = "modes")
+    public void testFindCallAndBatch(boolean remoteObjectHandles) {
+        CdpHelperRuntime runtime = runtime(remoteObjectHandles, LINKS);
+
+        List<String> references = runtime.find("", "css", "a");
+        Assert.assertEquals(references.size(), 2);
+        Assert.assertEquals(runtime.callElement("attribute", true, references.get(0), "href").path("value").asText(),
+                "/one");
+
+        List<JsonNode> hrefs = runtime.batch("attribute", references, "href");
+        Assert.assertEquals(hrefs.get(0).asText(), "/one");
+        Assert.assertEquals(hrefs.get(1).asText(), "/two");
+
+        List<String> first = runtime.findFirst("", List.of(List.of("id", "missing"), List.of("css", "#two")));
+        Assert.assertNull(first.get(0));
+        Assert.assertEquals(runtime.callElement("attribute", true, first.get(1), "id").path("value").asText(), "two");
+    }
+
+    @Test(dataProvider = "modes")
+    public void testFindBelowAnElement(boolean remoteObjectHandles) {
+        CdpHelperRuntime runtime = runtime(remoteObjectHandles, "<div id='box'>" + LINKS + "</div><a href='/out'>Out</a>");
+
+        String box = runtime.find("", "id", "box").getFirst();
+
+        Assert.assertEquals(runtime.find(box, "css", "a").size(), 2);
+        Assert.assertEquals(runtime.find(box, "xpath", ".//a[@href='/two']").size(), 1);
+    }
+
+    @Test(dataProvider = "modes")
+    public void testReleaseElements(boolean remoteObjectHandles) {
+        CdpHelperRuntime runtime = runtime(remoteObjectHandles, LINKS);
+        String reference = runtime.find("", "css", "#one").getFirst();
+
+        runtime.releaseElements();
+
+        if (remoteObjectHandles) {
+            Assert.assertThrows(RuntimeException.class, () -> runtime.callElement("attribute", true, reference, "href"));
+        } else {
+            // Registry references outlive the release and are pruned by the page once disconnected
+            Assert.assertEquals(runtime.callElement("attribute", true, reference, "href").path("value").asText(),
+                    "/one");
+        }
+        String fresh = runtime.find("", "css", "#one").getFirst();
+        Assert.assertEquals(runtime.callElement("attribute", true, fresh, "href").path("value").asText(), "/one");
+    }
+
+    @Test(dataProvider = "modes")
+    public void testNoGenerationInsideAShadowRoot(boolean remoteObjectHandles) {
+        CdpHelperRuntime runtime = runtime(remoteObjectHandles, "<div id='host'></div>");
+        getDriver().getCdpUtility().runtimeEvaluate(
+                "document.getElementById('host').attachShadow({mode: 'open'}).innerHTML = \"<p id='inner'>x</p>\"", false);
+        String host = runtime.find("", "id", "host").getFirst();
+        String inner = runtime.find("", "piercingCss", "#inner").getFirst();
+
+        Assert.assertTrue(generation(runtime, remoteObjectHandles, host).isTextual());
+        Assert.assertTrue(generation(runtime, remoteObjectHandles, inner).isNull());
+    }
+
+    @Test(dataProvider = "modes")
+    public void testPiercingFindsShadowRootsAttachedAfterIndexing(boolean remoteObjectHandles) {
+        CdpHelperRuntime runtime = runtime(remoteObjectHandles, "<div id='early'></div><div id='late'></div>");
+        CdpUtility cdp = getDriver().getCdpUtility();
+        cdp.runtimeEvaluate("document.getElementById('early').attachShadow({mode: 'open'}).innerHTML ="
+                + " \"<span class='x'>early</span>\"", false);
+        // The first piercing find builds the index
+        Assert.assertEquals(runtime.find("", "piercingCss", ".x").size(), 1);
+
+        // Seen through the attachShadow hook, not a mutation of the document
+        cdp.runtimeEvaluate("document.getElementById('late').attachShadow({mode: 'open'}).innerHTML ="
+                + " \"<span class='x'>late</span>\"", false);
+        // Seen through the index observer: a new host that already has its shadow root
+        cdp.runtimeEvaluate("var host = document.createElement('section');"
+                + " host.attachShadow({mode: 'open'}).innerHTML = \"<span class='x'>added</span>\";"
+                + " document.body.appendChild(host);", false);
+
+        List<String> css = runtime.find("", "piercingCss", ".x");
+        Assert.assertEquals(texts(runtime, css), List.of("early", "late", "added"));
+        Assert.assertEquals(runtime.find("", "piercingXpath", ".//span[@class='x']").size(), 3);
+        Assert.assertTrue(runtime.find("", "css", ".x").isEmpty(), "Plain CSS must not pierce");
+    }
+
+    @Test(dataProvider = "modes")
+    public void testPiercingFindsFrameElementsInTopLevelCoordinates(boolean remoteObjectHandles) {
+        CdpHelperRuntime runtime = runtime(remoteObjectHandles, "");
+        getDriver().getCdpUtility().runtimeEvaluate("var frame = document.createElement('iframe');"
+                + " frame.style.cssText = 'position:absolute; left:100px; top:50px; border:5px solid black;"
+                + " width:300px; height:200px';"
+                + " frame.srcdoc = \"<button id='b' style='position:absolute; left:10px; top:20px; width:40px;"
+                + " height:30px'>B</button>\";"
+                + " document.body.appendChild(frame);", false);
+        AtomicReference<List<String>> found = new AtomicReference<>(List.of());
+        Assert.assertTrue(getDriver().getCdpUtility().getWait().until(
+                () -> !found.updateAndGet(f -> runtime.find("", "piercingCss", "#b")).isEmpty(),
+                Duration.ofSeconds(10)), "Button in the frame was not found");
+        String button = found.get().getFirst();
+
+        JsonNode rect = runtime.callElement("rect", true, button).path("value");
+        Assert.assertEquals(rect.path("x").asDouble(), 115.0);
+        Assert.assertEquals(rect.path("y").asDouble(), 75.0);
+        Assert.assertEquals(rect.path("width").asDouble(), 40.0);
+        Assert.assertEquals(rect.path("height").asDouble(), 30.0);
+        JsonNode center = runtime.callElement("center", true, button).path("value");
+        Assert.assertEquals(center.path("x").asDouble(), 135.0);
+        Assert.assertEquals(center.path("y").asDouble(), 90.0);
+        Assert.assertFalse(runtime.callElement("obscured", true, button, 135, 90).path("value").asBoolean(),
+                "Hit test must map top-level coordinates into the frame");
+        Assert.assertTrue(runtime.find("", "css", "#b").isEmpty(), "Plain CSS must not enter frames");
+    }
+
+    private static List<String> texts(CdpHelperRuntime runtime, List<String> references) {
+        return runtime.batch("property", references, "textContent").stream().map(JsonNode::asText).toList();
+    }
+
+    private static JsonNode generation(CdpHelperRuntime runtime, boolean remoteObjectHandles, String reference) {
+        return (remoteObjectHandles
+                ? runtime.callElement("generation", true, reference)
+                : runtime.call("generation", true, reference)).path("value");
+    }
+
+    private CdpHelperRuntime runtime(boolean remoteObjectHandles, String body) {
+        ICdpDriver driver = getDriver();
+        driver.get("about:blank");
+        CdpUtility cdp = driver.getCdpUtility();
+        cdp.runtimeEvaluate("document.body.innerHTML = \"" + body + "\"", false);
+        CdpHelperRuntime runtime = new CdpHelperRuntime(cdp, remoteObjectHandles);
+        runtime.install();
+        return runtime;
+    }
+}
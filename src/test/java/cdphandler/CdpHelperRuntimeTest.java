@@ -0,0 +1,286 @@
+package cdphandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link CdpHelperRuntime} call expressions, and for the commands
+ * it sends in registry and remote object mode against a {@link FakeCdpServer}.
+ */
+public class CdpHelperRuntimeTest {
+
+    private static final String ARRAY = "{\"result\":{\"type\":\"object\",\"subtype\":\"array\",\"objectId\":\"arr-1\"}}";
+    private static final String PROPERTIES = """
+            {"result":[
+             {"name":"0","enumerable":true,"value":{"type":"object","subtype":"node","objectId":"el-a"}},
+             {"name":"2","enumerable":true,"value":{"type":"object","subtype":"node","objectId":"el-c"}},
+             {"name":"1","enumerable":true,"value":{"type":"object","subtype":"null"}},
+             {"name":"length","enumerable":false,"value":{"type":"number","value":3}}]}""";
+
+    private FakeCdpServer server;
+    private CdpUtility cdp;
+
+    @BeforeMethod
+    public void connect() throws IOException {
+        server = new FakeCdpServer();
+        cdp = new CdpUtility(new CdpClient(server.url()), false);
+    }
+
+    @AfterMethod
+    public void disconnect() throws IOException {
+        cdp.close();
+        server.close();
+    }
+
+    @Test
+    public void testExpressionSerialisesArgumentsAsJsonLiterals() {
+        Assert.assertEquals(CdpHelperRuntime.expression("scrollBy", "1_ab", 10, -5),
+                "__cdp.scrollBy(\"1_ab\",10,-5)");
+        Assert.assertEquals(CdpHelperRuntime.expression("find", "", "css", "a[title=\"x`y\"]"),
+                "__cdp.find(\"\",\"css\",\"a[title=\\\"x`y\\\"]\")");
+    }
+
+    @Test
+    public void testExpressionSerialisesLocatorBatchAsNestedArray() {
+        Assert.assertEquals(CdpHelperRuntime.expression("findFirst", "",
+                        List.of(List.of("id", "user"), List.of("xpath", "//button[@type='submit']"))),
+                "__cdp.findFirst(\"\",[[\"id\",\"user\"],[\"xpath\",\"//button[@type='submit']\"]])");
+    }
+
+    @Test
+    public void testExpressionSerialisesElementBatch() {
+        Assert.assertEquals(CdpHelperRuntime.expression("batch", "attribute", List.of("1_ab", "2_cd"),
+                        new Object[]{"href"}),
+                "__cdp.batch(\"attribute\",[\"1_ab\",\"2_cd\"],[\"href\"])");
+    }
+
+    @Test
+    public void testIsMissingDetectsUndefinedRuntime() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode missing = mapper.readTree("""
+                {"type":"object","subtype":"error","className":"ReferenceError",
+                 "description":"ReferenceError: __cdp is not defined\\n    at <anonymous>:1:1"}""");
+        JsonNode other = mapper.readTree("""
+                {"type":"object","subtype":"error","className":"ReferenceError",
+                 "description":"ReferenceError: foo is not defined"}""");
+        Assert.assertTrue(CdpHelperRuntime.isMissing(missing));
+        Assert.assertFalse(CdpHelperRuntime.isMissing(other));
+        Assert.assertFalse(CdpHelperRuntime.isMissing(mapper.readTree("{\"type\":\"boolean\",\"value\":true}")));
+    }
+
+    @Test
+    public void testRegistryFindEvaluatesHelperByValue() {
+        server.respond("Runtime.evaluate", params -> server.json("{\"result\":{\"type\":\"object\",\"value\":[\"1_a\",\"2_b\"]}}"));
+
+        List<String> references = new CdpHelperRuntime(cdp, false).find("", "css", "a");
+
+        Assert.assertEquals(references, List.of("1_a", "2_b"));
+        JsonNode params = server.commands("Runtime.evaluate").getFirst();
+        Assert.assertEquals(params.path("expression").asText(), "__cdp.find(\"\",\"css\",\"a\")");
+        Assert.assertTrue(params.path("returnByValue").asBoolean());
+        Assert.assertEquals(server.methods(), List.of("Runtime.evaluate"));
+    }
+
+    @Test
+    public void testRemoteFindExpandsTheResultArrayAndReleasesIt() {
+        server.respond("Runtime.evaluate", params -> server.json(ARRAY));
+        server.respond("Runtime.getProperties", params -> server.json(PROPERTIES));
+
+        List<String> references = new CdpHelperRuntime(cdp, true).find("", "css", "a");
+
+        Assert.assertEquals(references, List.of("el-a", "el-c"));
+        JsonNode evaluate = server.commands("Runtime.evaluate").getFirst();
+        Assert.assertEquals(evaluate.path("expression").asText(), "__cdp.node.find(document,\"css\",\"a\")");
+        Assert.assertEquals(evaluate.path("objectGroup").asText(), CdpHelperRuntime.OBJECT_GROUP);
+        Assert.assertFalse(evaluate.path("returnByValue").asBoolean());
+        Assert.assertEquals(server.commands("Runtime.getProperties").getFirst().path("objectId").asText(), "arr-1");
+        awaitCommand("Runtime.releaseObject");
+        Assert.assertEquals(server.commands("Runtime.releaseObject").getFirst().path("objectId").asText(), "arr-1");
+    }
+
+    @Test
+    public void testRemoteFindBelowAnElementCallsFunctionOnIt() {
+        server.respond("Runtime.callFunctionOn", params -> server.json(ARRAY));
+        server.respond("Runtime.getProperties", params -> server.json(PROPERTIES));
+
+        new CdpHelperRuntime(cdp, true).find("el-root", "xpath", ".//a");
+
+        JsonNode call = server.commands("Runtime.callFunctionOn").getFirst();
+        Assert.assertEquals(call.path("objectId").asText(), "el-root");
+        Assert.assertTrue(call.path("functionDeclaration").asText().contains("__cdp.node.find(this, s, l)"));
+        Assert.assertEquals(call.path("arguments"), server.json("[{\"value\":\"xpath\"},{\"value\":\".//a\"}]"));
+        Assert.assertEquals(call.path("objectGroup").asText(), CdpHelperRuntime.OBJECT_GROUP);
+        awaitCommand("Runtime.releaseObject");
+    }
+
+    @Test
+    public void testRemoteFindFirstKeepsQueryPositions() {
+        server.respond("Runtime.evaluate", params -> server.json(ARRAY));
+        server.respond("Runtime.getProperties", params -> server.json(PROPERTIES));
+
+        List<String> references = new CdpHelperRuntime(cdp, true).findFirst("",
+                List.of(List.of("id", "a"), List.of("id", "b"), List.of("id", "c")));
+
+        Assert.assertEquals(references, Arrays.asList("el-a", null, "el-c"));
+        awaitCommand("Runtime.releaseObject");
+        Assert.assertEquals(server.commands("Runtime.releaseObject").getFirst().path("objectId").asText(), "arr-1");
+    }
+
+    @Test
+    public void testRemoteCallElementCallsFunctionOnTheObjectId() {
+        server.respond("Runtime.callFunctionOn",
+                params -> server.json("{\"result\":{\"type\":\"string\",\"value\":\"/next\"}}"));
+
+        JsonNode result = new CdpHelperRuntime(cdp, true).callElement("attribute", true, "el-a", "href");
+
+        Assert.assertEquals(result.path("value").asText(), "/next");
+        JsonNode call = server.commands("Runtime.callFunctionOn").getFirst();
+        Assert.assertEquals(call.path("objectId").asText(), "el-a");
+        Assert.assertTrue(call.path("functionDeclaration").asText().contains("__cdp.node.attribute(this, ...a)"));
+        Assert.assertEquals(call.path("arguments"), server.json("[{\"value\":\"href\"}]"));
+        Assert.assertTrue(call.path("returnByValue").asBoolean());
+        Assert.assertFalse(call.has("objectGroup"));
+    }
+
+    @Test
+    public void testRemoteCallElementReinstallsAMissingRuntime() {
+        server.respond("Runtime.callFunctionOn", params -> server.commands("Runtime.evaluate").isEmpty()
+                ? server.json("{\"result\":{\"type\":\"object\",\"subtype\":\"error\",\"className\":\"ReferenceError\","
+                        + "\"description\":\"ReferenceError: __cdp is not defined\"}}")
+                : server.json("{\"result\":{\"type\":\"boolean\",\"value\":true}}"));
+
+        JsonNode result = new CdpHelperRuntime(cdp, true).callElement("displayed", true, "el-a");
+
+        Assert.assertTrue(result.path("value").asBoolean());
+        Assert.assertEquals(server.methods(), List.of("Runtime.callFunctionOn", "Page.addScriptToEvaluateOnNewDocument",
+                "Runtime.evaluate", "Runtime.callFunctionOn"));
+    }
+
+    @Test
+    public void testRemoteCallElementOnAReleasedObjectIdFails() {
+        server.respond("Runtime.callFunctionOn", params -> {
+            throw new IllegalStateException("Could not find object with given id");
+        });
+        CdpHelperRuntime runtime = new CdpHelperRuntime(cdp, true);
+
+        RuntimeException failure = Assert.expectThrows(RuntimeException.class,
+                () -> runtime.callElement("rect", true, "el-gone"));
+
+        Assert.assertTrue(failure.getMessage().contains("Could not find object with given id"), failure.getMessage());
+        // A stale handle is not mistaken for a document without the helper library
+        Assert.assertEquals(server.methods(), List.of("Runtime.callFunctionOn"));
+    }
+
+    @Test
+    public void testRemoteBatchPassesElementsAsObjectArguments() {
+        server.respond("Runtime.callFunctionOn", params -> server.json("{\"result\":{\"type\":\"object\",\"value\":[\"/a\",null]}}"));
+
+        List<JsonNode> values = new CdpHelperRuntime(cdp, true).batch("attribute", List.of("el-a", "el-b"), "href");
+
+        Assert.assertEquals(values.get(0).asText(), "/a");
+        Assert.assertNull(values.get(1));
+        JsonNode call = server.commands("Runtime.callFunctionOn").getFirst();
+        Assert.assertEquals(call.path("objectId").asText(), "el-a");
+        Assert.assertEquals(call.path("arguments"), server.json(
+                "[{\"value\":\"attribute\"},{\"value\":[\"href\"]},{\"objectId\":\"el-a\"},{\"objectId\":\"el-b\"}]"));
+    }
+
+    @Test
+    public void testRemoteBatchAcrossWorldsFallsBackToOneCallPerElement() {
+        server.respond("Runtime.callFunctionOn", params -> {
+            if (params.path("arguments").size() > 1) {
+                throw new IllegalStateException("Argument should belong to the same JavaScript world as target object");
+            }
+            return switch (params.path("objectId").asText()) {
+                case "el-a" -> server.json("{\"result\":{\"type\":\"string\",\"value\":\"/a\"}}");
+                case "el-frame" -> server.json("{\"result\":{\"type\":\"string\",\"value\":\"/frame\"}}");
+                default -> throw new IllegalStateException("Could not find object with given id");
+            };
+        });
+
+        List<JsonNode> values = new CdpHelperRuntime(cdp, true).batch("attribute",
+                List.of("el-a", "el-frame", "el-gone"), "href");
+
+        Assert.assertEquals(values.get(0).asText(), "/a");
+        Assert.assertEquals(values.get(1).asText(), "/frame");
+        Assert.assertNull(values.get(2));
+        Assert.assertEquals(server.commands("Runtime.callFunctionOn").size(), 4);
+    }
+
+    @Test
+    public void testReleaseElementsReleasesTheObjectGroupInRemoteModeOnly() {
+        new CdpHelperRuntime(cdp, false).releaseElements();
+        new CdpHelperRuntime(cdp, true).releaseElements();
+
+        Assert.assertEquals(server.methods(), List.of("Runtime.releaseObjectGroup"));
+        Assert.assertEquals(server.commands("Runtime.releaseObjectGroup").getFirst().path("objectGroup").asText(),
+                CdpHelperRuntime.OBJECT_GROUP);
+    }
+
+    @Test
+    public void testCachedFindHitsWhileTheGenerationIsUnchanged() {
+        server.respond("Runtime.evaluate", params -> params.path("expression").asText().startsWith("__cdp.generation(")
+                ? server.json("{\"result\":{\"type\":\"string\",\"value\":\"doc:1\"}}")
+                : server.json("{\"result\":{\"type\":\"object\",\"value\":[\"2_b\"]}}"));
+        CdpHelperRuntime runtime = new CdpHelperRuntime(cdp, false);
+        runtime.locatorCache().setEnabled(true);
+
+        Assert.assertEquals(runtime.find("1_root", "css", "b"), List.of("2_b"));
+        Assert.assertEquals(runtime.find("1_root", "css", "b"), List.of("2_b"));
+
+        Assert.assertEquals(expressions(), List.of("__cdp.generation(\"1_root\")", "__cdp.find(\"1_root\",\"css\",\"b\")",
+                "__cdp.generation(\"1_root\")"));
+        Assert.assertEquals(runtime.locatorCache().stats().hits(), 1);
+    }
+
+    @Test
+    public void testFindBelowAnUnobservedRootBypassesTheCache() {
+        // The page has no generation for a reference in a shadow root or a frame
+        server.respond("Runtime.evaluate", params -> params.path("expression").asText().startsWith("__cdp.generation(")
+                ? server.json("{\"result\":{\"type\":\"object\",\"subtype\":\"null\",\"value\":null}}")
+                : server.json("{\"result\":{\"type\":\"object\",\"value\":[\"2_b\"]}}"));
+        CdpHelperRuntime runtime = new CdpHelperRuntime(cdp, false);
+        runtime.locatorCache().setEnabled(true);
+
+        runtime.find("1_shadow", "css", "b");
+        runtime.find("1_shadow", "css", "b");
+
+        Assert.assertEquals(expressions().stream().filter(e -> e.startsWith("__cdp.find(")).count(), 2);
+        Assert.assertEquals(runtime.locatorCache().stats().entries(), 0);
+    }
+
+    @Test
+    public void testRemoteGenerationIsAskedOfTheReferenceElement() {
+        server.respond("Runtime.callFunctionOn", params -> params.path("objectGroup").isMissingNode()
+                ? server.json("{\"result\":{\"type\":\"object\",\"subtype\":\"null\",\"value\":null}}")
+                : server.json(ARRAY));
+        server.respond("Runtime.getProperties", params -> server.json(PROPERTIES));
+        CdpHelperRuntime runtime = new CdpHelperRuntime(cdp, true);
+        runtime.locatorCache().setEnabled(true);
+
+        runtime.find("el-root", "css", "b");
+
+        JsonNode generation = server.commands("Runtime.callFunctionOn").getFirst();
+        Assert.assertEquals(generation.path("objectId").asText(), "el-root");
+        Assert.assertTrue(generation.path("functionDeclaration").asText().contains("__cdp.node.generation(this, ...a)"));
+        Assert.assertEquals(runtime.locatorCache().stats().entries(), 0);
+    }
+
+    private List<String> expressions() {
+        return server.commands("Runtime.evaluate").stream().map(params -> params.path("expression").asText()).toList();
+    }
+
+    private void awaitCommand(String method) {
+        Assert.assertTrue(new CdpWait().until(() -> !server.commands(method).isEmpty(), Duration.ofSeconds(5)),
+                "No " + method + " received");
+    }
+}
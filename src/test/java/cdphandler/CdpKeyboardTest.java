@@ -0,0 +1,40 @@
+package cdphandler;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link CdpKeyboard} key event mapping.
+ */
+public class CdpKeyboardTest {
+
+    @Test
+    public void testControlCharactersMapToSpecialKeys() {
+        CdpKeyboard.Keystroke enter = CdpKeyboard.keystroke('\n');
+        Assert.assertTrue(enter.special());
+        Assert.assertEquals(enter.text(), "\r");
+        Assert.assertEquals(enter.code(), "Enter");
+        Assert.assertEquals(enter.virtualKeyCode(), 13);
+
+        CdpKeyboard.Keystroke tab = CdpKeyboard.keystroke('\t');
+        Assert.assertTrue(tab.special());
+        Assert.assertEquals(tab.text(), "");
+        Assert.assertEquals(tab.key(), "Tab");
+    }
+
+    @Test
+    public void testOrdinaryCharactersAreNotSpecial() {
+        CdpKeyboard.Keystroke digit = CdpKeyboard.keystroke('7');
+        Assert.assertFalse(digit.special());
+        Assert.assertEquals(digit.code(), "Digit7");
+        Assert.assertEquals(digit.virtualKeyCode(), 55);
+
+        CdpKeyboard.Keystroke space = CdpKeyboard.keystroke(' ');
+        Assert.assertEquals(space.code(), "Space");
+
+        CdpKeyboard.Keystroke punctuation = CdpKeyboard.keystroke('@');
+        Assert.assertFalse(punctuation.special());
+        Assert.assertEquals(punctuation.text(), "@");
+        Assert.assertEquals(punctuation.virtualKeyCode(), '@');
+    }
+}
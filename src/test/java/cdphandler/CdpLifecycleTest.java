@@ -0,0 +1,122 @@
+package cdphandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link CdpLifecycle}.
+ */
+public class CdpLifecycleTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Duration SHORT = Duration.ofMillis(50);
+
+    private static JsonNode event(String method, String params) throws Exception {
+        return MAPPER.readTree("{\"method\":\"" + method + "\",\"params\":" + params + "}");
+    }
+
+    private static JsonNode navigated(String frameId, String loaderId, String type) throws Exception {
+        return event("Page.frameNavigated", "{\"frame\":{\"id\":\"" + frameId + "\",\"loaderId\":\"" + loaderId
+                + "\"},\"type\":\"" + type + "\"}");
+    }
+
+    private static JsonNode lifecycle(String frameId, String loaderId, String name) throws Exception {
+        return event("Page.lifecycleEvent", "{\"frameId\":\"" + frameId + "\",\"loaderId\":\"" + loaderId
+                + "\",\"name\":\"" + name + "\"}");
+    }
+
+    @Test
+    public void testNavigationIsAwaitedByLoaderId() throws Exception {
+        CdpLifecycle lifecycle = new CdpLifecycle(null);
+        long mark = lifecycle.mark();
+        lifecycle.onEvent(navigated("main", "L1", "Navigation"));
+        lifecycle.onEvent(lifecycle("main", "L1", "DOMContentLoaded"));
+
+        Assert.assertTrue(lifecycle.await(mark, "L1", CdpLoadState.COMMIT, SHORT));
+        Assert.assertTrue(lifecycle.await(mark, "L1", CdpLoadState.DOM_CONTENT_LOADED, SHORT));
+        Assert.assertFalse(lifecycle.await(mark, "L1", CdpLoadState.LOAD, SHORT));
+        Assert.assertFalse(lifecycle.await(mark, "L2", CdpLoadState.COMMIT, SHORT));
+    }
+
+    @Test
+    public void testNavigationWithoutLoaderIdIsTheNextCommit() throws Exception {
+        CdpLifecycle lifecycle = new CdpLifecycle(null);
+        lifecycle.onEvent(navigated("main", "L1", "Navigation"));
+        lifecycle.onEvent(lifecycle("main", "L1", "load"));
+        long mark = lifecycle.mark();
+        Assert.assertFalse(lifecycle.await(mark, null, CdpLoadState.COMMIT, SHORT), "Earlier loads do not count");
+
+        lifecycle.onEvent(navigated("main", "L2", "Navigation"));
+        Assert.assertTrue(lifecycle.await(mark, null, CdpLoadState.COMMIT, SHORT));
+        Assert.assertFalse(lifecycle.await(mark, null, CdpLoadState.LOAD, SHORT));
+    }
+
+    @Test
+    public void testSameDocumentAndCachedNavigationsSatisfyEveryState() throws Exception {
+        CdpLifecycle lifecycle = new CdpLifecycle(null);
+        lifecycle.onEvent(navigated("main", "L1", "Navigation"));
+        long mark = lifecycle.mark();
+        lifecycle.onEvent(event("Page.navigatedWithinDocument", "{\"frameId\":\"main\",\"url\":\"about:blank#a\"}"));
+        Assert.assertTrue(lifecycle.await(mark, null, CdpLoadState.NETWORK_IDLE, SHORT));
+
+        mark = lifecycle.mark();
+        lifecycle.onEvent(navigated("main", "L0", "BackForwardCacheRestore"));
+        Assert.assertTrue(lifecycle.await(mark, null, CdpLoadState.NETWORK_IDLE, SHORT));
+    }
+
+    @Test
+    public void testChildFramesAreIgnored() throws Exception {
+        CdpLifecycle lifecycle = new CdpLifecycle(null);
+        lifecycle.onEvent(navigated("main", "L1", "Navigation"));
+        long mark = lifecycle.mark();
+        lifecycle.onEvent(event("Page.frameNavigated",
+                "{\"frame\":{\"id\":\"child\",\"parentId\":\"main\",\"loaderId\":\"C1\"},\"type\":\"Navigation\"}"));
+        lifecycle.onEvent(lifecycle("child", "C1", "load"));
+        Assert.assertFalse(lifecycle.await(mark, null, CdpLoadState.COMMIT, SHORT));
+        Assert.assertFalse(lifecycle.await(mark, "C1", CdpLoadState.LOAD, SHORT));
+    }
+
+    @Test
+    public void testEventWakesWaiter() throws Exception {
+        CdpLifecycle lifecycle = new CdpLifecycle(null);
+        lifecycle.onEvent(navigated("main", "L1", "Navigation"));
+        JsonNode load = lifecycle("main", "L1", "load");
+        Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            lifecycle.onEvent(load);
+        });
+        long started = System.nanoTime();
+        Assert.assertTrue(lifecycle.await(0, "L1", CdpLoadState.LOAD, Duration.ofSeconds(5)));
+        Assert.assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 1000);
+    }
+
+    @Test
+    public void testEventsAreHandledInWireOrder() throws Exception {
+        try (FakeCdpServer server = new FakeCdpServer()) {
+            server.respond("Page.getFrameTree",
+                    params -> server.json("{\"frameTree\":{\"frame\":{\"id\":\"main\",\"loaderId\":\"L0\"}}}"));
+            CdpUtility cdp = new CdpUtility(new CdpClient(server.url()), false);
+            try {
+                CdpLifecycle lifecycle = cdp.getLifecycle();
+                Assert.assertTrue(lifecycle.enable());
+                // A new main frame id only applies to lifecycle events handled after its navigation
+                for (int i = 1; i <= 20; i++) {
+                    long mark = lifecycle.mark();
+                    server.emit("Page.frameNavigated", navigated("frame" + i, "L" + i, "Navigation").get("params"));
+                    server.emit("Page.lifecycleEvent", lifecycle("frame" + i, "L" + i, "load").get("params"));
+                    Assert.assertTrue(lifecycle.await(mark, "L" + i, CdpLoadState.LOAD, Duration.ofSeconds(5)),
+                            "Load of navigation " + i + " was lost");
+                }
+            } finally {
+                cdp.close();
+            }
+        }
+    }
+}
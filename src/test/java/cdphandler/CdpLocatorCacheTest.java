@@ -0,0 +1,73 @@
+package cdphandler;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * Unit tests for {@link CdpLocatorCache}.
+ */
+public class CdpLocatorCacheTest {
+
+    @Test
+    public void testHitOnlyWhileGenerationIsUnchanged() {
+        CdpLocatorCache cache = new CdpLocatorCache();
+        Assert.assertNull(cache.get("", "css", "#login", "doc:3"));
+        cache.put("", "css", "#login", "doc:3", List.of("1_ab"));
+
+        Assert.assertEquals(cache.get("", "css", "#login", "doc:3"), List.of("1_ab"));
+        Assert.assertNull(cache.get("1_ab", "css", "#login", "doc:3"), "Reference element is part of the key");
+        Assert.assertNull(cache.get("", "css", "#login", "doc:4"));
+        Assert.assertNull(cache.get("", "css", "#login", "doc:3"), "Stale entry should have been dropped");
+
+        CdpLocatorCacheStats stats = cache.stats();
+        Assert.assertEquals(stats.hits(), 1);
+        Assert.assertEquals(stats.misses(), 4);
+        Assert.assertEquals(stats.invalidations(), 1);
+        Assert.assertEquals(stats.entries(), 0);
+    }
+
+    @Test
+    public void testEmptyResultsAreCached() {
+        CdpLocatorCache cache = new CdpLocatorCache();
+        cache.put("", "xpath", "//dialog", "doc:0", List.of());
+        Assert.assertEquals(cache.get("", "xpath", "//dialog", "doc:0"), List.of());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        CdpLocatorCache cache = new CdpLocatorCache();
+        for (int i = 0; i <= CdpLocatorCache.MAX_ENTRIES; i++) {
+            cache.put("", "id", "e" + i, "doc:0", List.of("r" + i));
+            if (i == 0) {
+                continue;
+            }
+            // Keep the first entry recently used
+            cache.get("", "id", "e0", "doc:0");
+        }
+        Assert.assertEquals(cache.stats().entries(), CdpLocatorCache.MAX_ENTRIES);
+        Assert.assertNotNull(cache.get("", "id", "e0", "doc:0"));
+        Assert.assertNull(cache.get("", "id", "e1", "doc:0"));
+    }
+
+    @Test
+    public void testUntrackedLocatorsAreNotCacheable() {
+        Assert.assertTrue(CdpLocatorCache.cacheable("id", "user"));
+        Assert.assertTrue(CdpLocatorCache.cacheable("xpath", "//button[text()='Save']"));
+        Assert.assertTrue(CdpLocatorCache.cacheable("css", "ul > li:nth-child(2)"));
+        Assert.assertFalse(CdpLocatorCache.cacheable("css", "input:checked"));
+        Assert.assertFalse(CdpLocatorCache.cacheable("css", "form :focus-within"));
+        Assert.assertFalse(CdpLocatorCache.cacheable("piercingCss", "button"));
+    }
+
+    @Test
+    public void testDisablingEmptiesTheCache() {
+        CdpLocatorCache cache = new CdpLocatorCache();
+        cache.setEnabled(true);
+        cache.put("", "id", "user", "doc:0", List.of("1_ab"));
+        cache.setEnabled(false);
+        Assert.assertFalse(cache.stats().enabled());
+        Assert.assertEquals(cache.stats().entries(), 0);
+    }
+}
@@ -0,0 +1,187 @@
+package cdphandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link CdpNetworkTracker}.
+ */
+public class CdpNetworkTrackerTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static JsonNode started(String requestId, String url) throws Exception {
+        return MAPPER.readTree("{\"method\":\"Network.requestWillBeSent\",\"params\":{\"requestId\":\"" + requestId
+                + "\",\"request\":{\"url\":\"" + url + "\"}}}");
+    }
+
+    private static JsonNode ended(String method, String requestId) throws Exception {
+        return MAPPER.readTree("{\"method\":\"" + method + "\",\"params\":{\"requestId\":\"" + requestId + "\"}}");
+    }
+
+    private static JsonNode started(String requestId, String url, String loaderId) throws Exception {
+        return MAPPER.readTree("{\"method\":\"Network.requestWillBeSent\",\"params\":{\"requestId\":\"" + requestId
+                + "\",\"loaderId\":\"" + loaderId + "\",\"request\":{\"url\":\"" + url + "\"}}}");
+    }
+
+    private static JsonNode navigated(String loaderId, String parentId) throws Exception {
+        return MAPPER.readTree("{\"method\":\"Page.frameNavigated\",\"params\":{\"frame\":{\"id\":\"f\",\"loaderId\":\""
+                + loaderId + "\"" + (parentId == null ? "" : ",\"parentId\":\"" + parentId + "\"") + "}}}");
+    }
+
+    @Test
+    public void testCountsInflightRequests() throws Exception {
+        CdpNetworkTracker tracker = new CdpNetworkTracker();
+        tracker.onEvent(started("1", "https://example.com/api/a"));
+        tracker.onEvent(started("2", "https://example.com/api/b"));
+        // A redirect reuses the requestId
+        tracker.onEvent(started("2", "https://example.com/api/c"));
+        Assert.assertEquals(tracker.getInflightCount(), 2);
+
+        tracker.onEvent(ended("Network.loadingFinished", "1"));
+        tracker.onEvent(ended("Network.loadingFailed", "2"));
+        tracker.onEvent(ended("Network.loadingFinished", "unknown"));
+        Assert.assertEquals(tracker.getInflightCount(), 0);
+    }
+
+    @Test
+    public void testFiltersByUrlFragment() throws Exception {
+        CdpNetworkTracker tracker = new CdpNetworkTracker();
+        tracker.include("/api/");
+        tracker.exclude("/api/poll");
+        tracker.onEvent(started("1", "https://example.com/api/items"));
+        tracker.onEvent(started("2", "https://example.com/api/poll?since=1"));
+        tracker.onEvent(started("3", "https://example.com/logo.png"));
+        Assert.assertEquals(tracker.getInflightCount(), 1);
+
+        tracker.clearFilters();
+        tracker.onEvent(started("4", "https://example.com/logo.png"));
+        Assert.assertEquals(tracker.getInflightCount(), 2);
+    }
+
+    @Test
+    public void testIdleAfterQuietPeriod() throws Exception {
+        CdpNetworkTracker tracker = new CdpNetworkTracker();
+        tracker.onEvent(started("1", "https://example.com/api/a"));
+        tracker.onEvent(started("2", "https://example.com/api/b"));
+        Assert.assertFalse(tracker.waitForNetworkIdle(Duration.ZERO, 0, Duration.ofMillis(50)));
+        Assert.assertTrue(tracker.waitForNetworkIdle(Duration.ofMillis(20), 2, Duration.ofSeconds(5)),
+                "Requests below maxInflight may stay open");
+
+        JsonNode first = ended("Network.loadingFinished", "1");
+        JsonNode second = ended("Network.loadingFinished", "2");
+        Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(30);
+                tracker.onEvent(first);
+                Thread.sleep(30);
+                tracker.onEvent(second);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        long started = System.nanoTime();
+        Assert.assertTrue(tracker.waitForNetworkIdle(Duration.ofMillis(100), 0, Duration.ofSeconds(5)));
+        long elapsed = Duration.ofNanos(System.nanoTime() - started).toMillis();
+        Assert.assertTrue(elapsed >= 150 && elapsed < 2000, "Idle after the last request plus the quiet period, took "
+                + elapsed + " ms");
+        Assert.assertEquals(tracker.getInflightCount(), 0);
+    }
+
+    @Test
+    public void testIdleListenerRunsWhenTheLastRequestEnds() throws Exception {
+        CdpNetworkTracker tracker = new CdpNetworkTracker();
+        AtomicInteger idle = new AtomicInteger();
+        tracker.onIdle(idle::incrementAndGet);
+        tracker.exclude("/poll");
+        tracker.onEvent(started("1", "https://example.com/api/a"));
+        tracker.onEvent(started("2", "https://example.com/api/b"));
+        tracker.onEvent(started("3", "https://example.com/poll"));
+
+        tracker.onEvent(ended("Network.loadingFinished", "1"));
+        Assert.assertEquals(idle.get(), 0);
+        tracker.onEvent(ended("Network.loadingFailed", "2"));
+        Assert.assertEquals(idle.get(), 1);
+        // Untracked and unknown requests are not a transition
+        tracker.onEvent(ended("Network.loadingFinished", "3"));
+        tracker.onEvent(ended("Network.loadingFinished", "unknown"));
+        Assert.assertEquals(idle.get(), 1);
+    }
+
+    @Test
+    public void testMainFrameNavigationDropsRequestsOfTheOldDocument() throws Exception {
+        CdpNetworkTracker tracker = new CdpNetworkTracker();
+        AtomicInteger idle = new AtomicInteger();
+        tracker.onIdle(idle::incrementAndGet);
+        tracker.onEvent(started("1", "https://example.com/a", "L1"));
+        tracker.onEvent(started("2", "https://example.com/a.js", "L1"));
+        tracker.onEvent(started("3", "https://example.com/frame", "F1"));
+        // The next document's request starts before its navigation commits
+        tracker.onEvent(started("4", "https://example.com/b", "L2"));
+
+        tracker.onEvent(navigated("F2", "main"));
+        Assert.assertEquals(tracker.getInflightCount(), 4, "Subframe navigations do not prune");
+
+        tracker.onEvent(navigated("L2", null));
+        Assert.assertEquals(tracker.getInflightCount(), 1);
+        Assert.assertEquals(idle.get(), 0);
+        tracker.onEvent(ended("Network.loadingFinished", "4"));
+        Assert.assertEquals(tracker.getInflightCount(), 0);
+        Assert.assertEquals(idle.get(), 1);
+    }
+
+    @Test
+    public void testFloodPastTheQueueCapacityLosesNoRequest() throws Exception {
+        int requests = CdpEventDispatcher.DEFAULT_CAPACITY + 1000;
+        try (FakeCdpServer server = new FakeCdpServer()) {
+            CdpUtility cdp = new CdpUtility(new CdpClient(server.url()), true);
+            try {
+                CdpNetworkTracker tracker = cdp.getNetworkTracker();
+                CountDownLatch flooded = new CountDownLatch(1);
+                AtomicBoolean held = new AtomicBoolean();
+                // Hold the tracker's queue on its first idle transition so the flood backs up behind it
+                tracker.onIdle(() -> {
+                    if (held.compareAndSet(false, true)) {
+                        try {
+                            flooded.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+                server.emit("Network.requestWillBeSent", started("gate", "https://example.com/gate").get("params"));
+                server.emit("Network.loadingFinished", ended("Network.loadingFinished", "gate").get("params"));
+                Thread flood = Thread.ofVirtual().start(() -> {
+                    for (int i = 0; i < requests; i++) {
+                        server.emit("Network.requestWillBeSent",
+                                MAPPER.createObjectNode().put("requestId", "r" + i)
+                                        .set("request", MAPPER.createObjectNode().put("url", "https://example.com/" + i)));
+                    }
+                });
+                // Hold until the tracker's queue is full and the next event has to wait or be dropped
+                CdpClient client = cdp.getClient();
+                CdpWait.poll(() -> client.getDispatchStats().queueDepth() >= CdpEventDispatcher.DEFAULT_CAPACITY
+                        || client.getDispatchStats().eventsDropped() > 0, Duration.ofSeconds(3));
+                flooded.countDown();
+                flood.join();
+
+                Assert.assertTrue(CdpWait.poll(() -> tracker.getInflightCount() == requests, Duration.ofSeconds(10)),
+                        "In flight: " + tracker.getInflightCount());
+                for (int i = 0; i < requests; i++) {
+                    server.emit("Network.loadingFinished", ended("Network.loadingFinished", "r" + i).get("params"));
+                }
+                Assert.assertTrue(tracker.waitForNetworkIdle(Duration.ZERO, 0, Duration.ofSeconds(10)),
+                        "In flight: " + tracker.getInflightCount());
+            } finally {
+                cdp.close();
+            }
+        }
+    }
+}
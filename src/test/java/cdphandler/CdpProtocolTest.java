@@ -0,0 +1,132 @@
+package cdphandler;
+
+import cdphandler.protocol.DOM;
+import cdphandler.protocol.Fetch;
+import cdphandler.protocol.Page;
+import cdphandler.protocol.Runtime;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+/**
+ * Unit tests for the command records generated into {@code cdphandler.protocol}.
+ */
+public class CdpProtocolTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testRequiredParamsOnlyOmitsOptionalOnes() throws Exception {
+        Page.Navigate navigate = new Page.Navigate("https://example.com/");
+
+        Assert.assertEquals(navigate.method(), "Page.navigate");
+        Assert.assertEquals(params(navigate), MAPPER.readTree("{\"url\":\"https://example.com/\"}"));
+    }
+
+    @Test
+    public void testWithersSetOptionalParams() throws Exception {
+        Page.CaptureScreenshot screenshot = new Page.CaptureScreenshot().withFormat("jpeg").withQuality(80)
+                .withClip(new Page.Viewport(1, 2, 30, 40, 1.5));
+
+        Assert.assertEquals(params(screenshot), MAPPER.readTree(
+                "{\"format\":\"jpeg\",\"quality\":80,\"clip\":{\"x\":1.0,\"y\":2.0,\"width\":30.0,\"height\":40.0,"
+                        + "\"scale\":1.5}}"));
+    }
+
+    @Test
+    public void testReservedNamesKeepTheirWireName() throws Exception {
+        Fetch.ContinueRequest request = new Fetch.ContinueRequest("r1").withMethod("POST");
+
+        Assert.assertEquals(request.method(), "Fetch.continueRequest");
+        Assert.assertEquals(request.method_(), "POST");
+        Assert.assertEquals(params(request), MAPPER.readTree("{\"requestId\":\"r1\",\"method\":\"POST\"}"));
+    }
+
+    @Test
+    public void testArraysOfRecordsAreWritten() throws Exception {
+        Runtime.CallFunctionOn call = new Runtime.CallFunctionOn("function(a) { return a; }")
+                .withObjectId("obj-1")
+                .withArguments(List.of(new Runtime.CallArgument(MAPPER.readTree("[1,2]"), null, null)));
+
+        JsonNode params = params(call);
+        Assert.assertEquals(params.path("objectId").asText(), "obj-1");
+        Assert.assertEquals(params.path("arguments"), MAPPER.readTree("[{\"value\":[1,2]}]"));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testMissingRequiredParamIsRejected() {
+        new Page.Navigate(null);
+    }
+
+    @Test
+    public void testResultIsParsedIntoNestedRecords() throws Exception {
+        JsonNode result = MAPPER.readTree("{\"frameTree\":{\"frame\":{\"id\":\"main\",\"loaderId\":\"L1\","
+                + "\"url\":\"https://example.com/\",\"securityOrigin\":\"https://example.com\",\"mimeType\":\"text/html\"},"
+                + "\"childFrames\":[{\"frame\":{\"id\":\"child\",\"parentId\":\"main\",\"loaderId\":\"L2\","
+                + "\"url\":\"about:blank\",\"securityOrigin\":\"://\",\"mimeType\":\"text/html\"}}]}}");
+
+        Page.GetFrameTreeResult tree = new Page.GetFrameTree().parseResult(result);
+
+        Assert.assertEquals(tree.frameTree().frame().id(), "main");
+        Assert.assertNull(tree.frameTree().frame().parentId());
+        Assert.assertEquals(tree.frameTree().childFrames().size(), 1);
+        Assert.assertEquals(tree.frameTree().childFrames().get(0).frame().parentId(), "main");
+        Assert.assertNull(tree.frameTree().childFrames().get(0).childFrames());
+    }
+
+    @Test
+    public void testPrimitiveArraysAndAliasesAreParsed() throws Exception {
+        JsonNode result = MAPPER.readTree("{\"model\":{\"content\":[0,0,10,0,10,5,0,5],\"padding\":[],\"border\":[],"
+                + "\"margin\":[],\"width\":10,\"height\":5}}");
+
+        DOM.BoxModel model = new DOM.GetBoxModel().withBackendNodeId(7).parseResult(result).model();
+
+        Assert.assertEquals(model.content(), List.of(0.0, 0.0, 10.0, 0.0, 10.0, 5.0, 0.0, 5.0));
+        Assert.assertEquals(model.width(), 10);
+        Assert.assertEquals(model.height(), 5);
+    }
+
+    @Test
+    public void testCommandsWithoutResultParseToNull() throws Exception {
+        Assert.assertNull(new Page.Enable().parseResult(MAPPER.readTree("{}")));
+        Assert.assertEquals(params(new Page.Enable()), MAPPER.readTree("{}"));
+    }
+
+    @Test
+    public void testKeyEventMatchesTheFieldsSentBefore() throws Exception {
+        JsonNode params = params(CdpUtility.keyEvent("keyDown", 2, "a", "U+0041", "KeyA", "a", 65, 65));
+
+        Assert.assertEquals(params, MAPPER.readTree("{\"type\":\"keyDown\",\"modifiers\":2,\"text\":\"a\","
+                + "\"keyIdentifier\":\"U+0041\",\"code\":\"KeyA\",\"key\":\"a\",\"windowsVirtualKeyCode\":65,"
+                + "\"nativeVirtualKeyCode\":65,\"autoRepeat\":false,\"isKeypad\":false,\"isSystemKey\":false}"));
+    }
+
+    @Test
+    public void testMouseEventMatchesTheFieldsSentBefore() throws Exception {
+        JsonNode params = params(CdpUtility.mouseEvent(MouseEvent.PRESSED, 10, 20, 0, "left", 1));
+
+        Assert.assertEquals(params.path("type").asText(), MouseEvent.PRESSED.toString());
+        Assert.assertEquals(params.path("x").asDouble(), 10.0);
+        Assert.assertEquals(params.path("y").asDouble(), 20.0);
+        Assert.assertEquals(params.path("modifiers").asInt(), 0);
+        Assert.assertEquals(params.path("button").asText(), "left");
+        Assert.assertEquals(params.path("clickCount").asInt(), 1);
+        Assert.assertEquals(params.size(), 6);
+    }
+
+    private static JsonNode params(CdpCommand<?> command) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            command.writeParams(generator);
+            generator.writeEndObject();
+        }
+        return MAPPER.readTree(out.toString());
+    }
+}
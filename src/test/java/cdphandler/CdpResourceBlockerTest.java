@@ -0,0 +1,100 @@
+package cdphandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link CdpResourceBlocker} request decisions.
+ */
+public class CdpResourceBlockerTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static JsonNode paused(String frameId, String resourceType, String url) throws Exception {
+        return MAPPER.readTree("{\"requestId\":\"1\",\"frameId\":\"" + frameId + "\",\"resourceType\":\""
+                + resourceType + "\",\"request\":{\"url\":\"" + url + "\"}}");
+    }
+
+    private static CdpResourceBlocker blocker() throws Exception {
+        CdpLifecycle lifecycle = new CdpLifecycle(null);
+        lifecycle.onEvent(MAPPER.readTree(
+                "{\"method\":\"Page.frameNavigated\",\"params\":{\"frame\":{\"id\":\"main\",\"loaderId\":\"L\"}}}"));
+        return new CdpResourceBlocker(null, lifecycle);
+    }
+
+    @Test
+    public void testProfilesBlockByResourceType() throws Exception {
+        CdpResourceBlocker blocker = blocker();
+        CdpResourceBlocker.Rules media = CdpResourceBlocker.Rules.of(EnumSet.of(CdpBlockProfile.BLOCK_MEDIA),
+                List.of());
+        Assert.assertTrue(blocker.blocks(media, paused("main", "Image", "https://example.com/a.png")));
+        Assert.assertTrue(blocker.blocks(media, paused("main", "Font", "https://example.com/a.woff2")));
+        Assert.assertFalse(blocker.blocks(media, paused("main", "Script", "https://example.com/app.js")));
+
+        CdpResourceBlocker.Rules lean = CdpResourceBlocker.Rules.of(
+                EnumSet.of(CdpBlockProfile.BLOCK_ALL_BUT_DOCUMENT_AND_XHR), List.of());
+        Assert.assertTrue(blocker.blocks(lean, paused("main", "Script", "https://example.com/app.js")));
+        Assert.assertFalse(blocker.blocks(lean, paused("main", "XHR", "https://example.com/api")));
+        Assert.assertFalse(blocker.blocks(lean, paused("main", "Fetch", "https://example.com/api")));
+        Assert.assertFalse(blocker.blocks(lean, paused("main", "Document", "https://example.com/")));
+        Assert.assertEquals(lean.patterns().size(), CdpBlockProfile.BLOCK_ALL_BUT_DOCUMENT_AND_XHR.resourceTypes()
+                .size());
+    }
+
+    @Test
+    public void testUrlGlobs() throws Exception {
+        CdpResourceBlocker blocker = blocker();
+        CdpResourceBlocker.Rules rules = CdpResourceBlocker.Rules.of(Set.of(),
+                List.of("*.gif", "*://*.doubleclick.net/*", "*/track?.js"));
+        Assert.assertTrue(blocker.blocks(rules, paused("main", "Image", "https://example.com/spacer.gif")));
+        Assert.assertTrue(blocker.blocks(rules, paused("main", "Script", "https://ad.doubleclick.net/x.js")));
+        Assert.assertTrue(blocker.blocks(rules, paused("main", "Script", "https://example.com/track1.js")));
+        Assert.assertFalse(blocker.blocks(rules, paused("main", "Script", "https://example.com/track12.js")));
+        Assert.assertFalse(blocker.blocks(rules, paused("main", "Image", "https://example.com/a.gif.png")));
+        Assert.assertEquals(rules.patterns(), List.of(Map.of("urlPattern", "*.gif"),
+                Map.of("urlPattern", "*://*.doubleclick.net/*"), Map.of("urlPattern", "*/track?.js")));
+    }
+
+    @Test
+    public void testThirdPartyFollowsMainFrameDocument() throws Exception {
+        CdpResourceBlocker blocker = blocker();
+        CdpResourceBlocker.Rules rules = CdpResourceBlocker.Rules.of(
+                EnumSet.of(CdpBlockProfile.BLOCK_THIRD_PARTY), List.of());
+        Assert.assertEquals(rules.patterns(), List.of(Map.of("urlPattern", "*")));
+
+        Assert.assertFalse(blocker.blocks(rules, paused("main", "Document", "https://www.example.com/")));
+        Assert.assertFalse(blocker.blocks(rules, paused("main", "Script", "https://cdn.example.com/app.js")));
+        Assert.assertTrue(blocker.blocks(rules, paused("main", "Script", "https://www.google-analytics.com/a.js")));
+        Assert.assertTrue(blocker.blocks(rules, paused("child", "Document", "https://ads.example.net/frame")));
+        Assert.assertFalse(blocker.blocks(rules, paused("main", "Image", "data:image/png;base64,AAAA")));
+
+        // Navigating to another site changes the first party
+        Assert.assertFalse(blocker.blocks(rules, paused("main", "Document", "https://example.net/")));
+        Assert.assertFalse(blocker.blocks(rules, paused("main", "Script", "https://ads.example.net/a.js")));
+        Assert.assertTrue(blocker.blocks(rules, paused("main", "Script", "https://cdn.example.com/app.js")));
+    }
+
+    @Test
+    public void testSite() {
+        Assert.assertEquals(CdpResourceBlocker.site("https://a.b.Example.com:8443/x?y#z"), "example.com");
+        Assert.assertEquals(CdpResourceBlocker.site("https://user:pw@example.com/"), "example.com");
+        Assert.assertEquals(CdpResourceBlocker.site("http://localhost:8080/"), "localhost");
+        Assert.assertEquals(CdpResourceBlocker.site("http://127.0.0.1:8080/"), "127.0.0.1");
+        Assert.assertEquals(CdpResourceBlocker.site("http://[::1]:8080/"), "[::1]");
+        Assert.assertNull(CdpResourceBlocker.site("about:blank"));
+    }
+
+    @Test
+    public void testParseProfileNames() {
+        Assert.assertEquals(CdpBlockProfile.parse("block-media"), CdpBlockProfile.BLOCK_MEDIA);
+        Assert.assertEquals(CdpBlockProfile.parse(" BLOCK_THIRD_PARTY "), CdpBlockProfile.BLOCK_THIRD_PARTY);
+        Assert.assertEquals(CdpBlockProfile.parse("block-all-but-document-and-xhr"),
+                CdpBlockProfile.BLOCK_ALL_BUT_DOCUMENT_AND_XHR);
+    }
+}
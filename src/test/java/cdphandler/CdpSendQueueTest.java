@@ -0,0 +1,154 @@
+package cdphandler;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unit tests for {@link CdpSendQueue}.
+ * Uses a {@link RecordingWebSocket} that completes sends asynchronously and
+ * fails the test if a send is started while another one is still in flight.
+ */
+public class CdpSendQueueTest {
+
+    @Test
+    public void testFramesAreSentInOrder() throws Exception {
+        RecordingWebSocket socket = new RecordingWebSocket();
+        CdpSendQueue queue = new CdpSendQueue(socket);
+
+        List<CompletableFuture<Void>> sends = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            sends.add(queue.send("frame-" + i));
+        }
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        Assert.assertFalse(socket.overlapped.get(), "Sends must never overlap");
+        for (int i = 0; i < 50; i++) {
+            Assert.assertEquals(socket.sent.get(i), "frame-" + i);
+        }
+    }
+
+    @Test
+    public void testConcurrentProducersNeverOverlap() throws Exception {
+        RecordingWebSocket socket = new RecordingWebSocket();
+        CdpSendQueue queue = new CdpSendQueue(socket);
+        ExecutorService producers = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        List<CompletableFuture<Void>> sends = Collections.synchronizedList(new ArrayList<>());
+
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            producers.submit(() -> {
+                for (int i = 0; i < 100; i++) {
+                    sends.add(queue.send(thread + ":" + i));
+                }
+                done.countDown();
+            });
+        }
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        producers.shutdown();
+
+        Assert.assertFalse(socket.overlapped.get(), "Sends must never overlap");
+        Assert.assertEquals(socket.sent.size(), 800);
+        CdpSendStats stats = queue.stats();
+        Assert.assertEquals(stats.framesSent(), 800);
+        Assert.assertEquals(stats.queueDepth(), 0);
+    }
+
+    @Test
+    public void testFailedSendCompletesExceptionally() throws Exception {
+        RecordingWebSocket socket = new RecordingWebSocket();
+        socket.failNext = true;
+        CdpSendQueue queue = new CdpSendQueue(socket);
+
+        CompletableFuture<Void> failed = queue.send("boom");
+        CompletableFuture<Void> next = queue.send("ok");
+
+        Assert.assertThrows(Exception.class, () -> failed.get(5, TimeUnit.SECONDS));
+        next.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(socket.sent, List.of("ok"));
+    }
+
+    // -----------------------------------------------------------------------
+    // Stub WebSocket
+    // -----------------------------------------------------------------------
+
+    static class RecordingWebSocket implements WebSocket {
+        final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        final AtomicBoolean inFlight = new AtomicBoolean();
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        volatile boolean failNext;
+
+        @Override
+        public CompletableFuture<WebSocket> sendText(CharSequence data, boolean last) {
+            if (!inFlight.compareAndSet(false, true)) {
+                overlapped.set(true);
+            }
+            if (failNext) {
+                failNext = false;
+                inFlight.set(false);
+                return CompletableFuture.failedFuture(new IllegalStateException("send failed"));
+            }
+            sent.add(data.toString());
+            return CompletableFuture.supplyAsync(() -> {
+                inFlight.set(false);
+                return this;
+            });
+        }
+
+        @Override
+        public CompletableFuture<WebSocket> sendBinary(ByteBuffer data, boolean last) {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        public CompletableFuture<WebSocket> sendPing(ByteBuffer message) {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        public CompletableFuture<WebSocket> sendPong(ByteBuffer message) {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        public CompletableFuture<WebSocket> sendClose(int statusCode, String reason) {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public String getSubprotocol() {
+            return "";
+        }
+
+        @Override
+        public boolean isOutputClosed() {
+            return false;
+        }
+
+        @Override
+        public boolean isInputClosed() {
+            return false;
+        }
+
+        @Override
+        public void abort() {
+        }
+    }
+}
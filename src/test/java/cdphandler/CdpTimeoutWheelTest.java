@@ -0,0 +1,42 @@
+package cdphandler;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unit tests for {@link CdpTimeoutWheel}.
+ * Uses a small wheel (8 × 10ms) so delays span several rounds.
+ */
+public class CdpTimeoutWheelTest {
+
+    private final CdpTimeoutWheel wheel = new CdpTimeoutWheel(Duration.ofMillis(10), 8);
+
+    @Test
+    public void testTimeoutFiresAfterDelay() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        wheel.schedule(Duration.ofMillis(200), fired::countDown);
+
+        Assert.assertTrue(fired.await(5, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertTrue(elapsedMillis >= 200, "Fired early after " + elapsedMillis + "ms");
+    }
+
+    @Test
+    public void testCancelledTimeoutDoesNotFire() throws Exception {
+        AtomicBoolean cancelledFired = new AtomicBoolean();
+        CountDownLatch later = new CountDownLatch(1);
+
+        wheel.schedule(Duration.ofMillis(50), () -> cancelledFired.set(true)).cancel();
+        wheel.schedule(Duration.ofMillis(150), later::countDown);
+
+        Assert.assertTrue(later.await(5, TimeUnit.SECONDS));
+        Assert.assertFalse(cancelledFired.get());
+    }
+}
@@ -0,0 +1,118 @@
+package cdphandler;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for {@link CdpWait}.
+ */
+public class CdpWaitTest {
+
+    @Test
+    public void testFirstRetriesAreFast() {
+        // 10, 20, 40, ... ms instead of a fixed 250 ms, capped at the maximum
+        List<Long> intervals = new ArrayList<>();
+        for (long interval = CdpWait.FIRST_INTERVAL_MILLIS; intervals.size() < 7;
+                interval = CdpWait.backoff(interval, CdpWait.MAX_INTERVAL_MILLIS)) {
+            intervals.add(interval);
+        }
+        Assert.assertEquals(intervals, List.of(10L, 20L, 40L, 80L, 160L, 250L, 250L));
+
+        AtomicInteger attempts = new AtomicInteger();
+        Assert.assertTrue(CdpWait.poll(() -> attempts.incrementAndGet() == 3, Duration.ofSeconds(5)));
+        Assert.assertEquals(attempts.get(), 3);
+    }
+
+    @Test
+    public void testTimesOutWhenConditionNeverHolds() {
+        long started = System.nanoTime();
+        Assert.assertFalse(CdpWait.poll(() -> false, Duration.ofMillis(300)));
+        long elapsed = Duration.ofNanos(System.nanoTime() - started).toMillis();
+        Assert.assertTrue(elapsed >= 300 && elapsed < 1000, "Elapsed " + elapsed + " ms");
+    }
+
+    @Test
+    public void testHungAttemptDoesNotOutliveTheTimeout() {
+        CountDownLatch never = new CountDownLatch(1);
+        long started = System.nanoTime();
+        Assert.assertFalse(CdpWait.poll(() -> {
+            never.await();
+            return true;
+        }, Duration.ofMillis(200)));
+        Assert.assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 1000);
+    }
+
+    @Test
+    public void testSignalCutsTheIntervalShort() throws Exception {
+        CdpWait wait = new CdpWait();
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicLong signalledAt = new AtomicLong();
+        CountDownLatch armed = new CountDownLatch(1);
+        Thread signaller = Thread.ofVirtual().start(() -> {
+            try {
+                armed.await();
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            signalledAt.set(System.nanoTime());
+            wait.signal();
+        });
+        Assert.assertTrue(wait.until(() -> {
+            // Arm the signal once the backoff has reached its ceiling, after 10, 20, 40, 80 and 160 ms
+            if (attempts.incrementAndGet() == 6) {
+                armed.countDown();
+            }
+            return wait.signals() > 0;
+        }, Duration.ofSeconds(5)));
+        long latency = Duration.ofNanos(System.nanoTime() - signalledAt.get()).toMillis();
+        Assert.assertTrue(latency < CdpWait.MAX_INTERVAL_MILLIS / 2, "Woke " + latency + " ms after the signal");
+        signaller.join();
+    }
+
+    @Test
+    public void testFlatIntervalWaitsForSignals() {
+        CdpWait wait = new CdpWait();
+        AtomicInteger attempts = new AtomicInteger();
+        Assert.assertFalse(wait.until(() -> attempts.incrementAndGet() < 0, Duration.ofMillis(250),
+                Duration.ofSeconds(1), Duration.ofSeconds(1)));
+        Assert.assertEquals(attempts.get(), 1);
+    }
+
+    @Test
+    public void testNullConditionIsSatisfied() {
+        Assert.assertTrue(CdpWait.poll(null, Duration.ZERO));
+    }
+
+    @Test
+    public void testNetworkSignalsOnlyWhenThePageGoesIdle() throws Exception {
+        try (FakeCdpServer server = new FakeCdpServer()) {
+            CdpUtility cdp = new CdpUtility(new CdpClient(server.url()), true);
+            try {
+                CdpWait wait = cdp.getWait();
+                long before = wait.signals();
+                for (String requestId : new String[] { "1", "2" }) {
+                    server.emit("Network.requestWillBeSent", server.json("{\"requestId\":\"" + requestId
+                            + "\",\"request\":{\"url\":\"https://example.com/" + requestId + "\"}}"));
+                }
+                server.emit("Network.loadingFinished", server.json("{\"requestId\":\"1\"}"));
+                Assert.assertTrue(CdpWait.poll(() -> cdp.getNetworkTracker().getInflightCount() == 1,
+                        Duration.ofSeconds(5)));
+                Assert.assertEquals(wait.signals(), before, "A request finishing while others run is no signal");
+
+                server.emit("Network.loadingFinished", server.json("{\"requestId\":\"2\"}"));
+                Assert.assertTrue(CdpWait.poll(() -> wait.signals() == before + 1, Duration.ofSeconds(5)),
+                        "The network going idle should signal the wait");
+            } finally {
+                cdp.close();
+            }
+        }
+    }
+}
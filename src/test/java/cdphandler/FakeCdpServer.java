@@ -0,0 +1,225 @@
+package cdphandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * In-process CDP endpoint for unit tests: a minimal WebSocket server that
+ * records every command a {@link CdpClient} sends and answers it from a
+ * per-method handler, {@code {}} by default.
+ *
+ * <pre>
+ * try (FakeCdpServer server = new FakeCdpServer()) {
+ *     server.respond("Runtime.evaluate", params -&gt; server.json("{\"result\":{\"type\":\"number\",\"value\":1}}"));
+ *     CdpUtility cdp = new CdpUtility(new CdpClient(server.url()), false);
+ *     ...
+ *     Assert.assertEquals(server.methods(), List.of("Runtime.evaluate"));
+ * }
+ * </pre>
+ */
+final class FakeCdpServer implements AutoCloseable {
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ServerSocket serverSocket;
+    private final List<JsonNode> commands = new CopyOnWriteArrayList<>();
+    private final Map<String, Function<JsonNode, JsonNode>> handlers = new ConcurrentHashMap<>();
+    private volatile Socket socket;
+    private volatile OutputStream out;
+
+    FakeCdpServer() throws IOException {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::serve, "fake-cdp-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    String url() {
+        return "ws://127.0.0.1:" + serverSocket.getLocalPort() + "/devtools/page/fake";
+    }
+
+    /**
+     * Answers {@code method} with the result the handler returns for the command's
+     * params; a handler that throws makes the command fail with a CDP error carrying
+     * the exception message.
+     */
+    void respond(String method, Function<JsonNode, JsonNode> handler) {
+        handlers.put(method, handler);
+    }
+
+    /** Sends an event to the client. */
+    void emit(String method, JsonNode params) {
+        ObjectNode event = mapper.createObjectNode();
+        event.put("method", method);
+        event.set("params", params);
+        write(event);
+    }
+
+    /** Every command received so far, as {@code {"method": ..., "params": ...}}. */
+    List<JsonNode> commands() {
+        return new ArrayList<>(commands);
+    }
+
+    /** The params of every command received so far for {@code method}. */
+    List<JsonNode> commands(String method) {
+        return commands.stream().filter(c -> method.equals(c.path("method").asText()))
+                .map(c -> c.path("params")).toList();
+    }
+
+    /** The method names of every command received so far, in order. */
+    List<String> methods() {
+        return commands.stream().map(c -> c.path("method").asText()).toList();
+    }
+
+    JsonNode json(String text) {
+        try {
+            return mapper.readTree(text);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(text, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    private void serve() {
+        try (Socket accepted = serverSocket.accept()) {
+            socket = accepted;
+            DataInputStream in = new DataInputStream(accepted.getInputStream());
+            out = accepted.getOutputStream();
+            handshake(in);
+            ByteArrayOutputStream message = new ByteArrayOutputStream();
+            while (true) {
+                int first = in.readUnsignedByte();
+                int opcode = first & 0x0F;
+                byte[] payload = readPayload(in);
+                if (opcode == 0x8) {
+                    return;
+                }
+                if (opcode == 0x9) {
+                    writeFrame(0xA, payload);
+                    continue;
+                }
+                message.write(payload);
+                if ((first & 0x80) != 0) {
+                    handle(mapper.readTree(message.toByteArray()));
+                    message.reset();
+                }
+            }
+        } catch (IOException ignored) {
+            // Closed by the test
+        }
+    }
+
+    private void handshake(InputStream in) throws IOException {
+        StringBuilder request = new StringBuilder();
+        while (!request.toString().endsWith("\r\n\r\n")) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Connection closed during handshake");
+            }
+            request.append((char) b);
+        }
+        String key = request.toString().lines()
+                .filter(line -> line.toLowerCase().startsWith("sec-websocket-key:"))
+                .map(line -> line.substring(line.indexOf(':') + 1).trim())
+                .findFirst().orElseThrow(() -> new IOException("No Sec-WebSocket-Key"));
+        String accept;
+        try {
+            accept = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-1")
+                    .digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII)));
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+        out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static byte[] readPayload(DataInputStream in) throws IOException {
+        int second = in.readUnsignedByte();
+        long length = second & 0x7F;
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        } else if (length == 127) {
+            length = in.readLong();
+        }
+        byte[] mask = new byte[4];
+        if ((second & 0x80) != 0) {
+            in.readFully(mask);
+        }
+        byte[] payload = new byte[(int) length];
+        in.readFully(payload);
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] ^= mask[i % 4];
+        }
+        return payload;
+    }
+
+    private void handle(JsonNode command) {
+        commands.add(command);
+        ObjectNode response = mapper.createObjectNode();
+        response.set("id", command.get("id"));
+        if (command.has("sessionId")) {
+            response.set("sessionId", command.get("sessionId"));
+        }
+        Function<JsonNode, JsonNode> handler = handlers.get(command.path("method").asText());
+        try {
+            JsonNode result = handler == null ? null : handler.apply(command.path("params"));
+            response.set("result", result == null ? mapper.createObjectNode() : result);
+        } catch (RuntimeException e) {
+            response.putObject("error").put("code", -32000).put("message", e.getMessage());
+        }
+        write(response);
+    }
+
+    private synchronized void write(JsonNode message) {
+        try {
+            writeFrame(0x1, mapper.writeValueAsBytes(message));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write to the fake CDP client", e);
+        }
+    }
+
+    private synchronized void writeFrame(int opcode, byte[] payload) throws IOException {
+        out.write(0x80 | opcode);
+        if (payload.length < 126) {
+            out.write(payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            out.write(126);
+            out.write(payload.length >>> 8);
+            out.write(payload.length & 0xFF);
+        } else {
+            out.write(127);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) ((long) payload.length >>> shift) & 0xFF);
+            }
+        }
+        out.write(payload);
+        out.flush();
+    }
+}
@@ -9,7 +9,9 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Unit tests for {@link McpToolDispatcher}.
@@ -274,6 +276,18 @@ public class McpToolDispatcherTest {
             return List.of(lastElement);
         }
 
+        @Override
+        public Map<String, ICdpElement> findAll(Map<String, CdpBy> locators) {
+            return findAll(locators, Duration.ZERO);
+        }
+
+        @Override
+        public Map<String, ICdpElement> findAll(Map<String, CdpBy> locators, Duration d) {
+            Map<String, ICdpElement> elements = new LinkedHashMap<>();
+            locators.forEach((name, by) -> elements.put(name, lastElement));
+            return elements;
+        }
+
         @Override
         public void forward() {
             forwardCalled = true;
@@ -288,6 +302,11 @@ public class McpToolDispatcherTest {
             lastNavigatedUrl = url;
         }
 
+        @Override
+        public void get(String url, CdpLoadState loadState) {
+            lastNavigatedUrl = url;
+        }
+
         @Override
         public CdpUtility getCdpUtility() {
             return null;
@@ -328,6 +347,26 @@ public class McpToolDispatcherTest {
             return titleToReturn;
         }
 
+        @Override
+        public CdpLoadState getLoadState() {
+            return CdpLoadState.DOM_CONTENT_LOADED;
+        }
+
+        @Override
+        public CdpNetworkTracker getNetworkTracker() {
+            return null;
+        }
+
+        @Override
+        public CdpResourceBlocker getResourceBlocker() {
+            return null;
+        }
+
+        @Override
+        public CdpTypingMode getTypingMode() {
+            return CdpTypingMode.KEYSTROKES;
+        }
+
         @Override
         public String getWindowHandle() {
             return "handle-1";
@@ -390,6 +429,14 @@ public class McpToolDispatcherTest {
         public void setPollingInterval(Duration d) {
         }
 
+        @Override
+        public void setLoadState(CdpLoadState loadState) {
+        }
+
+        @Override
+        public void setTypingMode(CdpTypingMode typingMode) {
+        }
+
         @Override
         public void setWindowRect(CdpRect rect) {
         }
@@ -401,6 +448,11 @@ public class McpToolDispatcherTest {
         @Override
         public void switchToWindow(String handle) {
         }
+
+        @Override
+        public boolean waitForNetworkIdle(Duration quietPeriod, int maxInflight) {
+            return true;
+        }
     }
 
     /**